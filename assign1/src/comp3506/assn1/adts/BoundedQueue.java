@@ -0,0 +1,276 @@
+package comp3506.assn1.adts;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.ToLongFunction;
+
+/**
+ * First-in first-out queue of fixed capacity, held in a ring buffer that is
+ * allocated once. What happens when an element is enqueued into a full queue
+ * is set by its overflow policy: the producer waits for space, the oldest
+ * element is dropped to make room, or the new element is rejected.
+ *
+ * The queue can also coalesce elements by key, such as the id of the
+ * aircraft a radar contact is for. An element whose key is already queued
+ * replaces the queued element in place, keeping its place in the queue, so
+ * the queue holds at most one element per key and only the newest of each is
+ * dequeued. Coalescing happens before the overflow policy is applied, so a
+ * full queue still accepts updates for keys it holds.
+ *
+ * Counters record how many elements have been coalesced, dropped and
+ * rejected. Every method is synchronized, so producers and consumers may be
+ * on different threads.
+ *
+ * @author Angus Trusler
+ *
+ * @param <T>
+ *            Type of the elements held in the queue.
+ */
+public class BoundedQueue<T> implements IterableQueue<T> {
+
+	/**
+	 * What to do with an element enqueued into a full queue.
+	 */
+	public enum Overflow {
+		/** Wait until a dequeue makes space. */
+		BLOCK,
+		/** Drop the oldest element to make space. */
+		DROP_OLDEST,
+		/** Throw IllegalStateException, leaving the queue unchanged. */
+		REJECT
+	}
+
+	private final Object[] ring;
+	private final long[] keys;
+	private final Overflow overflow;
+	private final ToLongFunction<? super T> keyOf;
+	// Slot of the queued element for each key, when coalescing.
+	private final LongIntHashMap slots;
+	private int head = 0;
+	private int size = 0;
+	private long coalesced = 0;
+	private long dropped = 0;
+	private long rejected = 0;
+
+	/**
+	 * Constructor for a BoundedQueue that does not coalesce. O(capacity)
+	 *
+	 * @param capacity
+	 *            Most elements the queue holds.
+	 * @param overflow
+	 *            What to do when an element is enqueued into a full queue.
+	 * @throws IllegalArgumentException
+	 *             If capacity is not positive.
+	 */
+	public BoundedQueue(int capacity, Overflow overflow)
+			throws IllegalArgumentException {
+		this(capacity, overflow, null);
+	}
+
+	/**
+	 * Constructor for the BoundedQueue class. O(capacity)
+	 *
+	 * @param capacity
+	 *            Most elements the queue holds.
+	 * @param overflow
+	 *            What to do when an element is enqueued into a full queue.
+	 * @param keyOf
+	 *            Gives the key each element is coalesced by, or null not to
+	 *            coalesce.
+	 * @throws IllegalArgumentException
+	 *             If capacity is not positive.
+	 */
+	public BoundedQueue(int capacity, Overflow overflow,
+			ToLongFunction<? super T> keyOf) throws IllegalArgumentException {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException();
+		}
+		ring = new Object[capacity];
+		this.overflow = overflow;
+		this.keyOf = keyOf;
+		keys = keyOf == null ? null : new long[capacity];
+		slots = keyOf == null ? null : new LongIntHashMap(capacity);
+	}
+
+	@Override
+	public synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * @return Most elements the queue holds.
+	 */
+	public int capacity() {
+		return ring.length;
+	}
+
+	/**
+	 * @return Number of elements that replaced a queued element with the
+	 *         same key.
+	 */
+	public synchronized long getCoalesced() {
+		return coalesced;
+	}
+
+	/**
+	 * @return Number of elements dropped to make space.
+	 */
+	public synchronized long getDropped() {
+		return dropped;
+	}
+
+	/**
+	 * @return Number of elements rejected because the queue was full.
+	 */
+	public synchronized long getRejected() {
+		return rejected;
+	}
+
+	/**
+	 * @return Number of elements lost to overflow, dropped or rejected.
+	 */
+	public synchronized long getShed() {
+		return dropped + rejected;
+	}
+
+	/*
+	 * (non-Javadoc) O(1), or until space is made when full and blocking.
+	 * Throws IllegalStateException when full and rejecting, or if interrupted
+	 * while waiting for space.
+	 *
+	 * @see adts.IterableQueue#enqueue(java.lang.Object)
+	 */
+	@Override
+	public synchronized void enqueue(T element) throws IllegalStateException {
+		long key = keyOf == null ? 0 : keyOf.applyAsLong(element);
+		if (replace(key, element)) {
+			return;
+		}
+		if (size == ring.length) {
+			switch (overflow) {
+			case BLOCK:
+				awaitSpace();
+				// the element's key may have been queued while waiting.
+				if (replace(key, element)) {
+					return;
+				}
+				break;
+			case DROP_OLDEST:
+				removeHead();
+				dropped++;
+				break;
+			default:
+				rejected++;
+				throw new IllegalStateException("Queue is full");
+			}
+		}
+		int slot = (head + size) % ring.length;
+		ring[slot] = element;
+		if (keyOf != null) {
+			keys[slot] = key;
+			slots.put(key, slot);
+		}
+		size++;
+		notifyAll();
+	}
+
+	/**
+	 * Replace the queued element with the same key, if coalescing.
+	 *
+	 * @return true if an element was replaced.
+	 */
+	private boolean replace(long key, T element) {
+		if (keyOf == null) {
+			return false;
+		}
+		int slot = slots.get(key);
+		if (slot == LongIntHashMap.NO_VALUE) {
+			return false;
+		}
+		ring[slot] = element;
+		coalesced++;
+		return true;
+	}
+
+	private void awaitSpace() throws IllegalStateException {
+		while (size == ring.length) {
+			try {
+				wait();
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted waiting for space");
+			}
+		}
+	}
+
+	/*
+	 * (non-Javadoc) O(1)
+	 *
+	 * @see adts.IterableQueue#dequeue()
+	 */
+	@Override
+	public synchronized T dequeue() throws IndexOutOfBoundsException {
+		if (size == 0) {
+			throw new IndexOutOfBoundsException();
+		}
+		T element = removeHead();
+		notifyAll();
+		return element;
+	}
+
+	/**
+	 * Remove and return the element at the head of the queue, waiting for
+	 * one to be enqueued if the queue is empty.
+	 *
+	 * @return Element that was at the head of the queue.
+	 * @throws InterruptedException
+	 *             If interrupted while waiting.
+	 */
+	public synchronized T take() throws InterruptedException {
+		while (size == 0) {
+			wait();
+		}
+		return dequeue();
+	}
+
+	@SuppressWarnings("unchecked")
+	private T removeHead() {
+		T element = (T) ring[head];
+		// clear the slot so the element can be garbage collected.
+		ring[head] = null;
+		if (keyOf != null) {
+			slots.remove(keys[head]);
+		}
+		head = (head + 1) % ring.length;
+		size--;
+		return element;
+	}
+
+	/*
+	 * (non-Javadoc) O(n)
+	 *
+	 * The queue must not be modified while the iterator is in use.
+	 *
+	 * @see java.lang.Iterable#iterator()
+	 */
+	@Override
+	public synchronized Iterator<T> iterator() {
+		return new Iterator<T>() {
+			// elements already returned.
+			private int index = 0;
+
+			public boolean hasNext() {
+				return index < size;
+			}
+
+			@SuppressWarnings("unchecked")
+			public T next() {
+				if (index >= size) {
+					throw new NoSuchElementException();
+				}
+				return (T) ring[(head + index++) % ring.length];
+			}
+		};
+	}
+
+}
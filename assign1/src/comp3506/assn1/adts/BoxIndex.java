@@ -0,0 +1,296 @@
+package comp3506.assn1.adts;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Spatial index of three-dimensional boxes, for finding the boxes that
+ * contain a point without testing every box. The area is split into square
+ * tiles in x and y, and each tile lists the boxes that overlap it. Finding
+ * the boxes containing a point only tests the boxes listed by the point's
+ * tile. Each box is given an int id, which is reused once the box is
+ * removed.
+ *
+ * @author Angus Trusler
+ *
+ */
+public class BoxIndex {
+
+	private static final int NONE = -1;
+
+	private final int length;
+	private final int breadth;
+	private final int tileSize;
+	private final int tilesX;
+	private final int tilesY;
+	// Ids of the boxes overlapping each tile, indexed by tileY * tilesX + tileX.
+	private final int[][] tileBoxes;
+	private final int[] tileCounts;
+
+	// Per id bounds, inclusive. lowX is NONE for an unused id.
+	private int[] lowX = new int[0];
+	private int[] lowY = new int[0];
+	private int[] lowZ = new int[0];
+	private int[] highX = new int[0];
+	private int[] highY = new int[0];
+	private int[] highZ = new int[0];
+	private int[] freeIds = new int[0];
+	private int freeCount = 0;
+	private int highWater = 0;
+	private int size = 0;
+
+	/**
+	 * Constructor for the BoxIndex class. O(tiles)
+	 *
+	 * @param length
+	 *            Largest x coordinate.
+	 * @param breadth
+	 *            Largest y coordinate.
+	 * @param tileSize
+	 *            Width of a square tile.
+	 * @throws IllegalArgumentException
+	 *             If a dimension is negative or the tile size is not
+	 *             positive.
+	 */
+	public BoxIndex(int length, int breadth, int tileSize)
+			throws IllegalArgumentException {
+		if (length < 0 || breadth < 0 || tileSize <= 0) {
+			throw new IllegalArgumentException();
+		}
+		this.length = length;
+		this.breadth = breadth;
+		this.tileSize = tileSize;
+		tilesX = length / tileSize + 1;
+		tilesY = breadth / tileSize + 1;
+		tileBoxes = new int[tilesX * tilesY][];
+		tileCounts = new int[tilesX * tilesY];
+	}
+
+	/**
+	 * @return Number of boxes in the index.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Add a box. Parts of the box outside the area can never contain a point
+	 * that is looked up. O(tiles overlapped)
+	 *
+	 * @param x0
+	 *            Lowest x coordinate of the box.
+	 * @param y0
+	 *            Lowest y coordinate of the box.
+	 * @param z0
+	 *            Lowest z coordinate of the box.
+	 * @param x1
+	 *            Highest x coordinate of the box, inclusive.
+	 * @param y1
+	 *            Highest y coordinate of the box, inclusive.
+	 * @param z1
+	 *            Highest z coordinate of the box, inclusive.
+	 * @return The box's id.
+	 * @throws IllegalArgumentException
+	 *             If the box is empty or lies wholly outside the area.
+	 */
+	public int add(int x0, int y0, int z0, int x1, int y1, int z1)
+			throws IllegalArgumentException {
+		if (x0 > x1 || y0 > y1 || z0 > z1 || x1 < 0 || y1 < 0
+				|| x0 > length || y0 > breadth) {
+			throw new IllegalArgumentException();
+		}
+		int id = allocate();
+		lowX[id] = Math.max(x0, 0);
+		lowY[id] = Math.max(y0, 0);
+		lowZ[id] = z0;
+		highX[id] = x1;
+		highY[id] = y1;
+		highZ[id] = z1;
+		for (int tileY = firstTileY(id); tileY <= lastTileY(id); tileY++) {
+			for (int tileX = firstTileX(id); tileX <= lastTileX(id); tileX++) {
+				int tile = tileY * tilesX + tileX;
+				int[] boxes = tileBoxes[tile];
+				if (boxes == null) {
+					boxes = new int[4];
+				} else if (tileCounts[tile] == boxes.length) {
+					boxes = Arrays.copyOf(boxes, boxes.length * 2);
+				}
+				boxes[tileCounts[tile]++] = id;
+				tileBoxes[tile] = boxes;
+			}
+		}
+		++size;
+		return id;
+	}
+
+	/**
+	 * Remove a box. O(tiles overlapped * boxes listed by each)
+	 *
+	 * @param id
+	 *            Id of the box.
+	 * @return true if the box was in the index.
+	 */
+	public boolean remove(int id) {
+		if (id < 0 || id >= highWater || lowX[id] == NONE) {
+			return false;
+		}
+		for (int tileY = firstTileY(id); tileY <= lastTileY(id); tileY++) {
+			for (int tileX = firstTileX(id); tileX <= lastTileX(id); tileX++) {
+				int tile = tileY * tilesX + tileX;
+				int[] boxes = tileBoxes[tile];
+				for (int i = 0; i < tileCounts[tile]; i++) {
+					if (boxes[i] == id) {
+						boxes[i] = boxes[--tileCounts[tile]];
+						break;
+					}
+				}
+			}
+		}
+		lowX[id] = NONE;
+		freeIds[freeCount++] = id;
+		--size;
+		return true;
+	}
+
+	/**
+	 * @param id
+	 *            Id of a box in the index.
+	 * @param x
+	 *            X coordinate of the point.
+	 * @param y
+	 *            Y coordinate of the point.
+	 * @param z
+	 *            Z coordinate of the point.
+	 * @return true if the box contains the point. O(1)
+	 */
+	public boolean contains(int id, int x, int y, int z) {
+		return x >= lowX[id] && x <= highX[id] && y >= lowY[id]
+				&& y <= highY[id] && z >= lowZ[id] && z <= highZ[id];
+	}
+
+	/**
+	 * Visit every box that contains a point. O(boxes listed by its tile)
+	 *
+	 * @param x
+	 *            X coordinate of the point.
+	 * @param y
+	 *            Y coordinate of the point.
+	 * @param z
+	 *            Z coordinate of the point.
+	 * @param action
+	 *            Action given the id of each box. Must not change the index.
+	 * @return Number of boxes visited.
+	 */
+	public int forEachContaining(int x, int y, int z, IntConsumer action) {
+		int tile = tileOf(x, y);
+		if (tile == NONE) {
+			return 0;
+		}
+		int count = 0;
+		int[] boxes = tileBoxes[tile];
+		for (int i = 0; i < tileCounts[tile]; i++) {
+			if (contains(boxes[i], x, y, z)) {
+				action.accept(boxes[i]);
+				++count;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Visit every box that contains either of two points, once each, such as
+	 * the start and end of a move. O(boxes listed by their tiles)
+	 *
+	 * @param fromX
+	 *            X coordinate of the first point.
+	 * @param fromY
+	 *            Y coordinate of the first point.
+	 * @param fromZ
+	 *            Z coordinate of the first point.
+	 * @param x
+	 *            X coordinate of the second point.
+	 * @param y
+	 *            Y coordinate of the second point.
+	 * @param z
+	 *            Z coordinate of the second point.
+	 * @param action
+	 *            Action given the id of each box. Must not change the index.
+	 * @return Number of boxes visited.
+	 */
+	public int forEachContainingEither(int fromX, int fromY, int fromZ, int x,
+			int y, int z, IntConsumer action) {
+		int fromTile = tileOf(fromX, fromY);
+		int tile = tileOf(x, y);
+		int count = 0;
+		if (fromTile != NONE) {
+			int[] boxes = tileBoxes[fromTile];
+			for (int i = 0; i < tileCounts[fromTile]; i++) {
+				int id = boxes[i];
+				if (contains(id, fromX, fromY, fromZ) || contains(id, x, y, z)) {
+					action.accept(id);
+					++count;
+				}
+			}
+		}
+		if (tile != NONE && tile != fromTile) {
+			int[] boxes = tileBoxes[tile];
+			for (int i = 0; i < tileCounts[tile]; i++) {
+				int id = boxes[i];
+				// boxes also overlapping the first tile were visited above.
+				if (contains(id, x, y, z) && (fromTile == NONE || !overlaps(id, fromTile))) {
+					action.accept(id);
+					++count;
+				}
+			}
+		}
+		return count;
+	}
+
+	private boolean overlaps(int id, int tile) {
+		int tileX = tile % tilesX;
+		int tileY = tile / tilesX;
+		return tileX >= firstTileX(id) && tileX <= lastTileX(id)
+				&& tileY >= firstTileY(id) && tileY <= lastTileY(id);
+	}
+
+	private int tileOf(int x, int y) {
+		if (x < 0 || y < 0 || x > length || y > breadth) {
+			return NONE;
+		}
+		return (y / tileSize) * tilesX + x / tileSize;
+	}
+
+	private int firstTileX(int id) {
+		return lowX[id] / tileSize;
+	}
+
+	private int firstTileY(int id) {
+		return lowY[id] / tileSize;
+	}
+
+	private int lastTileX(int id) {
+		return Math.min(highX[id] / tileSize, tilesX - 1);
+	}
+
+	private int lastTileY(int id) {
+		return Math.min(highY[id] / tileSize, tilesY - 1);
+	}
+
+	private int allocate() {
+		if (freeCount > 0) {
+			return freeIds[--freeCount];
+		}
+		if (highWater == lowX.length) {
+			int capacity = Math.max(highWater * 2, 16);
+			lowX = Arrays.copyOf(lowX, capacity);
+			lowY = Arrays.copyOf(lowY, capacity);
+			lowZ = Arrays.copyOf(lowZ, capacity);
+			highX = Arrays.copyOf(highX, capacity);
+			highY = Arrays.copyOf(highY, capacity);
+			highZ = Arrays.copyOf(highZ, capacity);
+			freeIds = Arrays.copyOf(freeIds, capacity);
+		}
+		return highWater++;
+	}
+
+}
@@ -0,0 +1,272 @@
+package comp3506.assn1.adts;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.ToIntFunction;
+
+/**
+ * Queue with a small number of priority levels, each a first-in first-out
+ * bucket. A classifier gives each element its level as it is enqueued, level
+ * 0 being the most urgent. Dequeue takes the oldest element of the most
+ * urgent non-empty level, so an urgent element never waits behind less urgent
+ * ones however many are queued.
+ *
+ * To stop a steady stream of urgent elements starving the rest, once a
+ * burst of dequeues has been served from more urgent levels while a less
+ * urgent level waited, the next dequeue is served from a waiting level
+ * instead. These turns go round the waiting levels in order, so with the most
+ * urgent level and every other level busy, each waiting level is still served
+ * at least once in every (burst + 1) * (levels - 1) dequeues.
+ *
+ * Each level is a ring buffer that grows by doubling, and a bit mask records
+ * the non-empty levels, so enqueue and dequeue are O(1) and only allocate
+ * when a level grows.
+ *
+ * @author Angus Trusler
+ *
+ * @param <T>
+ *            Type of the elements held in the queue.
+ */
+public class BucketedPriorityQueue<T> implements IterableQueue<T> {
+
+	/** Most levels a queue can have. */
+	public static final int MAX_LEVELS = 32;
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private final ToIntFunction<? super T> classifier;
+	private final int burst;
+	private final Object[][] rings;
+	private final int[] heads;
+	private final int[] counts;
+	// Bit n is set while level n holds elements.
+	private int nonEmpty = 0;
+	// Dequeues served in a row from more urgent levels while a less urgent
+	// level waited.
+	private int streak = 0;
+	// Level last served out of turn; the next turn goes to the first waiting
+	// level after it, wrapping round.
+	private int lastTurn = 0;
+	private int size = 0;
+
+	/**
+	 * Constructor for the BucketedPriorityQueue class. O(levels)
+	 *
+	 * @param levels
+	 *            Number of priority levels.
+	 * @param burst
+	 *            Dequeues served from more urgent levels before a waiting
+	 *            less urgent level is served once.
+	 * @param classifier
+	 *            Gives the level of each element enqueued, from 0, the most
+	 *            urgent, to levels - 1.
+	 * @throws IllegalArgumentException
+	 *             If levels is not between 1 and MAX_LEVELS, or burst is not
+	 *             positive.
+	 */
+	public BucketedPriorityQueue(int levels, int burst,
+			ToIntFunction<? super T> classifier)
+			throws IllegalArgumentException {
+		if (levels < 1 || levels > MAX_LEVELS || burst < 1) {
+			throw new IllegalArgumentException();
+		}
+		this.classifier = classifier;
+		this.burst = burst;
+		rings = new Object[levels][];
+		heads = new int[levels];
+		counts = new int[levels];
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param level
+	 *            Priority level.
+	 * @return Number of elements waiting at the level.
+	 */
+	public int size(int level) {
+		return counts[level];
+	}
+
+	/**
+	 * @return Number of priority levels.
+	 */
+	public int levels() {
+		return rings.length;
+	}
+
+	/*
+	 * (non-Javadoc) O(1) amortised. Throws IllegalArgumentException if the
+	 * classifier gives a level out of range.
+	 *
+	 * @see adts.IterableQueue#enqueue(java.lang.Object)
+	 */
+	@Override
+	public void enqueue(T element) throws IllegalStateException {
+		enqueue(element, classifier.applyAsInt(element));
+	}
+
+	/**
+	 * Add an element at a level the caller has already classified it at,
+	 * bypassing the classifier. O(1) amortised
+	 *
+	 * @param element
+	 *            The element to be added to the queue.
+	 * @param level
+	 *            Level of the element, from 0, the most urgent, to levels - 1.
+	 * @throws IllegalArgumentException
+	 *             If the level is out of range.
+	 */
+	public void enqueue(T element, int level) throws IllegalArgumentException {
+		if (level < 0 || level >= rings.length) {
+			throw new IllegalArgumentException("Priority level " + level);
+		}
+		Object[] ring = rings[level];
+		if (ring == null) {
+			ring = rings[level] = new Object[INITIAL_CAPACITY];
+		} else if (counts[level] == ring.length) {
+			ring = rings[level] = grow(ring, heads[level]);
+			heads[level] = 0;
+		}
+		ring[(heads[level] + counts[level]) & (ring.length - 1)] = element;
+		counts[level]++;
+		nonEmpty |= 1 << level;
+		size++;
+	}
+
+	/*
+	 * (non-Javadoc) O(1)
+	 *
+	 * @see adts.IterableQueue#dequeue()
+	 */
+	@Override
+	public T dequeue() throws IndexOutOfBoundsException {
+		if (size == 0) {
+			throw new IndexOutOfBoundsException();
+		}
+		int level = nextLevel();
+		if (level != Integer.numberOfTrailingZeros(nonEmpty)) {
+			lastTurn = level;
+			streak = 0;
+		} else if (nonEmpty == 1 << level) {
+			streak = 0;
+		} else {
+			streak++;
+		}
+		return take(level);
+	}
+
+	/**
+	 * @return Level the next dequeue takes from: the most urgent non-empty
+	 *         level, or once a burst has been served while other levels
+	 *         waited, the first waiting level after the last one given a turn.
+	 */
+	private int nextLevel() {
+		int level = Integer.numberOfTrailingZeros(nonEmpty);
+		// levels below the most urgent one that are waiting.
+		int waiting = nonEmpty & ~(1 << level);
+		if (waiting == 0 || streak < burst) {
+			return level;
+		}
+		// 2 << 31 is 0, so a turn last given to level 31 wraps round.
+		int after = waiting & ~((2 << lastTurn) - 1);
+		return Integer.numberOfTrailingZeros(after != 0 ? after : waiting);
+	}
+
+	/**
+	 * Returns the element the next dequeue would return, without removing
+	 * it. O(1)
+	 *
+	 * @return The next element, or null if the queue is empty.
+	 */
+	@SuppressWarnings("unchecked")
+	public T peek() {
+		if (size == 0) {
+			return null;
+		}
+		int level = nextLevel();
+		return (T) rings[level][heads[level]];
+	}
+
+	/**
+	 * Remove every element. O(elements)
+	 */
+	public void clear() {
+		for (int level = 0; level < rings.length; level++) {
+			if (rings[level] != null) {
+				Arrays.fill(rings[level], null);
+			}
+			heads[level] = 0;
+			counts[level] = 0;
+		}
+		nonEmpty = 0;
+		streak = 0;
+		lastTurn = 0;
+		size = 0;
+	}
+
+	@SuppressWarnings("unchecked")
+	private T take(int level) {
+		Object[] ring = rings[level];
+		int head = heads[level];
+		T element = (T) ring[head];
+		// clear the slot so the element can be garbage collected.
+		ring[head] = null;
+		heads[level] = (head + 1) & (ring.length - 1);
+		if (--counts[level] == 0) {
+			nonEmpty &= ~(1 << level);
+		}
+		size--;
+		return element;
+	}
+
+	/**
+	 * Copy a full ring into one twice its size, oldest element first.
+	 */
+	private static Object[] grow(Object[] ring, int head) {
+		Object[] grown = new Object[ring.length * 2];
+		System.arraycopy(ring, head, grown, 0, ring.length - head);
+		System.arraycopy(ring, 0, grown, ring.length - head, head);
+		return grown;
+	}
+
+	/*
+	 * (non-Javadoc) O(n)
+	 *
+	 * Iterates from the most urgent level to the least, oldest first within
+	 * each level. This is the order elements are dequeued in unless a
+	 * waiting level is served early to stop it starving.
+	 *
+	 * @see java.lang.Iterable#iterator()
+	 */
+	@Override
+	public Iterator<T> iterator() {
+		return new Iterator<T>() {
+			private int level = 0;
+			// elements of the level already returned.
+			private int index = 0;
+
+			public boolean hasNext() {
+				while (level < rings.length && index == counts[level]) {
+					level++;
+					index = 0;
+				}
+				return level < rings.length;
+			}
+
+			@SuppressWarnings("unchecked")
+			public T next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				Object[] ring = rings[level];
+				return (T) ring[(heads[level] + index++) & (ring.length - 1)];
+			}
+		};
+	}
+
+}
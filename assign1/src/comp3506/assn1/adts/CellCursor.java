@@ -0,0 +1,56 @@
+package comp3506.assn1.adts;
+
+
+/**
+ * Cursor that steps through the occupied cells of a Cube, one cell at a time.
+ * A cursor is created once and reused for every cell, so walking the whole
+ * cube allocates nothing per cell. The cube must not be modified while a
+ * cursor is in use.
+ *
+ * @author Angus Trusler
+ *
+ * @param <T>
+ *            The type of element held in the cube.
+ */
+public interface CellCursor<T> {
+
+	/**
+	 * Move to the next occupied cell. Must be called before the first cell
+	 * can be read.
+	 *
+	 * @return true if the cursor is now on an occupied cell, false if every
+	 *         cell has been visited.
+	 */
+	boolean next();
+
+	/**
+	 * @return X Coordinate of the current cell.
+	 */
+	int getX();
+
+	/**
+	 * @return Y Coordinate of the current cell.
+	 */
+	int getY();
+
+	/**
+	 * @return Z Coordinate of the current cell.
+	 */
+	int getZ();
+
+	/**
+	 * @return Number of elements in the current cell.
+	 */
+	int size();
+
+	/**
+	 * @return All the elements in the current cell.
+	 */
+	IterableQueue<T> getAll();
+
+	/**
+	 * Move the cursor back to before the first occupied cell.
+	 */
+	void reset();
+
+}
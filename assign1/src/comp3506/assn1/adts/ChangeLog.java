@@ -0,0 +1,301 @@
+package comp3506.assn1.adts;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Append-only log of the changes made to a cube: elements added to a cell,
+ * removed from a cell or moved between cells. Each change is identified by
+ * a key, such as an aircraft id, and given the next sequence number.
+ *
+ * The log is a preallocated ring of parallel arrays, so appending never
+ * allocates, and only the latest capacity changes are kept. There is one
+ * writer. Any number of readers tail the log at their own pace without
+ * locks: each slot carries the sequence number of the change in it, which
+ * a reader checks before and after copying the change, so a change that is
+ * overwritten while being read is never returned. A reader that falls a
+ * whole ring behind is lapped, and must resynchronise from a snapshot of
+ * the cube taken together with the log's next sequence number.
+ *
+ * @author Angus Trusler
+ *
+ */
+public class ChangeLog {
+
+	/** An element was added to the cell (x, y, z). */
+	public static final int ADD = 0;
+	/** An element was removed from the cell (x, y, z). */
+	public static final int REMOVE = 1;
+	/** An element moved from the cell (fromX, fromY, fromZ) to (x, y, z). */
+	public static final int MOVE = 2;
+
+	// Sequence number of a slot that is being overwritten.
+	private static final long BUSY = -1;
+
+	private final int mask;
+	private final AtomicLongArray sequences;
+	private final int[] kinds;
+	private final long[] keys;
+	private final int[] fromX;
+	private final int[] fromY;
+	private final int[] fromZ;
+	private final int[] toX;
+	private final int[] toY;
+	private final int[] toZ;
+
+	// Sequence number the next change will be given.
+	private volatile long published = 0;
+
+	/**
+	 * Constructor for the ChangeLog class. O(capacity)
+	 *
+	 * @param capacity
+	 *            Number of changes kept; rounded up to a power of two.
+	 * @throws IllegalArgumentException
+	 *             If capacity is not positive or above 2^30.
+	 */
+	public ChangeLog(int capacity) throws IllegalArgumentException {
+		if (capacity <= 0 || capacity > 1 << 30) {
+			throw new IllegalArgumentException();
+		}
+		int size = Integer.highestOneBit(capacity);
+		if (size < capacity) {
+			size <<= 1;
+		}
+		mask = size - 1;
+		sequences = new AtomicLongArray(size);
+		for (int slot = 0; slot < size; slot++) {
+			sequences.set(slot, BUSY);
+		}
+		kinds = new int[size];
+		keys = new long[size];
+		fromX = new int[size];
+		fromY = new int[size];
+		fromZ = new int[size];
+		toX = new int[size];
+		toY = new int[size];
+		toZ = new int[size];
+	}
+
+	/**
+	 * @return Number of changes kept.
+	 */
+	public int capacity() {
+		return mask + 1;
+	}
+
+	/**
+	 * @return The sequence number the next change will be given, which is
+	 *         also the number of changes ever appended.
+	 */
+	public long nextSequence() {
+		return published;
+	}
+
+	/**
+	 * Append a change, overwriting the oldest once the log is full. Must only
+	 * be called by one thread at a time. O(1)
+	 *
+	 * @param kind
+	 *            ADD, REMOVE or MOVE.
+	 * @param key
+	 *            Key of the element changed.
+	 * @param fromX
+	 *            X coordinate of the cell moved from, for a MOVE.
+	 * @param fromY
+	 *            Y coordinate of the cell moved from, for a MOVE.
+	 * @param fromZ
+	 *            Z coordinate of the cell moved from, for a MOVE.
+	 * @param x
+	 *            X coordinate of the cell changed.
+	 * @param y
+	 *            Y coordinate of the cell changed.
+	 * @param z
+	 *            Z coordinate of the cell changed.
+	 * @return The change's sequence number.
+	 */
+	public long append(int kind, long key, int fromX, int fromY, int fromZ,
+			int x, int y, int z) {
+		long sequence = published;
+		int slot = (int) sequence & mask;
+		// Mark the slot before overwriting it, so a reader still copying the
+		// change it held sees the mark change when it checks again.
+		sequences.setPlain(slot, BUSY);
+		VarHandle.storeStoreFence();
+		kinds[slot] = kind;
+		keys[slot] = key;
+		this.fromX[slot] = fromX;
+		this.fromY[slot] = fromY;
+		this.fromZ[slot] = fromZ;
+		toX[slot] = x;
+		toY[slot] = y;
+		toZ[slot] = z;
+		sequences.setRelease(slot, sequence);
+		published = sequence + 1;
+		return sequence;
+	}
+
+	/**
+	 * @param sequence
+	 *            Sequence number of the first change to read, at most
+	 *            nextSequence().
+	 * @return A reader positioned at the change.
+	 * @throws IllegalArgumentException
+	 *             If the sequence number has not been reached.
+	 */
+	public Reader reader(long sequence) throws IllegalArgumentException {
+		Reader reader = new Reader();
+		reader.seek(sequence);
+		return reader;
+	}
+
+	/**
+	 * Cursor that reads changes in order, one at a time. Each reader must
+	 * only be used by one thread, but needs no lock against the writer.
+	 *
+	 * @author Angus Trusler
+	 *
+	 */
+	public final class Reader {
+
+		// Sequence number of the next change to read.
+		private long position;
+		private boolean lapped = false;
+
+		// Copy of the change last read.
+		private long sequence = BUSY;
+		private int kind;
+		private long key;
+		private int lastFromX;
+		private int lastFromY;
+		private int lastFromZ;
+		private int lastX;
+		private int lastY;
+		private int lastZ;
+
+		/**
+		 * Read the next change, if it has been appended. O(1)
+		 *
+		 * @return true if a change was read, false if the reader has caught up
+		 *         with the writer or been lapped.
+		 */
+		public boolean next() {
+			if (lapped || position >= published) {
+				return false;
+			}
+			int slot = (int) position & mask;
+			if (sequences.getAcquire(slot) != position) {
+				lapped = true;
+				return false;
+			}
+			int readKind = kinds[slot];
+			long readKey = keys[slot];
+			int readFromX = fromX[slot];
+			int readFromY = fromY[slot];
+			int readFromZ = fromZ[slot];
+			int readX = toX[slot];
+			int readY = toY[slot];
+			int readZ = toZ[slot];
+			VarHandle.loadLoadFence();
+			if (sequences.getOpaque(slot) != position) {
+				// overwritten while being copied.
+				lapped = true;
+				return false;
+			}
+			sequence = position++;
+			kind = readKind;
+			key = readKey;
+			lastFromX = readFromX;
+			lastFromY = readFromY;
+			lastFromZ = readFromZ;
+			lastX = readX;
+			lastY = readY;
+			lastZ = readZ;
+			return true;
+		}
+
+		/**
+		 * @return true if changes this reader had not read were overwritten.
+		 *         It reads nothing more until it seeks to a new position.
+		 */
+		public boolean isLapped() {
+			return lapped;
+		}
+
+		/**
+		 * @return Number of changes appended that this reader has not read.
+		 */
+		public long lag() {
+			return published - position;
+		}
+
+		/**
+		 * Move the reader to a change, typically the sequence number taken
+		 * with a snapshot, clearing any lapped state.
+		 *
+		 * @param sequence
+		 *            Sequence number of the next change to read, at most
+		 *            nextSequence().
+		 * @throws IllegalArgumentException
+		 *             If the sequence number has not been reached.
+		 */
+		public void seek(long sequence) throws IllegalArgumentException {
+			if (sequence < 0 || sequence > published) {
+				throw new IllegalArgumentException();
+			}
+			position = sequence;
+			lapped = published - sequence > capacity();
+		}
+
+		/**
+		 * @return Sequence number of the next change to read.
+		 */
+		public long position() {
+			return position;
+		}
+
+		public long getSequence() {
+			return current().sequence;
+		}
+
+		public int getKind() {
+			return current().kind;
+		}
+
+		public long getKey() {
+			return current().key;
+		}
+
+		public int getFromX() {
+			return current().lastFromX;
+		}
+
+		public int getFromY() {
+			return current().lastFromY;
+		}
+
+		public int getFromZ() {
+			return current().lastFromZ;
+		}
+
+		public int getX() {
+			return current().lastX;
+		}
+
+		public int getY() {
+			return current().lastY;
+		}
+
+		public int getZ() {
+			return current().lastZ;
+		}
+
+		private Reader current() {
+			if (sequence == BUSY) {
+				throw new IllegalStateException();
+			}
+			return this;
+		}
+	}
+
+}
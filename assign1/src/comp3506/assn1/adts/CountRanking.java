@@ -0,0 +1,266 @@
+package comp3506.assn1.adts;
+
+import java.util.Arrays;
+
+/**
+ * Counts of long keys, kept ranked so the keys with the highest counts can
+ * be read at any time without scanning. Counts only ever change by one, so
+ * keys are held in one bucket per count and a key moves to the neighbouring
+ * bucket on each change. The buckets that are not empty are linked in count
+ * order, so the highest can be found directly and the top k keys are read
+ * in O(k). Increment and decrement are O(1), better than the O(log k) of a
+ * heap, and every count is exact. A key whose count falls to zero is
+ * forgotten.
+ *
+ * Keys and buckets are doubly-linked through int arrays indexed by slot and
+ * by count, with the slot of each key found through a LongIntHashMap.
+ *
+ * @author Angus Trusler
+ *
+ */
+public class CountRanking {
+
+	private static final int NONE = -1;
+	private static final int INITIAL_CAPACITY = 16;
+
+	private final LongIntHashMap slots = new LongIntHashMap();
+
+	// Per slot key, count and links within its count's bucket.
+	private long[] keys = new long[INITIAL_CAPACITY];
+	private int[] counts = new int[INITIAL_CAPACITY];
+	private int[] next = new int[INITIAL_CAPACITY];
+	private int[] previous = new int[INITIAL_CAPACITY];
+	private int[] freeSlots = new int[INITIAL_CAPACITY];
+	private int freeCount = 0;
+	private int highWater = 0;
+
+	// Per count first slot of the bucket, NONE if empty, and the next lower
+	// and higher counts with buckets that are not empty, zero if none.
+	private int[] bucketHeads = new int[INITIAL_CAPACITY];
+	private int[] bucketBelow = new int[INITIAL_CAPACITY];
+	private int[] bucketAbove = new int[INITIAL_CAPACITY];
+	private int highest = 0;
+	private int lowest = 0;
+
+	public CountRanking() {
+		Arrays.fill(bucketHeads, NONE);
+	}
+
+	/**
+	 * @return Number of keys with a count above zero.
+	 */
+	public int size() {
+		return slots.size();
+	}
+
+	/**
+	 * @return The highest count of any key, or zero if there are no keys.
+	 */
+	public int highestCount() {
+		return highest;
+	}
+
+	/**
+	 * @param key
+	 *            A key.
+	 * @return The key's count. O(1)
+	 */
+	public int count(long key) {
+		int slot = slots.get(key);
+		return slot == LongIntHashMap.NO_VALUE ? 0 : counts[slot];
+	}
+
+	/**
+	 * Add one to a key's count. O(1) amortised.
+	 *
+	 * @param key
+	 *            Key to count.
+	 * @return The key's new count.
+	 */
+	public int increment(long key) {
+		int slot = slots.get(key);
+		if (slot == LongIntHashMap.NO_VALUE) {
+			slot = allocate(key);
+		}
+		int count = counts[slot];
+		ensureBucket(count + 1);
+		if (bucketHeads[count + 1] == NONE) {
+			if (count > 0) {
+				linkBucket(count + 1, count, bucketAbove[count]);
+			} else {
+				linkBucket(1, 0, lowest);
+			}
+		}
+		if (count > 0) {
+			unlink(slot);
+		}
+		link(slot, count + 1);
+		return count + 1;
+	}
+
+	/**
+	 * Take one from a key's count, forgetting the key if it falls to zero.
+	 * O(1)
+	 *
+	 * @param key
+	 *            Key to count.
+	 * @return The key's new count, or -1 if the key had no count.
+	 */
+	public int decrement(long key) {
+		int slot = slots.get(key);
+		if (slot == LongIntHashMap.NO_VALUE) {
+			return NONE;
+		}
+		int count = counts[slot];
+		if (count > 1 && bucketHeads[count - 1] == NONE) {
+			linkBucket(count - 1, bucketBelow[count], count);
+		}
+		unlink(slot);
+		if (count > 1) {
+			link(slot, count - 1);
+		} else {
+			release(slot);
+		}
+		return count - 1;
+	}
+
+	/**
+	 * Read the keys with the highest counts, highest first. Keys with equal
+	 * counts are in no particular order. O(k)
+	 *
+	 * @param topKeys
+	 *            Filled with up to its length of the keys with the highest
+	 *            counts.
+	 * @param topCounts
+	 *            Filled with the count of each key in topKeys. At least as
+	 *            long as topKeys.
+	 * @return Number of keys read, the smaller of topKeys' length and the
+	 *         number of keys.
+	 */
+	public int top(long[] topKeys, int[] topCounts) {
+		int found = 0;
+		for (int count = highest; count != 0 && found < topKeys.length; count = bucketBelow[count]) {
+			for (int slot = bucketHeads[count]; slot != NONE && found < topKeys.length; slot = next[slot]) {
+				topKeys[found] = keys[slot];
+				topCounts[found] = count;
+				found++;
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Forgets every key. O(keys + highest count)
+	 */
+	public void clear() {
+		slots.clear();
+		Arrays.fill(bucketHeads, NONE);
+		freeCount = 0;
+		highWater = 0;
+		highest = 0;
+		lowest = 0;
+	}
+
+	/**
+	 * Private method that adds a non-empty bucket to the chain of buckets,
+	 * between two neighbouring counts. Zero stands for the end of the chain.
+	 */
+	private void linkBucket(int count, int below, int above) {
+		bucketBelow[count] = below;
+		bucketAbove[count] = above;
+		if (below == 0) {
+			lowest = count;
+		} else {
+			bucketAbove[below] = count;
+		}
+		if (above == 0) {
+			highest = count;
+		} else {
+			bucketBelow[above] = count;
+		}
+	}
+
+	/**
+	 * Private method that puts a slot at the head of its count's bucket,
+	 * which must already be linked into the chain of buckets.
+	 */
+	private void link(int slot, int count) {
+		counts[slot] = count;
+		previous[slot] = NONE;
+		next[slot] = bucketHeads[count];
+		if (bucketHeads[count] != NONE) {
+			previous[bucketHeads[count]] = slot;
+		}
+		bucketHeads[count] = slot;
+	}
+
+	/**
+	 * Private method that takes a slot out of its count's bucket, removing
+	 * the bucket from the chain if that empties it.
+	 */
+	private void unlink(int slot) {
+		int count = counts[slot];
+		if (previous[slot] == NONE) {
+			bucketHeads[count] = next[slot];
+		} else {
+			next[previous[slot]] = next[slot];
+		}
+		if (next[slot] != NONE) {
+			previous[next[slot]] = previous[slot];
+		}
+		if (bucketHeads[count] == NONE) {
+			int below = bucketBelow[count];
+			int above = bucketAbove[count];
+			if (below == 0) {
+				lowest = above;
+			} else {
+				bucketAbove[below] = above;
+			}
+			if (above == 0) {
+				highest = below;
+			} else {
+				bucketBelow[above] = below;
+			}
+		}
+	}
+
+	private int allocate(long key) {
+		int slot;
+		if (freeCount > 0) {
+			slot = freeSlots[--freeCount];
+		} else {
+			if (highWater == keys.length) {
+				int capacity = keys.length * 2;
+				keys = Arrays.copyOf(keys, capacity);
+				counts = Arrays.copyOf(counts, capacity);
+				next = Arrays.copyOf(next, capacity);
+				previous = Arrays.copyOf(previous, capacity);
+				freeSlots = Arrays.copyOf(freeSlots, capacity);
+			}
+			slot = highWater++;
+		}
+		keys[slot] = key;
+		counts[slot] = 0;
+		slots.put(key, slot);
+		return slot;
+	}
+
+	private void release(int slot) {
+		slots.remove(keys[slot]);
+		counts[slot] = 0;
+		freeSlots[freeCount++] = slot;
+	}
+
+	private void ensureBucket(int count) {
+		if (count < bucketHeads.length) {
+			return;
+		}
+		int capacity = Math.max(count + 1, bucketHeads.length * 2);
+		int oldLength = bucketHeads.length;
+		bucketHeads = Arrays.copyOf(bucketHeads, capacity);
+		Arrays.fill(bucketHeads, oldLength, capacity, NONE);
+		bucketBelow = Arrays.copyOf(bucketBelow, capacity);
+		bucketAbove = Arrays.copyOf(bucketAbove, capacity);
+	}
+
+}
@@ -1,5 +1,9 @@
 package comp3506.assn1.adts;
 
+import java.util.Spliterator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 
 /**
  * A three-dimensional data structure that holds items in a positional relationship to each other.
@@ -22,6 +26,22 @@ public interface Cube<T> {
 	 */
 	void add(int x, int y, int z, T element) throws IndexOutOfBoundsException;
 	
+	/**
+	 * Add an element at a fixed position, returning a handle that can later remove this element directly.
+	 * The default handle records the position and element, so removing by it costs the same as remove.
+	 * 
+	 * @param element The element to be added at the indicated position.
+	 * @param x X Coordinate of the position of the element.
+	 * @param y Y Coordinate of the position of the element.
+	 * @param z Z Coordinate of the position of the element.
+	 * @return An opaque handle to pass to removeByHandle.
+	 * @throws IndexOutOfBoundsException If x, y or z coordinates are out of bounds.
+	 */
+	default Object addWithHandle(int x, int y, int z, T element) throws IndexOutOfBoundsException {
+		add(x, y, z, element);
+		return new CubeEntry<>(x, y, z, element);
+	}
+	
 	/**
 	 * Return the 'oldest' element at the indicated position.
 	 * 
@@ -67,6 +87,21 @@ public interface Cube<T> {
 	 */
 	boolean remove(int x, int y, int z, T element) throws IndexOutOfBoundsException;
 	
+	/**
+	 * Removes the element added with a handle. Each handle should only be used once.
+	 * 
+	 * @param handle A handle returned by addWithHandle on this cube.
+	 * @return true if the element was removed, false otherwise.
+	 */
+	@SuppressWarnings("unchecked")
+	default boolean removeByHandle(Object handle) {
+		if (!(handle instanceof CubeEntry)) {
+			return false;
+		}
+		CubeEntry<T> entry = (CubeEntry<T>) handle;
+		return remove(entry.getX(), entry.getY(), entry.getZ(), entry.getElement());
+	}
+	
 	/**
 	 * Removes all elements at the indicated position.
 	 * 
@@ -82,4 +117,33 @@ public interface Cube<T> {
 	 */
 	void clear();
 	
+	/**
+	 * A cursor over the occupied cells of the cube, visiting each once.
+	 * 
+	 * @return A cursor positioned before the first occupied cell.
+	 */
+	CellCursor<T> cursor();
+	
+	/**
+	 * A spliterator over every element in the cube, paired with the coordinates of its cell.
+	 * The cube must not be modified while the spliterator is in use.
+	 * 
+	 * @return A spliterator over all (cell, element) entries in the cube.
+	 */
+	Spliterator<CubeEntry<T>> spliterator();
+	
+	/**
+	 * @return A sequential stream over all (cell, element) entries in the cube.
+	 */
+	default Stream<CubeEntry<T>> stream() {
+		return StreamSupport.stream(spliterator(), false);
+	}
+	
+	/**
+	 * @return A parallel stream over all (cell, element) entries in the cube.
+	 */
+	default Stream<CubeEntry<T>> parallelStream() {
+		return StreamSupport.stream(spliterator(), true);
+	}
+	
 }
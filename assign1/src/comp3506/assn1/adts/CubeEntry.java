@@ -0,0 +1,59 @@
+package comp3506.assn1.adts;
+
+
+/**
+ * One element of a Cube together with the coordinates of the cell holding it.
+ *
+ * @author Angus Trusler
+ *
+ * @param <T>
+ *            The type of element held in the cube.
+ */
+public final class CubeEntry<T> {
+
+	private final int x;
+	private final int y;
+	private final int z;
+	private final T element;
+
+	/**
+	 * Constructor for the CubeEntry class. O(1)
+	 *
+	 * @param x
+	 *            X Coordinate of the cell holding the element.
+	 * @param y
+	 *            Y Coordinate of the cell holding the element.
+	 * @param z
+	 *            Z Coordinate of the cell holding the element.
+	 * @param element
+	 *            The element.
+	 */
+	public CubeEntry(int x, int y, int z, T element) {
+		this.x = x;
+		this.y = y;
+		this.z = z;
+		this.element = element;
+	}
+
+	public int getX() {
+		return x;
+	}
+
+	public int getY() {
+		return y;
+	}
+
+	public int getZ() {
+		return z;
+	}
+
+	public T getElement() {
+		return element;
+	}
+
+	@Override
+	public String toString() {
+		return "(" + x + ", " + y + ", " + z + "): " + element;
+	}
+
+}
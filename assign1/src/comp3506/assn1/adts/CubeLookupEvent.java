@@ -0,0 +1,56 @@
+package comp3506.assn1.adts;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for one walk of a BoundedCube's linked-list, to find
+ * a cell or to add one. Records how many steps the walk took along each kind
+ * of branch, so degenerate walks show up in a live recording.
+ *
+ * Disabled by default; enable it in the recording's .jfc settings or with
+ * Recording.enable("comp3506.CubeLookup"). While disabled the cube only
+ * counts its steps.
+ *
+ * @author Angus Trusler
+ *
+ */
+@Name("comp3506.CubeLookup")
+@Label("Cube Lookup")
+@Category({ "OneSky", "Cube" })
+@Description("Cells visited by a BoundedCube to find or add a cell")
+@Enabled(false)
+@StackTrace(false)
+final class CubeLookupEvent extends Event {
+
+	@Label("Insert")
+	@Description("Whether the walk was to add a cell")
+	boolean insert;
+
+	@Label("Found")
+	@Description("Whether the walk ended at a cell")
+	boolean found;
+
+	@Label("X Steps")
+	int xSteps;
+
+	@Label("Y Steps")
+	int ySteps;
+
+	@Label("Z Steps")
+	int zSteps;
+
+	@Label("Cells Visited")
+	@Description("Cells visited, including the root")
+	int cellsVisited;
+
+	@Label("Cell Count")
+	@Description("Cells in the cube after the walk")
+	int cellCount;
+
+}
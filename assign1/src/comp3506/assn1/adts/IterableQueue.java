@@ -1,5 +1,10 @@
 package comp3506.assn1.adts;
 
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 
 /**
  * Queue with ability to iterate over all the elements in the queue.
@@ -31,4 +36,30 @@ public interface IterableQueue<T> extends Iterable<T> {
 	 */
 	int size();
 	
+	/**
+	 * A sized spliterator over the queue, in iteration order. It splits by copying batches of elements into
+	 * arrays, so it parallelises well even though the queue itself can only be walked from one end.
+	 * The queue must not be modified while the spliterator is in use.
+	 * 
+	 * @return A spliterator over all elements in the queue.
+	 */
+	@Override
+	default Spliterator<T> spliterator() {
+		return Spliterators.spliterator(iterator(), size(), Spliterator.ORDERED);
+	}
+	
+	/**
+	 * @return A sequential stream over all elements in the queue.
+	 */
+	default Stream<T> stream() {
+		return StreamSupport.stream(spliterator(), false);
+	}
+	
+	/**
+	 * @return A parallel stream over all elements in the queue.
+	 */
+	default Stream<T> parallelStream() {
+		return StreamSupport.stream(spliterator(), true);
+	}
+	
 }
@@ -0,0 +1,333 @@
+package comp3506.assn1.adts;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Two-dimensional index of int handles for each of a fixed number of levels.
+ * Every level keeps a list of all its handles and a grid of square tiles,
+ * each with a list of the handles inside it. The lists are doubly-linked
+ * through int arrays indexed by handle, so adding, moving and removing a
+ * handle are O(1) and allocate nothing once the arrays have grown.
+ *
+ * Visiting a whole level, or a band of levels, touches only the handles on
+ * those levels. Visiting a box touches only the tiles it overlaps. Tile
+ * grids are created the first time a level is used.
+ *
+ * @author Angus Trusler
+ *
+ */
+public class LayeredGrid {
+
+	private static final int NONE = -1;
+
+	private final int tileSize;
+	private final int tilesX;
+	private final int tilesY;
+
+	// Per level list of every handle, and per level grid of tile lists.
+	private final int[] levelHeads;
+	private final int[] levelSizes;
+	private final int[][] tileHeads;
+
+	// Per handle position and links. levelOf is NONE when not in the grid.
+	private int[] levelOf = new int[0];
+	private int[] tileOf = new int[0];
+	private int[] xOf = new int[0];
+	private int[] yOf = new int[0];
+	private int[] levelNext = new int[0];
+	private int[] levelPrevious = new int[0];
+	private int[] tileNext = new int[0];
+	private int[] tilePrevious = new int[0];
+
+	private int size = 0;
+
+	/**
+	 * Constructor for the LayeredGrid class. O(levels)
+	 *
+	 * @param length
+	 *            Largest x coordinate.
+	 * @param breadth
+	 *            Largest y coordinate.
+	 * @param levels
+	 *            Number of levels, numbered from zero.
+	 * @param tileSize
+	 *            Width of a square tile.
+	 * @throws IllegalArgumentException
+	 *             If a dimension is negative or the number of levels or tile
+	 *             size is not positive.
+	 */
+	public LayeredGrid(int length, int breadth, int levels, int tileSize)
+			throws IllegalArgumentException {
+		if (length < 0 || breadth < 0 || levels <= 0 || tileSize <= 0) {
+			throw new IllegalArgumentException();
+		}
+		this.tileSize = tileSize;
+		tilesX = length / tileSize + 1;
+		tilesY = breadth / tileSize + 1;
+		levelHeads = new int[levels];
+		Arrays.fill(levelHeads, NONE);
+		levelSizes = new int[levels];
+		tileHeads = new int[levels][];
+	}
+
+	/**
+	 * @return Number of handles in the grid.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return Number of levels.
+	 */
+	public int levels() {
+		return levelHeads.length;
+	}
+
+	/**
+	 * @param level
+	 *            A level.
+	 * @return Number of handles on the level.
+	 * @throws IndexOutOfBoundsException
+	 *             If the level does not exist.
+	 */
+	public int levelSize(int level) throws IndexOutOfBoundsException {
+		return levelSizes[level];
+	}
+
+	/**
+	 * @param handle
+	 *            A handle.
+	 * @return true if the handle is in the grid.
+	 */
+	public boolean contains(int handle) {
+		return handle >= 0 && handle < levelOf.length && levelOf[handle] != NONE;
+	}
+
+	/**
+	 * Place a handle at a position, moving it if it is already in the grid.
+	 * O(1) amortised.
+	 *
+	 * @param handle
+	 *            Non-negative handle.
+	 * @param x
+	 *            X coordinate, from zero to the grid's length.
+	 * @param y
+	 *            Y coordinate, from zero to the grid's breadth.
+	 * @param level
+	 *            Level of the handle.
+	 * @throws IndexOutOfBoundsException
+	 *             If the position is outside the grid.
+	 */
+	public void put(int handle, int x, int y, int level)
+			throws IndexOutOfBoundsException {
+		int tileX = x / tileSize;
+		int tileY = y / tileSize;
+		if (x < 0 || y < 0 || tileX >= tilesX || tileY >= tilesY
+				|| level < 0 || level >= levelHeads.length) {
+			throw new IndexOutOfBoundsException();
+		}
+		ensureCapacity(handle);
+		remove(handle);
+		int tile = tileY * tilesX + tileX;
+		int[] tiles = tileHeads[level];
+		if (tiles == null) {
+			tiles = new int[tilesX * tilesY];
+			Arrays.fill(tiles, NONE);
+			tileHeads[level] = tiles;
+		}
+		levelOf[handle] = level;
+		tileOf[handle] = tile;
+		xOf[handle] = x;
+		yOf[handle] = y;
+
+		levelPrevious[handle] = NONE;
+		levelNext[handle] = levelHeads[level];
+		if (levelHeads[level] != NONE) {
+			levelPrevious[levelHeads[level]] = handle;
+		}
+		levelHeads[level] = handle;
+
+		tilePrevious[handle] = NONE;
+		tileNext[handle] = tiles[tile];
+		if (tiles[tile] != NONE) {
+			tilePrevious[tiles[tile]] = handle;
+		}
+		tiles[tile] = handle;
+
+		++levelSizes[level];
+		++size;
+	}
+
+	/**
+	 * Remove a handle from the grid, if it is in it. O(1)
+	 *
+	 * @param handle
+	 *            Handle to remove.
+	 * @return true if the handle was in the grid.
+	 */
+	public boolean remove(int handle) {
+		if (!contains(handle)) {
+			return false;
+		}
+		int level = levelOf[handle];
+		if (levelPrevious[handle] == NONE) {
+			levelHeads[level] = levelNext[handle];
+		} else {
+			levelNext[levelPrevious[handle]] = levelNext[handle];
+		}
+		if (levelNext[handle] != NONE) {
+			levelPrevious[levelNext[handle]] = levelPrevious[handle];
+		}
+		if (tilePrevious[handle] == NONE) {
+			tileHeads[level][tileOf[handle]] = tileNext[handle];
+		} else {
+			tileNext[tilePrevious[handle]] = tileNext[handle];
+		}
+		if (tileNext[handle] != NONE) {
+			tilePrevious[tileNext[handle]] = tilePrevious[handle];
+		}
+		levelOf[handle] = NONE;
+		--levelSizes[level];
+		--size;
+		return true;
+	}
+
+	/**
+	 * Visit every handle on a level. O(handles on the level)
+	 *
+	 * @param level
+	 *            Level to visit.
+	 * @param action
+	 *            Action given each handle. Must not change the grid.
+	 * @return Number of handles visited.
+	 * @throws IndexOutOfBoundsException
+	 *             If the level does not exist.
+	 */
+	public int forEachInLevel(int level, IntConsumer action)
+			throws IndexOutOfBoundsException {
+		int count = 0;
+		for (int handle = levelHeads[level]; handle != NONE; handle = levelNext[handle]) {
+			action.accept(handle);
+			++count;
+		}
+		return count;
+	}
+
+	/**
+	 * Visit every handle on a band of levels. O(handles in the band)
+	 *
+	 * @param lowLevel
+	 *            Lowest level of the band.
+	 * @param highLevel
+	 *            Highest level of the band, inclusive.
+	 * @param action
+	 *            Action given each handle. Must not change the grid.
+	 * @return Number of handles visited.
+	 * @throws IndexOutOfBoundsException
+	 *             If either level does not exist.
+	 */
+	public int forEachInBand(int lowLevel, int highLevel, IntConsumer action)
+			throws IndexOutOfBoundsException {
+		checkBand(lowLevel, highLevel);
+		int count = 0;
+		for (int level = lowLevel; level <= highLevel; level++) {
+			count += forEachInLevel(level, action);
+		}
+		return count;
+	}
+
+	/**
+	 * Visit every handle inside a box. Parts of the box outside the grid are
+	 * ignored. O(tiles overlapped + handles in them)
+	 *
+	 * @param x0
+	 *            Lowest x coordinate of the box.
+	 * @param y0
+	 *            Lowest y coordinate of the box.
+	 * @param x1
+	 *            Highest x coordinate of the box, inclusive.
+	 * @param y1
+	 *            Highest y coordinate of the box, inclusive.
+	 * @param lowLevel
+	 *            Lowest level of the box.
+	 * @param highLevel
+	 *            Highest level of the box, inclusive.
+	 * @param action
+	 *            Action given each handle. Must not change the grid.
+	 * @return Number of handles visited.
+	 * @throws IndexOutOfBoundsException
+	 *             If either level does not exist.
+	 */
+	public int forEachInBox(int x0, int y0, int x1, int y1, int lowLevel,
+			int highLevel, IntConsumer action) throws IndexOutOfBoundsException {
+		checkBand(lowLevel, highLevel);
+		if (x1 < 0 || y1 < 0 || x0 > x1 || y0 > y1) {
+			return 0;
+		}
+		int firstX = Math.max(x0, 0) / tileSize;
+		int firstY = Math.max(y0, 0) / tileSize;
+		int lastX = Math.min(x1 / tileSize, tilesX - 1);
+		int lastY = Math.min(y1 / tileSize, tilesY - 1);
+		int count = 0;
+		for (int level = lowLevel; level <= highLevel; level++) {
+			int[] tiles = tileHeads[level];
+			if (levelSizes[level] == 0) {
+				continue;
+			}
+			for (int tileY = firstY; tileY <= lastY; tileY++) {
+				for (int tileX = firstX; tileX <= lastX; tileX++) {
+					for (int handle = tiles[tileY * tilesX + tileX]; handle != NONE; handle = tileNext[handle]) {
+						if (xOf[handle] >= x0 && xOf[handle] <= x1
+								&& yOf[handle] >= y0 && yOf[handle] <= y1) {
+							action.accept(handle);
+							++count;
+						}
+					}
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Removes every handle from the grid. O(handles + tiles)
+	 */
+	public void clear() {
+		Arrays.fill(levelHeads, NONE);
+		Arrays.fill(levelSizes, 0);
+		for (int[] tiles : tileHeads) {
+			if (tiles != null) {
+				Arrays.fill(tiles, NONE);
+			}
+		}
+		Arrays.fill(levelOf, NONE);
+		size = 0;
+	}
+
+	private void checkBand(int lowLevel, int highLevel) {
+		if (lowLevel < 0 || highLevel >= levelHeads.length
+				|| lowLevel > highLevel) {
+			throw new IndexOutOfBoundsException();
+		}
+	}
+
+	private void ensureCapacity(int handle) {
+		if (handle < levelOf.length) {
+			return;
+		}
+		int capacity = Math.max(handle + 1, levelOf.length * 2);
+		int oldLength = levelOf.length;
+		levelOf = Arrays.copyOf(levelOf, capacity);
+		Arrays.fill(levelOf, oldLength, capacity, NONE);
+		tileOf = Arrays.copyOf(tileOf, capacity);
+		xOf = Arrays.copyOf(xOf, capacity);
+		yOf = Arrays.copyOf(yOf, capacity);
+		levelNext = Arrays.copyOf(levelNext, capacity);
+		levelPrevious = Arrays.copyOf(levelPrevious, capacity);
+		tileNext = Arrays.copyOf(tileNext, capacity);
+		tilePrevious = Arrays.copyOf(tilePrevious, capacity);
+	}
+
+}
@@ -0,0 +1,338 @@
+package comp3506.assn1.adts;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * First-in first-out queue held as a doubly-linked list. Enqueueing can
+ * return the node holding the new element, which acts as a handle: the
+ * element can later be removed through its handle in O(1), without searching
+ * the queue.
+ *
+ * Queues may share a NodePool, which keeps the nodes they remove and hands
+ * them out again, so elements moving from one queue to another do not
+ * allocate a node each time. A pooled node is reused for a later element, so
+ * its handle is only valid until its element is removed.
+ *
+ * @author Angus Trusler
+ *
+ * @param <T>
+ *            Type of the elements held in the queue.
+ */
+public class LinkedTraversableQueue<T> implements IterableQueue<T> {
+
+	// oldest node, removed by dequeue.
+	private Node<T> head = null;
+	// newest node.
+	private Node<T> tail = null;
+	private int size = 0;
+	// Nodes compared by the last remove of an element, for scan events.
+	private int scanned = 0;
+	// Pool that removed nodes are returned to and new nodes taken from, or
+	// null if nodes are not reused.
+	private final NodePool<T> pool;
+
+	/**
+	 * Constructor for a LinkedTraversableQueue that does not reuse its
+	 * nodes. O(1)
+	 */
+	public LinkedTraversableQueue() {
+		this(null);
+	}
+
+	/**
+	 * Constructor for a LinkedTraversableQueue that takes its nodes from a
+	 * pool, and returns them to it as elements are removed. O(1)
+	 *
+	 * @param pool
+	 *            - pool shared with other queues, or null to not reuse nodes.
+	 */
+	public LinkedTraversableQueue(NodePool<T> pool) {
+		this.pool = pool;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/*
+	 * (non-Javadoc) O(1)
+	 *
+	 * @see adts.IterableQueue#enqueue(java.lang.Object)
+	 */
+	@Override
+	public void enqueue(T element) throws IllegalStateException {
+		enqueueWithHandle(element);
+	}
+
+	/**
+	 * Add a new element to the end of the queue. O(1)
+	 *
+	 * @param element
+	 *            The element to be added to the queue.
+	 * @return The node holding the element, for use with remove(Node).
+	 */
+	public Node<T> enqueueWithHandle(T element) {
+		Node<T> node = pool == null ? new Node<T>(element, this)
+				: pool.take(element, this);
+		if (tail == null) {
+			head = node;
+		} else {
+			tail.next = node;
+			node.previous = tail;
+		}
+		tail = node;
+		size++;
+		return node;
+	}
+
+	/*
+	 * (non-Javadoc) O(1)
+	 *
+	 * @see adts.IterableQueue#dequeue()
+	 */
+	@Override
+	public T dequeue() throws IndexOutOfBoundsException {
+		if (size == 0) {
+			throw new IndexOutOfBoundsException();
+		}
+		T item = head.item;
+		unlink(head);
+		return item;
+	}
+
+	/**
+	 * Returns the element at the head of the queue without removing it. O(1)
+	 *
+	 * @return The oldest element in the queue, or null if the queue is empty.
+	 */
+	public T peek() {
+		return head == null ? null : head.item;
+	}
+
+	/**
+	 * Remove the element held by a node returned from enqueueWithHandle.
+	 * O(1)
+	 *
+	 * @param node
+	 *            - handle of the element to be removed
+	 * @return True if the node was in this queue and has been removed, false
+	 *         otherwise.
+	 */
+	public boolean remove(Node<T> node) {
+		if (node == null || node.owner != this) {
+			return false;
+		}
+		unlink(node);
+		return true;
+	}
+
+	/**
+	 * Remove the oldest node containing a matching element. Records a
+	 * QueueScanEvent if the event is enabled. O(n)
+	 *
+	 * @param element
+	 *            - element to be removed
+	 * @return True if element found and removed, false otherwise.
+	 */
+	public boolean remove(T element) {
+		QueueScanEvent event = new QueueScanEvent();
+		if (!event.isEnabled()) {
+			return scan(element);
+		}
+		int before = size;
+		event.begin();
+		boolean found = scan(element);
+		event.end();
+		if (event.shouldCommit()) {
+			event.nodesScanned = scanned;
+			event.size = before;
+			event.found = found;
+			event.commit();
+		}
+		return found;
+	}
+
+	/**
+	 * Private method that scans for the oldest node containing a matching
+	 * element and unlinks it. O(n)
+	 */
+	private boolean scan(T element) {
+		int compared = 0;
+		for (Node<T> spider = head; spider != null; spider = spider.next) {
+			++compared;
+			if (spider.item.equals(element)) {
+				scanned = compared;
+				unlink(spider);
+				return true;
+			}
+		}
+		scanned = compared;
+		return false;
+	}
+
+	/**
+	 * Private method that removes a node from the list and detaches it from
+	 * this queue, so its handle can not remove anything again until the node
+	 * is reused from the pool. O(1)
+	 */
+	private void unlink(Node<T> node) {
+		if (node.previous == null) {
+			head = node.next;
+		} else {
+			node.previous.next = node.next;
+		}
+		if (node.next == null) {
+			tail = node.previous;
+		} else {
+			node.next.previous = node.previous;
+		}
+		node.previous = null;
+		node.next = null;
+		node.owner = null;
+		size--;
+		if (pool != null) {
+			pool.give(node);
+		}
+	}
+
+	/**
+	 * Removed nodes kept for reuse by the queues sharing the pool, linked
+	 * through their next field. Not thread safe: every queue sharing a pool
+	 * must be used from one thread at a time.
+	 *
+	 * @author Angus Trusler
+	 *
+	 * @param <R>
+	 *            - Typed parameter.
+	 */
+	public static final class NodePool<R> {
+		private final int capacity;
+		private Node<R> free = null;
+		private int count = 0;
+
+		/**
+		 * Constructor for the NodePool class. O(1)
+		 *
+		 * @param capacity
+		 *            - most removed nodes kept for reuse.
+		 * @throws IllegalArgumentException
+		 *             If capacity is negative.
+		 */
+		public NodePool(int capacity) throws IllegalArgumentException {
+			if (capacity < 0) {
+				throw new IllegalArgumentException();
+			}
+			this.capacity = capacity;
+		}
+
+		/**
+		 * @return Number of nodes waiting for reuse.
+		 */
+		public int size() {
+			return count;
+		}
+
+		/**
+		 * Drop every node waiting for reuse, so that no handle to one of
+		 * them can reach a later element. O(1)
+		 */
+		public void clear() {
+			free = null;
+			count = 0;
+		}
+
+		/**
+		 * Take a node from the pool, or create one if the pool is empty.
+		 * O(1)
+		 */
+		private Node<R> take(R item, LinkedTraversableQueue<R> owner) {
+			if (free == null) {
+				return new Node<R>(item, owner);
+			}
+			Node<R> node = free;
+			free = node.next;
+			--count;
+			node.next = null;
+			node.item = item;
+			node.owner = owner;
+			return node;
+		}
+
+		/**
+		 * Return a removed node to the pool, if it has room. O(1)
+		 */
+		private void give(Node<R> node) {
+			if (count == capacity) {
+				return;
+			}
+			// clear the item so the element can be garbage collected.
+			node.item = null;
+			node.next = free;
+			free = node;
+			++count;
+		}
+	}
+
+	/**
+	 * Node holding one element of the queue. Also the handle used to remove
+	 * that element directly.
+	 *
+	 * @author Angus Trusler
+	 *
+	 * @param <R>
+	 *            - Typed parameter.
+	 */
+	public static final class Node<R> {
+		private R item;
+		private Node<R> previous = null;
+		private Node<R> next = null;
+		// queue holding the node, null once removed.
+		private LinkedTraversableQueue<R> owner;
+
+		Node(R item, LinkedTraversableQueue<R> owner) {
+			this.item = item;
+			this.owner = owner;
+		}
+
+		public R getItem() {
+			return this.item;
+		}
+
+		/**
+		 * @return The queue holding this node, or null if it has been removed.
+		 */
+		LinkedTraversableQueue<R> getOwner() {
+			return this.owner;
+		}
+	}
+
+	/*
+	 * (non-Javadoc) O(n)
+	 *
+	 * @see java.lang.Iterable#iterator()
+	 */
+	@Override
+	public Iterator<T> iterator() {
+		return new Iterator<T>() {
+			// variable node that will iterate over the linked list, oldest
+			// first.
+			private Node<T> next = head;
+
+			public boolean hasNext() {
+				return next != null;
+			}
+
+			public T next() {
+				if (next == null)
+					throw new NoSuchElementException();
+
+				T item = next.item;
+				next = next.next;
+				return item;
+			}
+		};
+	}
+
+}
@@ -0,0 +1,206 @@
+package comp3506.assn1.adts;
+
+import java.util.Arrays;
+
+/**
+ * Map from primitive long keys to primitive int values, using open addressing
+ * with linear probing. Keys and values are held in two parallel arrays, so no
+ * entry objects or boxing are needed on lookups or updates.
+ *
+ * @author Angus Trusler
+ *
+ */
+public class LongIntHashMap {
+
+	/**
+	 * Returned by get, put and remove when the key is not in the map.
+	 */
+	public static final int NO_VALUE = -1;
+
+	private static final int MINIMUM_CAPACITY = 16;
+
+	// Zero marks an empty slot, so the zero key is stored separately.
+	private long[] keys;
+	private int[] values;
+	private boolean hasZeroKey = false;
+	private int zeroValue = NO_VALUE;
+	private int size = 0;
+	private int mask;
+
+	/**
+	 * Constructor for the LongIntHashMap class. O(1)
+	 */
+	public LongIntHashMap() {
+		this(MINIMUM_CAPACITY);
+	}
+
+	/**
+	 * Constructor for the LongIntHashMap class. O(n)
+	 *
+	 * @param expectedSize
+	 *            Number of entries the map should hold without resizing.
+	 */
+	public LongIntHashMap(int expectedSize) {
+		int capacity = MINIMUM_CAPACITY;
+		while (capacity < expectedSize * 2) {
+			capacity <<= 1;
+		}
+		allocate(capacity);
+	}
+
+	/**
+	 * @return Number of entries in the map.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Find the value stored against a key. O(1) expected.
+	 *
+	 * @param key
+	 *            Key to look up.
+	 * @return The key's value, or NO_VALUE if the key is not in the map.
+	 */
+	public int get(long key) {
+		if (key == 0) {
+			return zeroValue;
+		}
+		int slot = slot(key);
+		while (keys[slot] != 0) {
+			if (keys[slot] == key) {
+				return values[slot];
+			}
+			slot = (slot + 1) & mask;
+		}
+		return NO_VALUE;
+	}
+
+	/**
+	 * Store a value against a key, replacing any previous value. O(1)
+	 * amortised.
+	 *
+	 * @param key
+	 *            Key to store against.
+	 * @param value
+	 *            Value to store. Must not be NO_VALUE.
+	 * @return The key's previous value, or NO_VALUE if it was not in the map.
+	 */
+	public int put(long key, int value) {
+		if (key == 0) {
+			int previous = zeroValue;
+			if (!hasZeroKey) {
+				hasZeroKey = true;
+				++size;
+			}
+			zeroValue = value;
+			return previous;
+		}
+		int slot = slot(key);
+		while (keys[slot] != 0) {
+			if (keys[slot] == key) {
+				int previous = values[slot];
+				values[slot] = value;
+				return previous;
+			}
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = key;
+		values[slot] = value;
+		if (++size * 2 > keys.length) {
+			resize(keys.length << 1);
+		}
+		return NO_VALUE;
+	}
+
+	/**
+	 * Remove a key from the map. O(1) expected.
+	 *
+	 * @param key
+	 *            Key to remove.
+	 * @return The key's value, or NO_VALUE if it was not in the map.
+	 */
+	public int remove(long key) {
+		if (key == 0) {
+			int previous = zeroValue;
+			if (hasZeroKey) {
+				hasZeroKey = false;
+				zeroValue = NO_VALUE;
+				--size;
+			}
+			return previous;
+		}
+		int slot = slot(key);
+		while (keys[slot] != 0) {
+			if (keys[slot] == key) {
+				int previous = values[slot];
+				closeGap(slot);
+				--size;
+				return previous;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return NO_VALUE;
+	}
+
+	/**
+	 * Removes all entries from the map. O(n)
+	 */
+	public void clear() {
+		Arrays.fill(keys, 0);
+		hasZeroKey = false;
+		zeroValue = NO_VALUE;
+		size = 0;
+	}
+
+	/**
+	 * Shift later entries of a probe sequence back over a removed slot, so
+	 * lookups never stop early at a hole. Avoids the need for tombstones.
+	 */
+	private void closeGap(int gap) {
+		int slot = gap;
+		while (true) {
+			slot = (slot + 1) & mask;
+			if (keys[slot] == 0) {
+				break;
+			}
+			int home = slot(keys[slot]);
+			// Move the entry back if its home slot is not between the gap and
+			// its current position (cyclically).
+			if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+				keys[gap] = keys[slot];
+				values[gap] = values[slot];
+				gap = slot;
+			}
+		}
+		keys[gap] = 0;
+	}
+
+	private int slot(long key) {
+		long hash = key * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32)) & mask;
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		values = new int[capacity];
+		mask = capacity - 1;
+	}
+
+	private void resize(int capacity) {
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+		allocate(capacity);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != 0) {
+				int slot = slot(oldKeys[i]);
+				while (keys[slot] != 0) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+			}
+		}
+	}
+
+}
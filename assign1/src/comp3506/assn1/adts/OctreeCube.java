@@ -0,0 +1,818 @@
+package comp3506.assn1.adts;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * A three-dimensional data structure that holds items in a positional
+ * relationship to each other, held in an adaptive octree. The bounded volume
+ * is one node, which holds up to LEAF_CAPACITY occupied cells; a node given
+ * more is split into up to eight children by halving each of its dimensions,
+ * and children are only created where cells are. A node whose subtree falls
+ * to MERGE_THRESHOLD cells or fewer is merged back into one node. The tree is
+ * therefore deep only where elements cluster, such as around busy airports,
+ * and shallow over empty space.
+ *
+ * A dimension already one cell wide is not halved, so a flat volume such as
+ * 5321x3428x35 does not waste levels splitting its height. Finding a cell
+ * descends one node per level, O(log n) in the number of cells for clustered
+ * or uniform positions and never more than the bits of the three dimensions
+ * together. Box and radius queries skip every subtree outside the region and
+ * take every subtree inside it without testing its cells.
+ *
+ * Each cell is a LinkedTraversableQueue of its elements, oldest first, so the
+ * node holding an element is its handle and removes it in O(log n).
+ *
+ * @author Angus Trusler
+ *
+ * @param <T>
+ *            The type of element held in the data structure.
+ */
+public class OctreeCube<T> implements Cube<T> {
+
+	// Most cells a leaf holds before it is split, and the most in a subtree
+	// that is merged back into a leaf. The gap stops a cell moving back and
+	// forth across one boundary from splitting and merging on every move.
+	private static final int LEAF_CAPACITY = 8;
+	private static final int MERGE_THRESHOLD = LEAF_CAPACITY / 2;
+
+	private final int length; // x
+	private final int breadth; // y
+	private final int height; // z
+	// Most nodes on any path from the root to a leaf.
+	private final int maxDepth;
+	private Node root;
+	private int cellCount = 0;
+	// Incremented by clear(), so handles to cells abandoned by it are ignored.
+	private int generation = 0;
+
+	/**
+	 * Constructor for the OctreeCube class. O(1)
+	 *
+	 * @param length
+	 *            Maximum size in the 'x' dimension.
+	 * @param breadth
+	 *            Maximum size in the 'y' dimension.
+	 * @param height
+	 *            Maximum size in the 'z' dimension.
+	 * @throws IllegalArgumentException
+	 *             If provided dimension sizes are negative.
+	 */
+	public OctreeCube(int length, int breadth, int height)
+			throws IllegalArgumentException {
+		if (length < 0 || breadth < 0 || height < 0) {
+			throw new IllegalArgumentException();
+		}
+		this.length = length;
+		this.breadth = breadth;
+		this.height = height;
+		// coordinates run from zero to each size inclusive, as in BoundedCube.
+		maxDepth = bits(length + 1) + bits(breadth + 1) + bits(height + 1) + 1;
+		root = new Node(0, 0, 0, length + 1, breadth + 1, height + 1);
+	}
+
+	/**
+	 * @return Number of halvings that take an extent down to one.
+	 */
+	private static int bits(int extent) {
+		return Integer.SIZE - Integer.numberOfLeadingZeros(extent - 1);
+	}
+
+	/**
+	 * @return Number of occupied cells.
+	 */
+	public int cellCount() {
+		return cellCount;
+	}
+
+	/*
+	 * (non-Javadoc) O(log n)
+	 *
+	 * @see adts.Cube#add(int, int, int, java.lang.Object)
+	 */
+	@Override
+	public void add(int x, int y, int z, T element)
+			throws IndexOutOfBoundsException {
+		addWithHandle(x, y, z, element);
+	}
+
+	/*
+	 * (non-Javadoc) O(log n)
+	 *
+	 * The handle is the node holding the element in its cell's queue.
+	 *
+	 * @see adts.Cube#addWithHandle(int, int, int, java.lang.Object)
+	 */
+	@Override
+	public Object addWithHandle(int x, int y, int z, T element)
+			throws IndexOutOfBoundsException {
+		Cell cell = getCell(x, y, z);
+		if (cell == null) {
+			cell = addNewCell(x, y, z);
+		}
+		return cell.enqueueWithHandle(element);
+	}
+
+	/*
+	 * (non-Javadoc) O(log n)
+	 *
+	 * @see adts.Cube#get(int, int, int)
+	 */
+	@Override
+	public T get(int x, int y, int z) throws IndexOutOfBoundsException {
+		Cell cell = getCell(x, y, z);
+		return cell == null ? null : cell.peek();
+	}
+
+	/*
+	 * (non-Javadoc) O(log n)
+	 *
+	 * The queue returned is the cell itself. Dequeueing its last element
+	 * removes the cell.
+	 *
+	 * @see adts.Cube#getAll(int, int, int)
+	 */
+	@Override
+	public IterableQueue<T> getAll(int x, int y, int z)
+			throws IndexOutOfBoundsException {
+		return getCell(x, y, z);
+	}
+
+	/*
+	 * (non-Javadoc) O(log n)
+	 *
+	 * @see adts.Cube#isMultipleElementsAt(int, int, int)
+	 */
+	@Override
+	public boolean isMultipleElementsAt(int x, int y, int z)
+			throws IndexOutOfBoundsException {
+		Cell cell = getCell(x, y, z);
+		return cell != null && cell.size() > 1;
+	}
+
+	/*
+	 * (non-Javadoc) O(log n + elements in the cell)
+	 *
+	 * @see adts.Cube#remove(int, int, int, java.lang.Object)
+	 */
+	@Override
+	public boolean remove(int x, int y, int z, T element)
+			throws IndexOutOfBoundsException {
+		Cell cell = getCell(x, y, z);
+		if (cell == null || !cell.remove(element)) {
+			return false;
+		}
+		if (cell.size() == 0) {
+			removeCell(cell);
+		}
+		return true;
+	}
+
+	/*
+	 * (non-Javadoc) O(log n)
+	 *
+	 * @see adts.Cube#removeByHandle(java.lang.Object)
+	 */
+	@Override
+	public boolean removeByHandle(Object handle) {
+		if (!(handle instanceof LinkedTraversableQueue.Node)) {
+			return false;
+		}
+		LinkedTraversableQueue.Node<?> node = (LinkedTraversableQueue.Node<?>) handle;
+		if (!(node.getOwner() instanceof OctreeCube.Cell)) {
+			// already removed, or not from an octree.
+			return false;
+		}
+		Cell cell = cell(node.getOwner());
+		if (cell.cube() != this || cell.generation != generation) {
+			// handle from a different cube, or from before a clear.
+			return false;
+		}
+		cell.remove(cell.cast(node));
+		if (cell.size() == 0) {
+			removeCell(cell);
+		}
+		return true;
+	}
+
+	/*
+	 * (non-Javadoc) O(log n + elements in the cell)
+	 *
+	 * @see adts.Cube#removeAll(int, int, int)
+	 */
+	@Override
+	public void removeAll(int x, int y, int z)
+			throws IndexOutOfBoundsException {
+		Cell cell = getCell(x, y, z);
+		if (cell == null) {
+			return;
+		}
+		while (cell.size() > 0) {
+			// detaches each node, so no handle removes anything again.
+			cell.removeHead();
+		}
+		removeCell(cell);
+	}
+
+	/*
+	 * (non-Javadoc) O(1)
+	 *
+	 * @see adts.Cube#clear()
+	 */
+	@Override
+	public void clear() {
+		// Abandon the tree. Garbage collector will free the whole structure.
+		root = new Node(0, 0, 0, length + 1, breadth + 1, height + 1);
+		cellCount = 0;
+		++generation;
+	}
+
+	/**
+	 * Visit every element in a box. O(log n + cells in the box)
+	 *
+	 * @param x0
+	 *            Lowest x coordinate of the box.
+	 * @param y0
+	 *            Lowest y coordinate of the box.
+	 * @param z0
+	 *            Lowest z coordinate of the box.
+	 * @param x1
+	 *            Highest x coordinate of the box, inclusive.
+	 * @param y1
+	 *            Highest y coordinate of the box, inclusive.
+	 * @param z1
+	 *            Highest z coordinate of the box, inclusive.
+	 * @param action
+	 *            Action given each element, oldest first within each cell.
+	 *            Must not change the cube.
+	 * @return Number of elements visited.
+	 */
+	public int forEachInBox(int x0, int y0, int z0, int x1, int y1, int z1,
+			Consumer<? super T> action) {
+		if (x0 > x1 || y0 > y1 || z0 > z1) {
+			return 0;
+		}
+		return inBox(root, x0, y0, z0, x1, y1, z1, action);
+	}
+
+	private int inBox(Node node, int x0, int y0, int z0, int x1, int y1,
+			int z1, Consumer<? super T> action) {
+		if (node.x0 > x1 || node.x1 <= x0 || node.y0 > y1 || node.y1 <= y0
+				|| node.z0 > z1 || node.z1 <= z0) {
+			return 0;
+		}
+		if (node.x0 >= x0 && node.x1 - 1 <= x1 && node.y0 >= y0
+				&& node.y1 - 1 <= y1 && node.z0 >= z0 && node.z1 - 1 <= z1) {
+			// the whole subtree is inside the box.
+			return visitAll(node, action);
+		}
+		int count = 0;
+		if (node.children != null) {
+			for (Object child : node.children) {
+				if (child != null) {
+					count += inBox(node(child), x0, y0, z0, x1, y1, z1, action);
+				}
+			}
+			return count;
+		}
+		for (int i = 0; i < node.count; i++) {
+			Cell cell = cell(node.cells[i]);
+			if (cell.x >= x0 && cell.x <= x1 && cell.y >= y0 && cell.y <= y1
+					&& cell.z >= z0 && cell.z <= z1) {
+				count += visit(cell, action);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Visit every element within a distance of a point, measured between
+	 * cell coordinates. O(log n + cells near the sphere)
+	 *
+	 * @param x
+	 *            X Coordinate of the centre.
+	 * @param y
+	 *            Y Coordinate of the centre.
+	 * @param z
+	 *            Z Coordinate of the centre.
+	 * @param radius
+	 *            Greatest distance from the centre, inclusive.
+	 * @param action
+	 *            Action given each element, oldest first within each cell.
+	 *            Must not change the cube.
+	 * @return Number of elements visited.
+	 */
+	public int forEachInRadius(int x, int y, int z, double radius,
+			Consumer<? super T> action) {
+		if (radius < 0) {
+			return 0;
+		}
+		return inRadius(root, x, y, z, radius * radius, action);
+	}
+
+	private int inRadius(Node node, int x, int y, int z, double radiusSquared,
+			Consumer<? super T> action) {
+		if (nearest(node, x, y, z) > radiusSquared) {
+			return 0;
+		}
+		if (farthest(node, x, y, z) <= radiusSquared) {
+			// the whole subtree is inside the sphere.
+			return visitAll(node, action);
+		}
+		int count = 0;
+		if (node.children != null) {
+			for (Object child : node.children) {
+				if (child != null) {
+					count += inRadius(node(child), x, y, z, radiusSquared,
+							action);
+				}
+			}
+			return count;
+		}
+		for (int i = 0; i < node.count; i++) {
+			Cell cell = cell(node.cells[i]);
+			if (squared(cell.x - x) + squared(cell.y - y)
+					+ squared(cell.z - z) <= radiusSquared) {
+				count += visit(cell, action);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @return Squared distance from a point to the nearest cell of a node.
+	 */
+	private double nearest(Node node, int x, int y, int z) {
+		return squared(gap(x, node.x0, node.x1 - 1))
+				+ squared(gap(y, node.y0, node.y1 - 1))
+				+ squared(gap(z, node.z0, node.z1 - 1));
+	}
+
+	/**
+	 * @return Squared distance from a point to the farthest cell of a node.
+	 */
+	private double farthest(Node node, int x, int y, int z) {
+		return squared(Math.max(x - node.x0, node.x1 - 1 - x))
+				+ squared(Math.max(y - node.y0, node.y1 - 1 - y))
+				+ squared(Math.max(z - node.z0, node.z1 - 1 - z));
+	}
+
+	/**
+	 * @return Distance from a coordinate to a range, zero if inside it.
+	 */
+	private static int gap(int value, int low, int high) {
+		return value < low ? low - value : value > high ? value - high : 0;
+	}
+
+	private static double squared(int value) {
+		return (double) value * value;
+	}
+
+	private int visitAll(Node node, Consumer<? super T> action) {
+		int count = 0;
+		if (node.children != null) {
+			for (Object child : node.children) {
+				if (child != null) {
+					count += visitAll(node(child), action);
+				}
+			}
+			return count;
+		}
+		for (int i = 0; i < node.count; i++) {
+			count += visit(cell(node.cells[i]), action);
+		}
+		return count;
+	}
+
+	private int visit(Cell cell, Consumer<? super T> action) {
+		for (T element : cell) {
+			action.accept(element);
+		}
+		return cell.size();
+	}
+
+	/*
+	 * (non-Javadoc) O(1) to create, O(n) to walk.
+	 *
+	 * @see adts.Cube#cursor()
+	 */
+	@Override
+	public CellCursor<T> cursor() {
+		return new TreeCursor();
+	}
+
+	/*
+	 * (non-Javadoc) O(n) to create, as every element is paired with its
+	 * cell's coordinates up front.
+	 *
+	 * @see adts.Cube#spliterator()
+	 */
+	@Override
+	public Spliterator<CubeEntry<T>> spliterator() {
+		Object[] entries = new Object[16];
+		int found = 0;
+		CellCursor<T> cursor = cursor();
+		while (cursor.next()) {
+			for (T element : cursor.getAll()) {
+				if (found == entries.length) {
+					entries = Arrays.copyOf(entries, found * 2);
+				}
+				entries[found++] = new CubeEntry<>(cursor.getX(), cursor.getY(),
+						cursor.getZ(), element);
+			}
+		}
+		return Spliterators.spliterator(entries, 0, found,
+				Spliterator.ORDERED | Spliterator.NONNULL);
+	}
+
+	/**
+	 * Private method that finds the cell at the provided coordinates,
+	 * descending one node per level. O(log n)
+	 *
+	 * @return The cell, or null if there is no cell at the coordinates.
+	 * @throws IndexOutOfBoundsException
+	 *             If x, y or z coordinates are out of bounds.
+	 */
+	private Cell getCell(int x, int y, int z) throws IndexOutOfBoundsException {
+		checkCoords(x, y, z);
+		Node node = root;
+		while (node.children != null) {
+			node = node(node.children[node.octant(x, y, z)]);
+			if (node == null) {
+				return null;
+			}
+		}
+		for (int i = 0; i < node.count; i++) {
+			Cell cell = cell(node.cells[i]);
+			if (cell.x == x && cell.y == y && cell.z == z) {
+				return cell;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Private method that adds a new cell to the tree, creating the nodes on
+	 * its path and splitting its leaf if that is now over capacity. O(log n)
+	 *
+	 * @return The new, empty, cell at the provided coordinates.
+	 */
+	private Cell addNewCell(int x, int y, int z) {
+		Node node = root;
+		while (true) {
+			++node.count;
+			if (node.children == null) {
+				break;
+			}
+			int octant = node.octant(x, y, z);
+			if (node.children[octant] == null) {
+				node.children[octant] = node.child(octant);
+			}
+			node = node(node.children[octant]);
+		}
+		Cell cell = new Cell(x, y, z);
+		node.cells[node.count - 1] = cell;
+		if (node.count > LEAF_CAPACITY) {
+			node.split();
+		}
+		++cellCount;
+		return cell;
+	}
+
+	/**
+	 * Private method that removes an empty cell from the tree, dropping the
+	 * nodes left empty and merging the subtrees left small. O(log n)
+	 */
+	private void removeCell(Cell cell) {
+		if (removeCell(root, cell)) {
+			--cellCount;
+		}
+	}
+
+	/**
+	 * @return true if the cell was found under the node and removed.
+	 */
+	private boolean removeCell(Node node, Cell cell) {
+		if (node.children == null) {
+			for (int i = 0; i < node.count; i++) {
+				if (node.cells[i] == cell) {
+					node.cells[i] = node.cells[--node.count];
+					node.cells[node.count] = null;
+					return true;
+				}
+			}
+			return false;
+		}
+		int octant = node.octant(cell.x, cell.y, cell.z);
+		Node child = node(node.children[octant]);
+		if (child == null || !removeCell(child, cell)) {
+			return false;
+		}
+		--node.count;
+		if (child.count == 0) {
+			node.children[octant] = null;
+		}
+		if (node.count <= MERGE_THRESHOLD) {
+			node.merge();
+		}
+		return true;
+	}
+
+	/**
+	 * Private method that checks if provided coordinates are out of bounds.
+	 * O(1)
+	 *
+	 * @throws IndexOutOfBoundsException
+	 *             If x, y or z coordinates are out of bounds.
+	 */
+	private void checkCoords(int x, int y, int z) {
+		if (x > length || y > breadth || z > height || x < 0 || y < 0
+				|| z < 0) {
+			throw new IndexOutOfBoundsException();
+		}
+	}
+
+	/**
+	 * Private method that casts a node held in an Object array back to a
+	 * Node. Arrays of the inner classes cannot be created directly. O(1)
+	 */
+	@SuppressWarnings("unchecked")
+	private Node node(Object node) {
+		return (Node) node;
+	}
+
+	@SuppressWarnings("unchecked")
+	private Cell cell(Object cell) {
+		return (Cell) cell;
+	}
+
+	/**
+	 * Private class representing a node of the tree: a box of cells from
+	 * (x0, y0, z0) up to but not including (x1, y1, z1). A leaf holds its
+	 * occupied cells in an array; any other node holds up to eight children,
+	 * only those with cells under them.
+	 *
+	 * @author Angus Trusler
+	 *
+	 */
+	private final class Node {
+
+		private final int x0;
+		private final int y0;
+		private final int z0;
+		private final int x1;
+		private final int y1;
+		private final int z1;
+		// Lowest coordinate of the upper half of each dimension, or the
+		// upper bound if the dimension is one cell wide and not halved.
+		private final int midX;
+		private final int midY;
+		private final int midZ;
+		// Children indexed by octant, or null for a leaf.
+		private Object[] children = null;
+		// Cells of a leaf, null otherwise.
+		private Object[] cells = new Object[LEAF_CAPACITY + 1];
+		// Occupied cells under this node.
+		private int count = 0;
+
+		Node(int x0, int y0, int z0, int x1, int y1, int z1) {
+			this.x0 = x0;
+			this.y0 = y0;
+			this.z0 = z0;
+			this.x1 = x1;
+			this.y1 = y1;
+			this.z1 = z1;
+			midX = x1 - x0 > 1 ? (x0 + x1) >>> 1 : x1;
+			midY = y1 - y0 > 1 ? (y0 + y1) >>> 1 : y1;
+			midZ = z1 - z0 > 1 ? (z0 + z1) >>> 1 : z1;
+		}
+
+		/**
+		 * @return Index of the child whose box holds the coordinates: one bit
+		 *         for each dimension, set for the upper half.
+		 */
+		int octant(int x, int y, int z) {
+			return (x >= midX ? 1 : 0) | (y >= midY ? 2 : 0)
+					| (z >= midZ ? 4 : 0);
+		}
+
+		/**
+		 * @return A new, empty node for the box of one octant.
+		 */
+		Node child(int octant) {
+			boolean upperX = (octant & 1) != 0;
+			boolean upperY = (octant & 2) != 0;
+			boolean upperZ = (octant & 4) != 0;
+			return new Node(upperX ? midX : x0, upperY ? midY : y0,
+					upperZ ? midZ : z0, upperX ? x1 : midX, upperY ? y1 : midY,
+					upperZ ? z1 : midZ);
+		}
+
+		/**
+		 * Hand this leaf's cells to new children, splitting again any child
+		 * given every cell. O(LEAF_CAPACITY) per level split.
+		 */
+		void split() {
+			children = new Object[8];
+			for (int i = 0; i < count; i++) {
+				Cell cell = cell(cells[i]);
+				int octant = octant(cell.x, cell.y, cell.z);
+				if (children[octant] == null) {
+					children[octant] = child(octant);
+				}
+				Node child = node(children[octant]);
+				child.cells[child.count++] = cell;
+			}
+			cells = null;
+			for (Object child : children) {
+				if (child != null && node(child).count > LEAF_CAPACITY) {
+					node(child).split();
+				}
+			}
+		}
+
+		/**
+		 * Gather every cell under this node into it, making it a leaf again.
+		 * O(MERGE_THRESHOLD)
+		 */
+		void merge() {
+			Object[] gathered = new Object[LEAF_CAPACITY + 1];
+			int found = gather(this, gathered, 0);
+			cells = gathered;
+			children = null;
+			count = found;
+		}
+
+		private int gather(Node node, Object[] into, int found) {
+			if (node.children == null) {
+				System.arraycopy(node.cells, 0, into, found, node.count);
+				return found + node.count;
+			}
+			for (Object child : node.children) {
+				if (child != null) {
+					found = gather(node(child), into, found);
+				}
+			}
+			return found;
+		}
+	}
+
+	/**
+	 * Private class representing an occupied cell: its coordinates and its
+	 * elements, oldest first. The cell is its own queue, so the nodes it
+	 * returns from enqueueWithHandle lead back to it.
+	 *
+	 * @author Angus Trusler
+	 *
+	 */
+	private final class Cell extends LinkedTraversableQueue<T> {
+
+		private final int x;
+		private final int y;
+		private final int z;
+		// Value of the cube's generation when this cell was created.
+		private final int generation = OctreeCube.this.generation;
+
+		Cell(int x, int y, int z) {
+			this.x = x;
+			this.y = y;
+			this.z = z;
+		}
+
+		OctreeCube<T> cube() {
+			return OctreeCube.this;
+		}
+
+		/*
+		 * (non-Javadoc) O(1) Removing the last element also removes the
+		 * cell from the cube, O(log n).
+		 *
+		 * @see adts.LinkedTraversableQueue#dequeue()
+		 */
+		@Override
+		public T dequeue() throws IndexOutOfBoundsException {
+			T element = removeHead();
+			if (size() == 0 && generation == OctreeCube.this.generation) {
+				removeCell(this);
+			}
+			return element;
+		}
+
+		/**
+		 * Removes the oldest element without removing the cell. O(1)
+		 */
+		T removeHead() {
+			return super.dequeue();
+		}
+
+		/**
+		 * Nodes owned by this queue hold elements of type T.
+		 */
+		@SuppressWarnings("unchecked")
+		LinkedTraversableQueue.Node<T> cast(LinkedTraversableQueue.Node<?> node) {
+			return (LinkedTraversableQueue.Node<T>) node;
+		}
+	}
+
+	/**
+	 * Private class that walks the leaves of the tree depth first, keeping
+	 * its path from the root in arrays allocated once. Visits the cells of
+	 * each leaf in turn.
+	 *
+	 * @author Angus Trusler
+	 *
+	 */
+	private class TreeCursor implements CellCursor<T> {
+
+		// Nodes on the path from the root, and the next child of each to
+		// visit. depth is the last on the path, -1 once every node is done.
+		private final Object[] path = new Object[maxDepth];
+		private final int[] nextChild = new int[maxDepth];
+		private int depth;
+		private Node leaf = null;
+		private int leafIndex = 0;
+		private Cell current = null;
+
+		TreeCursor() {
+			reset();
+		}
+
+		@Override
+		public boolean next() {
+			while (true) {
+				if (leaf != null && leafIndex < leaf.count) {
+					current = cell(leaf.cells[leafIndex++]);
+					return true;
+				}
+				leaf = null;
+				if (depth < 0) {
+					current = null;
+					return false;
+				}
+				Node node = node(path[depth]);
+				if (node.children == null) {
+					leaf = node;
+					leafIndex = 0;
+					--depth;
+					continue;
+				}
+				int octant = nextChild[depth];
+				while (octant < 8 && node.children[octant] == null) {
+					++octant;
+				}
+				if (octant == 8) {
+					--depth;
+					continue;
+				}
+				nextChild[depth] = octant + 1;
+				path[++depth] = node.children[octant];
+				nextChild[depth] = 0;
+			}
+		}
+
+		@Override
+		public int getX() {
+			return current().x;
+		}
+
+		@Override
+		public int getY() {
+			return current().y;
+		}
+
+		@Override
+		public int getZ() {
+			return current().z;
+		}
+
+		@Override
+		public int size() {
+			return current().size();
+		}
+
+		@Override
+		public IterableQueue<T> getAll() {
+			return current();
+		}
+
+		@Override
+		public void reset() {
+			path[0] = root;
+			nextChild[0] = 0;
+			depth = 0;
+			leaf = null;
+			current = null;
+		}
+
+		private Cell current() {
+			if (current == null) {
+				throw new NoSuchElementException();
+			}
+			return current;
+		}
+	}
+
+}
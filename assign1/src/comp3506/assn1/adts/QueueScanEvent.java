@@ -0,0 +1,38 @@
+package comp3506.assn1.adts;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for one scan of a LinkedTraversableQueue by
+ * remove(element), such as a BoundedCube cell's queue searched for an
+ * aircraft, with the number of nodes compared before the element was found
+ * or the queue ran out. Disabled by default, like CubeLookupEvent.
+ *
+ * @author Angus Trusler
+ *
+ */
+@Name("comp3506.QueueScan")
+@Label("Queue Remove Scan")
+@Category({ "OneSky", "Queue" })
+@Description("Nodes scanned by LinkedTraversableQueue.remove")
+@Enabled(false)
+@StackTrace(false)
+final class QueueScanEvent extends Event {
+
+	@Label("Nodes Scanned")
+	int nodesScanned;
+
+	@Label("Queue Size")
+	@Description("Elements in the queue before the remove")
+	int size;
+
+	@Label("Found")
+	boolean found;
+
+}
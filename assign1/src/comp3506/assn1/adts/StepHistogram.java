@@ -0,0 +1,155 @@
+package comp3506.assn1.adts;
+
+import java.util.Arrays;
+
+/**
+ * Distribution of non-negative counts, such as the steps taken by a walk or
+ * the length of a chain, held in power-of-two buckets: bucket 0 counts
+ * zeros and bucket b counts values from 2^(b-1) up to 2^b - 1. The exact
+ * count, total and maximum are kept alongside, so the mean is exact while
+ * percentiles are given to within a factor of two. Recording a value is
+ * O(1) and allocates nothing.
+ *
+ * @author Angus Trusler
+ *
+ */
+public class StepHistogram {
+
+	// One bucket for zero and one for each bit of a non-negative int.
+	private static final int BUCKETS = Integer.SIZE;
+
+	private final long[] buckets = new long[BUCKETS];
+	private long count = 0;
+	private long total = 0;
+	private int max = 0;
+
+	/**
+	 * Record one value. O(1)
+	 *
+	 * @param value
+	 *            Value to record.
+	 * @throws IllegalArgumentException
+	 *             If value is negative.
+	 */
+	public void record(int value) throws IllegalArgumentException {
+		if (value < 0) {
+			throw new IllegalArgumentException();
+		}
+		++buckets[bucketOf(value)];
+		++count;
+		total += value;
+		if (value > max) {
+			max = value;
+		}
+	}
+
+	/**
+	 * @return Number of values recorded.
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * @return Sum of the values recorded.
+	 */
+	public long getTotal() {
+		return total;
+	}
+
+	/**
+	 * @return The largest value recorded, or zero if none were.
+	 */
+	public int getMax() {
+		return max;
+	}
+
+	/**
+	 * @return Mean of the values recorded, or zero if none were.
+	 */
+	public double getMean() {
+		return count == 0 ? 0 : (double) total / count;
+	}
+
+	/**
+	 * Upper bound of a percentile: the highest value the bucket holding it
+	 * can hold, or the maximum if that is lower. O(1)
+	 *
+	 * @param percentile
+	 *            Percentile wanted, from 0 to 100.
+	 * @return The bound, or zero if no values were recorded.
+	 */
+	public int getPercentile(double percentile) {
+		long rank = (long) Math.ceil(percentile / 100 * count);
+		long seen = 0;
+		for (int bucket = 0; bucket < BUCKETS; bucket++) {
+			seen += buckets[bucket];
+			if (seen >= rank && seen > 0) {
+				return Math.min(bucketHigh(bucket), max);
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * @return Number of buckets.
+	 */
+	public int buckets() {
+		return BUCKETS;
+	}
+
+	/**
+	 * @param bucket
+	 *            Bucket index, from 0 to buckets() - 1.
+	 * @return Number of values recorded in the bucket.
+	 */
+	public long getBucketCount(int bucket) {
+		return buckets[bucket];
+	}
+
+	/**
+	 * @param bucket
+	 *            Bucket index, from 0 to buckets() - 1.
+	 * @return The lowest value the bucket holds.
+	 */
+	public static int bucketLow(int bucket) {
+		return bucket == 0 ? 0 : 1 << (bucket - 1);
+	}
+
+	/**
+	 * @param bucket
+	 *            Bucket index, from 0 to buckets() - 1.
+	 * @return The highest value the bucket holds.
+	 */
+	public static int bucketHigh(int bucket) {
+		return bucket == BUCKETS - 1 ? Integer.MAX_VALUE : (1 << bucket) - 1;
+	}
+
+	private static int bucketOf(int value) {
+		return BUCKETS - Integer.numberOfLeadingZeros(value);
+	}
+
+	/**
+	 * Forget every value recorded. O(1)
+	 */
+	public void clear() {
+		Arrays.fill(buckets, 0);
+		count = 0;
+		total = 0;
+		max = 0;
+	}
+
+	/*
+	 * (non-Javadoc) O(1)
+	 *
+	 * Count, mean, median, 99th percentile and maximum.
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return String.format("n=%d mean=%.1f p50<=%d p99<=%d max=%d", count,
+				getMean(), getPercentile(50), getPercentile(99), max);
+	}
+
+}
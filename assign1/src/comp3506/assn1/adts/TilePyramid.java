@@ -0,0 +1,210 @@
+package comp3506.assn1.adts;
+
+import java.util.Arrays;
+
+/**
+ * Counts of points in square tiles over a two-dimensional area, kept at
+ * several resolutions at once. Tiles on level zero have the base size and
+ * each level's tiles are twice the width of the level below, so a tile is
+ * the sum of the four beneath it. Adding or removing a point updates one
+ * tile per level, O(levels), and any tile's count can then be read in O(1)
+ * without visiting the points.
+ *
+ * @author Angus Trusler
+ *
+ */
+public class TilePyramid {
+
+	private final int length;
+	private final int breadth;
+	private final int baseTileSize;
+	private final int[] tilesX;
+	private final int[] tilesY;
+	// Row-major counts for each level, indexed by tileY * tilesX + tileX.
+	private final int[][] counts;
+	private int total = 0;
+
+	/**
+	 * Constructor for the TilePyramid class. O(tiles on level zero)
+	 *
+	 * @param length
+	 *            Largest x coordinate.
+	 * @param breadth
+	 *            Largest y coordinate.
+	 * @param baseTileSize
+	 *            Width of a tile on level zero.
+	 * @param levels
+	 *            Number of levels.
+	 * @throws IllegalArgumentException
+	 *             If a dimension is negative, the tile size or number of
+	 *             levels is not positive, or the largest tiles would be
+	 *             wider than an int.
+	 */
+	public TilePyramid(int length, int breadth, int baseTileSize, int levels)
+			throws IllegalArgumentException {
+		if (length < 0 || breadth < 0 || baseTileSize <= 0 || levels <= 0
+				|| levels > Integer.numberOfLeadingZeros(baseTileSize)) {
+			throw new IllegalArgumentException();
+		}
+		this.length = length;
+		this.breadth = breadth;
+		this.baseTileSize = baseTileSize;
+		tilesX = new int[levels];
+		tilesY = new int[levels];
+		counts = new int[levels][];
+		for (int level = 0; level < levels; level++) {
+			int tileSize = baseTileSize << level;
+			tilesX[level] = length / tileSize + 1;
+			tilesY[level] = breadth / tileSize + 1;
+			counts[level] = new int[tilesX[level] * tilesY[level]];
+		}
+	}
+
+	/**
+	 * @return Number of levels.
+	 */
+	public int levels() {
+		return counts.length;
+	}
+
+	/**
+	 * @return Number of points counted.
+	 */
+	public int total() {
+		return total;
+	}
+
+	/**
+	 * @param level
+	 *            A level.
+	 * @return Width of the tiles on the level.
+	 */
+	public int tileSize(int level) {
+		return baseTileSize << level;
+	}
+
+	/**
+	 * @param tileSize
+	 *            Width of a tile.
+	 * @return The level whose tiles have the width, or -1 if there is none.
+	 */
+	public int levelOf(int tileSize) {
+		for (int level = 0; level < counts.length; level++) {
+			if (tileSize(level) == tileSize) {
+				return level;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @param level
+	 *            A level.
+	 * @return Number of tiles across the x dimension of the level.
+	 */
+	public int tilesX(int level) {
+		return tilesX[level];
+	}
+
+	/**
+	 * @param level
+	 *            A level.
+	 * @return Number of tiles across the y dimension of the level.
+	 */
+	public int tilesY(int level) {
+		return tilesY[level];
+	}
+
+	/**
+	 * Count a point. O(levels)
+	 *
+	 * @param x
+	 *            X coordinate of the point.
+	 * @param y
+	 *            Y coordinate of the point.
+	 * @throws IndexOutOfBoundsException
+	 *             If the point is outside the area.
+	 */
+	public void add(int x, int y) throws IndexOutOfBoundsException {
+		update(x, y, 1);
+	}
+
+	/**
+	 * Stop counting a point previously added. O(levels)
+	 *
+	 * @param x
+	 *            X coordinate of the point.
+	 * @param y
+	 *            Y coordinate of the point.
+	 * @throws IndexOutOfBoundsException
+	 *             If the point is outside the area.
+	 */
+	public void remove(int x, int y) throws IndexOutOfBoundsException {
+		update(x, y, -1);
+	}
+
+	/**
+	 * Number of points in a tile. O(1)
+	 *
+	 * @param level
+	 *            Level of the tile.
+	 * @param tileX
+	 *            Position of the tile across the x dimension.
+	 * @param tileY
+	 *            Position of the tile across the y dimension.
+	 * @return The number of points in the tile.
+	 * @throws IndexOutOfBoundsException
+	 *             If the tile does not exist.
+	 */
+	public int count(int level, int tileX, int tileY)
+			throws IndexOutOfBoundsException {
+		if (tileX < 0 || tileY < 0 || tileX >= tilesX[level]
+				|| tileY >= tilesY[level]) {
+			throw new IndexOutOfBoundsException();
+		}
+		return counts[level][tileY * tilesX[level] + tileX];
+	}
+
+	/**
+	 * Copy the counts of every tile on a level. O(tiles on the level)
+	 *
+	 * @param level
+	 *            Level to copy.
+	 * @return The counts, indexed by [tileX][tileY].
+	 * @throws IndexOutOfBoundsException
+	 *             If the level does not exist.
+	 */
+	public int[][] copyLevel(int level) throws IndexOutOfBoundsException {
+		int[][] copy = new int[tilesX[level]][tilesY[level]];
+		int[] row = counts[level];
+		for (int tileY = 0; tileY < tilesY[level]; tileY++) {
+			for (int tileX = 0; tileX < tilesX[level]; tileX++) {
+				copy[tileX][tileY] = row[tileY * tilesX[level] + tileX];
+			}
+		}
+		return copy;
+	}
+
+	/**
+	 * Sets every count to zero. O(tiles)
+	 */
+	public void clear() {
+		for (int[] level : counts) {
+			Arrays.fill(level, 0);
+		}
+		total = 0;
+	}
+
+	private void update(int x, int y, int delta) {
+		if (x < 0 || y < 0 || x > length || y > breadth) {
+			throw new IndexOutOfBoundsException();
+		}
+		int tileX = x / baseTileSize;
+		int tileY = y / baseTileSize;
+		for (int level = 0; level < counts.length; level++) {
+			counts[level][(tileY >> level) * tilesX[level] + (tileX >> level)] += delta;
+		}
+		total += delta;
+	}
+
+}
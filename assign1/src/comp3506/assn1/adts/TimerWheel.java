@@ -0,0 +1,191 @@
+package comp3506.assn1.adts;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Hashed timing wheel holding a deadline for each of a set of int handles.
+ * Time is split into ticks of a fixed resolution and each tick hashes to one
+ * slot of the wheel. Every slot is a doubly-linked list threaded through int
+ * arrays indexed by handle, so scheduling, rescheduling and cancelling are
+ * O(1) and allocate nothing.
+ *
+ * As time advances only the slots for the elapsed ticks are visited. A
+ * handle whose deadline is more than one rotation away stays in its slot
+ * until a later pass, so if the wheel spans the usual timeout, each expiry
+ * costs O(1) amortised.
+ *
+ * @author Angus Trusler
+ *
+ */
+public class TimerWheel {
+
+	private static final int NONE = -1;
+
+	private final long resolution;
+	private final int[] slotHeads;
+	private final int mask;
+
+	// Per handle links and deadline. slotOf is NONE when not scheduled.
+	private int[] next = new int[0];
+	private int[] previous = new int[0];
+	private int[] slotOf = new int[0];
+	private long[] deadlines = new long[0];
+
+	private long processedTick;
+	private int size = 0;
+
+	/**
+	 * Constructor for the TimerWheel class. O(slots)
+	 *
+	 * @param resolution
+	 *            Length of one tick. Deadlines fire within one tick of being
+	 *            reached.
+	 * @param slots
+	 *            Number of slots; rounded up to a power of two.
+	 * @param start
+	 *            Time the wheel starts at.
+	 * @throws IllegalArgumentException
+	 *             If resolution or slots are not positive.
+	 */
+	public TimerWheel(long resolution, int slots, long start)
+			throws IllegalArgumentException {
+		if (resolution <= 0 || slots <= 0) {
+			throw new IllegalArgumentException();
+		}
+		int capacity = Integer.highestOneBit(slots);
+		if (capacity < slots) {
+			capacity <<= 1;
+		}
+		this.resolution = resolution;
+		slotHeads = new int[capacity];
+		Arrays.fill(slotHeads, NONE);
+		mask = capacity - 1;
+		processedTick = Math.floorDiv(start, resolution);
+	}
+
+	/**
+	 * @return Number of scheduled handles.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param handle
+	 *            A handle.
+	 * @return true if the handle has a deadline in the wheel.
+	 */
+	public boolean isScheduled(int handle) {
+		return handle < slotOf.length && slotOf[handle] != NONE;
+	}
+
+	/**
+	 * Set a handle's deadline, replacing any deadline it already has. O(1)
+	 * amortised.
+	 *
+	 * @param handle
+	 *            Non-negative handle.
+	 * @param deadline
+	 *            Time at which the handle expires.
+	 */
+	public void schedule(int handle, long deadline) {
+		ensureCapacity(handle);
+		cancel(handle);
+		// Deadlines already passed go in the next slot to be visited.
+		long tick = Math.max(Math.floorDiv(deadline, resolution),
+				processedTick + 1);
+		int slot = (int) (tick & mask);
+		deadlines[handle] = deadline;
+		slotOf[handle] = slot;
+		previous[handle] = NONE;
+		next[handle] = slotHeads[slot];
+		if (slotHeads[slot] != NONE) {
+			previous[slotHeads[slot]] = handle;
+		}
+		slotHeads[slot] = handle;
+		++size;
+	}
+
+	/**
+	 * Remove a handle's deadline, if it has one. O(1)
+	 *
+	 * @param handle
+	 *            Handle to cancel.
+	 */
+	public void cancel(int handle) {
+		if (!isScheduled(handle)) {
+			return;
+		}
+		if (previous[handle] == NONE) {
+			slotHeads[slotOf[handle]] = next[handle];
+		} else {
+			next[previous[handle]] = next[handle];
+		}
+		if (next[handle] != NONE) {
+			previous[next[handle]] = previous[handle];
+		}
+		slotOf[handle] = NONE;
+		--size;
+	}
+
+	/**
+	 * Advance the wheel to the given time, removing every handle whose
+	 * deadline has been reached and passing it to the expiry action. The
+	 * action may reschedule the handle it is given, but must not schedule or
+	 * cancel any other handle. O(elapsed ticks + handles visited), and never
+	 * more than one full rotation of slots.
+	 *
+	 * @param time
+	 *            Current time. Earlier times than already seen are ignored.
+	 * @param expired
+	 *            Action given each expired handle.
+	 * @return Number of handles expired.
+	 */
+	public int expire(long time, IntConsumer expired) {
+		long targetTick = Math.floorDiv(time, resolution);
+		if (targetTick <= processedTick) {
+			return 0;
+		}
+		long firstTick = Math.max(processedTick + 1,
+				targetTick - slotHeads.length + 1);
+		processedTick = targetTick;
+		int count = 0;
+		for (long tick = firstTick; tick <= targetTick; tick++) {
+			int handle = slotHeads[(int) (tick & mask)];
+			while (handle != NONE) {
+				int following = next[handle];
+				if (deadlines[handle] <= time) {
+					cancel(handle);
+					++count;
+					expired.accept(handle);
+				}
+				handle = following;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Removes every deadline from the wheel. O(handles)
+	 */
+	public void clear() {
+		Arrays.fill(slotHeads, NONE);
+		Arrays.fill(slotOf, NONE);
+		size = 0;
+	}
+
+	private void ensureCapacity(int handle) {
+		if (handle < slotOf.length) {
+			return;
+		}
+		int capacity = Math.max(handle + 1, slotOf.length * 2);
+		int oldLength = slotOf.length;
+		next = Arrays.copyOf(next, capacity);
+		previous = Arrays.copyOf(previous, capacity);
+		deadlines = Arrays.copyOf(deadlines, capacity);
+		slotOf = Arrays.copyOf(slotOf, capacity);
+		Arrays.fill(slotOf, oldLength, capacity, NONE);
+	}
+
+}
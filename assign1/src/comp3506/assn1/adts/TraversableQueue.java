@@ -1,4 +1,4 @@
-package adts;
+package comp3506.assn1.adts;
 
 import java.util.Iterator;
 import java.util.NoSuchElementException;
@@ -76,6 +76,7 @@ public class TraversableQueue<T> implements IterableQueue<T> {
 			}else {
 				this.first = this.first.getNext();
 			}
+			--this.size;
 			return true;
 		}
 
@@ -1,31 +1,90 @@
 package comp3506.assn1.application;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
 import comp3506.assn1.adts.Cube;
 import comp3506.assn1.adts.BoundedCube;
+import comp3506.assn1.adts.CellCursor;
+import comp3506.assn1.adts.ChangeLog;
+import comp3506.assn1.adts.CountRanking;
+import comp3506.assn1.adts.CubeEntry;
+import comp3506.assn1.adts.LayeredGrid;
+import comp3506.assn1.adts.TilePyramid;
+import comp3506.assn1.adts.TimerWheel;
 
 
 /**
  * Very simple manager for the data structure holding the airspace model.
- * 
+ * Aircraft state is held in a FleetStore; the cube files each aircraft's handle under its current cell.
+ * Each handle is also filed in a per flight level grid, so level, band and box queries need not walk the cube.
+ * A tile pyramid keeps a count of the aircraft over each tile at several resolutions, for density maps,
+ * and a ranking of the occupied cells by their number of aircraft gives the busiest cells without a scan.
+ * If a time-to-live is set, aircraft that are not reported again within it are evicted.
+ * Every aircraft added, removed or moved to a new cell is appended to a change log, which consumers tail without
+ * locking the airspace; a consumer that falls behind resynchronises from a snapshot.
+ * Changes to the model are synchronized on the airspace, so a ConflictProbe may read it from another thread;
+ * the aircraft iterator is not, and must only be used by the thread updating the model.
+ *
  * @author Richard Thomas <richard.thomas@uq.edu.au>
  *
  */
 public class AirSpace {
-	
-	private Cube<Aircraft> airSpaceMap;
-	
+
+	private static final int METRES_PER_KILOMETRE = 1000;
+	// The expiry wheel spans two time-to-live periods, so a contact is visited about once before it expires.
+	private static final int EXPIRY_TICKS_PER_TTL = 64;
+	private static final int EXPIRY_SLOTS = 2 * EXPIRY_TICKS_PER_TTL;
+	// Width of a tile in the flight level grids, in kilometres.
+	private static final int LEVEL_TILE_SIZE = 64;
+	// Density tiles are 8 km wide at the finest resolution, doubling up to 4096 km.
+	private static final int DENSITY_TILE_SIZE = 8;
+	private static final int DENSITY_LEVELS = 10;
+	private static final int CHANGE_LOG_CAPACITY = 1 << 16;
+	// Removed cube cells and queue nodes kept for reuse; handles are dropped as soon as their aircraft is unfiled, so reuse is safe.
+	private static final int CELL_POOL_CAPACITY = 4096;
+
+	private Cube<Integer> airSpaceMap;
+	private FleetStore fleet = new FleetStore();
+	private LayeredGrid levels;
+	private TilePyramid density;
+	private CountRanking occupancy = new CountRanking();
+	private ChangeLog changes;
+
+	// Contact time-to-live in milliseconds, or zero if contacts never expire.
+	private long timeToLive = 0;
+	private TimerWheel expiries = null;
+	private long latestTime = 0;
+	private final IntConsumer evict = this::discard;
+
 	// Dimensions of the air space in kilometres.
 	private int length;
 	private int breadth;
 	private int height;
-	
+
 	public AirSpace(int length, int breadth, int height) {
+		this(length, breadth, height, CHANGE_LOG_CAPACITY);
+	}
+
+	/**
+	 * @param changeLogCapacity Number of the latest changes kept for readers of the change log.
+	 */
+	AirSpace(int length, int breadth, int height, int changeLogCapacity) {
 		this.length = length;
 		this.breadth = breadth;
 		this.height = height;
-		airSpaceMap = new BoundedCube<>(length, breadth, height);
+		changes = new ChangeLog(changeLogCapacity);
+		airSpaceMap = new BoundedCube<>(length, breadth, height, CELL_POOL_CAPACITY);
+		levels = new LayeredGrid(length, breadth, height + 1, LEVEL_TILE_SIZE);
+		density = new TilePyramid(length, breadth, DENSITY_TILE_SIZE, DENSITY_LEVELS);
 	}
-	
+
 	/**
 	 * @return The length of the airspace.
 	 */
@@ -48,18 +107,386 @@ public class AirSpace {
 	}
 
 	/**
-	 * Add a new aircraft to the airspace model.
-	 * 
+	 * @return The number of aircraft in the airspace.
+	 */
+	public synchronized int getAircraftCount() {
+		return fleet.size();
+	}
+
+	/**
+	 * Set how long an aircraft stays in the model without being reported again.
+	 * Aircraft already in the model expire this long after they were last seen, so any not seen within it of the
+	 * latest time the model has been given are evicted at once.
+	 *
+	 * @param millis Time-to-live in milliseconds, or zero for aircraft to never expire.
+	 */
+	public synchronized void setTimeToLive(long millis) {
+		timeToLive = Math.max(millis, 0);
+		if (timeToLive == 0) {
+			expiries = null;
+			return;
+		}
+		expiries = new TimerWheel(Math.max(timeToLive / EXPIRY_TICKS_PER_TTL, 1), EXPIRY_SLOTS, latestTime);
+		for (int handle = 0; handle < fleet.handleLimit(); handle++) {
+			if (!fleet.isLive(handle)) {
+				continue;
+			}
+			long deadline = fleet.getLastSeen(handle) + timeToLive;
+			if (deadline <= latestTime) {
+				discard(handle);
+			} else {
+				expiries.schedule(handle, deadline);
+			}
+		}
+	}
+
+	/**
+	 * Add a new aircraft to the airspace model, or move an aircraft already in the model to its latest position.
+	 * The aircraft is seen at the current system time.
+	 *
+	 * @param aircraft to be added to the model.
+	 * @return true if there are multiple aircraft in a single airspace cell, false otherwise.
+	 * @throws IndexOutOfBoundsException If the aircraft is outside the airspace.
+	 */
+	public boolean addAircraft(Aircraft aircraft) throws IndexOutOfBoundsException {
+		return addAircraft(aircraft, System.currentTimeMillis());
+	}
+
+	/**
+	 * Add a new aircraft to the airspace model, or move an aircraft already in the model to its latest position.
+	 * Any aircraft whose time-to-live has passed by this time are evicted.
+	 *
 	 * @param aircraft to be added to the model.
+	 * @param time Time the aircraft was seen, in milliseconds.
 	 * @return true if there are multiple aircraft in a single airspace cell, false otherwise.
+	 * @throws IndexOutOfBoundsException If the aircraft is outside the airspace.
+	 */
+	public synchronized boolean addAircraft(Aircraft aircraft, long time) throws IndexOutOfBoundsException {
+		int x = aircraft.getAirSpaceXCoord();
+		int y = aircraft.getAirSpaceYCoord();
+		int z = aircraft.getAltitude()/METRES_PER_KILOMETRE;
+		if (!contains(x, y, z)) {
+			throw new IndexOutOfBoundsException();
+		}
+
+		int handle = fleet.handleOf(aircraft.getIdCode());
+		if (handle < 0) {
+			handle = fleet.allocate(aircraft.getIdCode());
+			fleet.update(handle, aircraft);
+			file(handle, x, y, z);
+			changes.append(ChangeLog.ADD, aircraft.getIdCode(), x, y, z, x, y, z);
+		} else {
+			fleet.update(handle, aircraft);
+			refile(handle, x, y, z);
+		}
+		fleet.setLastSeen(handle, time);
+		boolean multiple = airSpaceMap.isMultipleElementsAt(x, y, z);
+		if (expiries != null) {
+			expiries.schedule(handle, time + timeToLive);
+		}
+		evictStale(time);
+		return multiple;
+	}
+
+	/**
+	 * Record that an aircraft already in the model has been seen again where it was last reported, pushing back its
+	 * expiry without refiling it. Any aircraft whose time-to-live has passed by this time are evicted.
+	 *
+	 * @param id Packed id of the aircraft.
+	 * @param time Time the aircraft was seen, in milliseconds.
+	 * @return true if the aircraft was in the model, false otherwise.
+	 */
+	public synchronized boolean refresh(long id, long time) {
+		int handle = fleet.handleOf(id);
+		if (handle < 0) {
+			return false;
+		}
+		fleet.setLastSeen(handle, time);
+		if (expiries != null) {
+			expiries.schedule(handle, time + timeToLive);
+		}
+		evictStale(time);
+		return true;
+	}
+
+	/**
+	 * Evict every aircraft that has not been seen within the time-to-live. O(1) amortised per eviction.
+	 *
+	 * @param time Current time, in milliseconds.
+	 * @return The number of aircraft evicted.
 	 */
-	public boolean addAircraft(Aircraft aircraft) {
-		final int METRES_PER_KILOMETRE = 1000;
-		
-		airSpaceMap.add(aircraft.getAirSpaceXCoord(), aircraft.getAirSpaceYCoord(), 
-				        aircraft.getAltitude()/METRES_PER_KILOMETRE, aircraft);
-		return airSpaceMap.isMultipleElementsAt(aircraft.getAirSpaceXCoord(), aircraft.getAirSpaceYCoord(), 
-				                                aircraft.getAltitude()/METRES_PER_KILOMETRE);
+	public synchronized int evictStale(long time) {
+		latestTime = Math.max(latestTime, time);
+		if (expiries == null) {
+			return 0;
+		}
+		return expiries.expire(time, evict);
 	}
-	
+
+	/**
+	 * Remove an aircraft from the airspace model.
+	 *
+	 * @param id Packed id of the aircraft to remove.
+	 * @return true if the aircraft was in the model, false otherwise.
+	 */
+	public synchronized boolean removeAircraft(long id) {
+		int handle = fleet.handleOf(id);
+		if (handle < 0) {
+			return false;
+		}
+		discard(handle);
+		return true;
+	}
+
+	/**
+	 * Advance every aircraft along its course and refile those that have crossed into a new cell.
+	 * Aircraft that fly out of the airspace are removed from the model.
+	 *
+	 * @param seconds Time elapsed.
+	 * @return The number of aircraft that moved into an occupied cell.
+	 */
+	public int advance(double seconds) {
+		return advance(seconds, null);
+	}
+
+	/**
+	 * Advance every aircraft along its course and refile those that have crossed into a new cell.
+	 * Aircraft that fly out of the airspace are removed from the model.
+	 *
+	 * @param seconds Time elapsed.
+	 * @param departed Given the packed id of each aircraft removed for flying out of the airspace, or null.
+	 * @return The number of aircraft that moved into an occupied cell.
+	 */
+	public synchronized int advance(double seconds, LongConsumer departed) {
+		fleet.advance((float) seconds);
+
+		int conflicts = 0;
+		for (int handle = 0; handle < fleet.handleLimit(); handle++) {
+			if (!fleet.isLive(handle)) {
+				continue;
+			}
+			int x = (int) Math.floor(fleet.getX(handle));
+			int y = (int) Math.floor(fleet.getY(handle));
+			int z = fleet.getCellZ(handle);
+			if (x == fleet.getCellX(handle) && y == fleet.getCellY(handle)) {
+				continue;
+			}
+			if (!contains(x, y, z)) {
+				if (departed != null) {
+					departed.accept(fleet.getId(handle));
+				}
+				discard(handle);
+				continue;
+			}
+			refile(handle, x, y, z);
+			if (airSpaceMap.isMultipleElementsAt(x, y, z)) {
+				conflicts++;
+			}
+		}
+		return conflicts;
+	}
+
+	/**
+	 * @return The log of aircraft added, removed and moved between cells, for consumers to tail.
+	 */
+	public ChangeLog getChangeLog() {
+		return changes;
+	}
+
+	/**
+	 * Pass every aircraft in the airspace to an action, as a consistent snapshot to resynchronise from.
+	 * Changes from the returned sequence number onwards are not reflected in the snapshot.
+	 *
+	 * @param action Given each aircraft in turn, while the airspace is locked.
+	 * @return The change log's next sequence number at the time of the snapshot.
+	 */
+	public synchronized long snapshot(Consumer<Aircraft> action) {
+		for (int handle = 0; handle < fleet.handleLimit(); handle++) {
+			if (fleet.isLive(handle)) {
+				action.accept(fleet.toAircraft(handle));
+			}
+		}
+		return changes.nextSequence();
+	}
+
+	/**
+	 * @return An iterator over every aircraft in the airspace, cell by cell in the cube's own order.
+	 */
+	public Iterator<Aircraft> aircraftIterator() {
+		final CellCursor<Integer> cursor = airSpaceMap.cursor();
+		return new Iterator<Aircraft>() {
+			private Iterator<Integer> cell = Collections.emptyIterator();
+
+			public boolean hasNext() {
+				while (!cell.hasNext()) {
+					if (!cursor.next()) {
+						return false;
+					}
+					cell = cursor.getAll().iterator();
+				}
+				return true;
+			}
+
+			public Aircraft next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return fleet.toAircraft(cell.next());
+			}
+		};
+	}
+
+	/**
+	 * @param level Flight level, in kilometres.
+	 * @return Every aircraft at the flight level. O(aircraft at the level)
+	 * @throws IndexOutOfBoundsException If the level is outside the airspace.
+	 */
+	public synchronized List<Aircraft> getAircraftAtLevel(int level) throws IndexOutOfBoundsException {
+		return getAircraftInBand(level, level);
+	}
+
+	/**
+	 * @param lowLevel Lowest flight level, in kilometres.
+	 * @param highLevel Highest flight level, inclusive.
+	 * @return Every aircraft within the band of flight levels. O(aircraft in the band)
+	 * @throws IndexOutOfBoundsException If either level is outside the airspace, or the band is empty.
+	 */
+	public synchronized List<Aircraft> getAircraftInBand(int lowLevel, int highLevel)
+			throws IndexOutOfBoundsException {
+		List<Aircraft> found = new ArrayList<>();
+		levels.forEachInBand(lowLevel, highLevel, handle -> found.add(fleet.toAircraft(handle)));
+		return found;
+	}
+
+	/**
+	 * @param x0 Lowest x cell of the box.
+	 * @param y0 Lowest y cell of the box.
+	 * @param x1 Highest x cell of the box, inclusive.
+	 * @param y1 Highest y cell of the box, inclusive.
+	 * @param lowLevel Lowest flight level, in kilometres.
+	 * @param highLevel Highest flight level, inclusive.
+	 * @return Every aircraft within the box. O(tiles overlapped + aircraft in them)
+	 * @throws IndexOutOfBoundsException If either level is outside the airspace, or the band is empty.
+	 */
+	public synchronized List<Aircraft> getAircraftInBox(int x0, int y0, int x1, int y1, int lowLevel, int highLevel)
+			throws IndexOutOfBoundsException {
+		List<Aircraft> found = new ArrayList<>();
+		levels.forEachInBox(x0, y0, x1, y1, lowLevel, highLevel, handle -> found.add(fleet.toAircraft(handle)));
+		return found;
+	}
+
+	/**
+	 * @return The widths of the tiles density maps are available for, in kilometres, finest first.
+	 */
+	public int[] getDensityTileSizes() {
+		int[] sizes = new int[density.levels()];
+		for (int level = 0; level < sizes.length; level++) {
+			sizes[level] = density.tileSize(level);
+		}
+		return sizes;
+	}
+
+	/**
+	 * Read the number of aircraft over every tile of the airspace. O(tiles), independent of the number of aircraft.
+	 *
+	 * @param tileSize Width of a tile in kilometres, one of getDensityTileSizes().
+	 * @return Aircraft counts indexed by [tileX][tileY]; tile (i, j) covers cells from (i, j) * tileSize.
+	 * @throws IllegalArgumentException If density maps are not kept at the tile size.
+	 */
+	public synchronized int[][] getDensityMap(int tileSize) throws IllegalArgumentException {
+		int level = density.levelOf(tileSize);
+		if (level < 0) {
+			throw new IllegalArgumentException("No density map with " + tileSize + " km tiles");
+		}
+		return density.copyLevel(level);
+	}
+
+	/**
+	 * @param k Number of cells wanted.
+	 * @return Up to k of the cells holding the most aircraft, busiest first, each with its number of aircraft.
+	 *         Cells with equal numbers of aircraft are in no particular order. O(k)
+	 */
+	public synchronized List<CubeEntry<Integer>> getBusiestCells(int k) {
+		long[] cells = new long[Math.max(k, 0)];
+		int[] counts = new int[cells.length];
+		int found = occupancy.top(cells, counts);
+		List<CubeEntry<Integer>> busiest = new ArrayList<>(found);
+		for (int i = 0; i < found; i++) {
+			busiest.add(new CubeEntry<>((int) (cells[i] >>> 32), (int) (cells[i] >>> 16) & 0xFFFF,
+					(int) cells[i] & 0xFFFF, counts[i]));
+		}
+		return busiest;
+	}
+
+	/**
+	 * @return The store holding the state of every aircraft in the airspace.
+	 */
+	FleetStore getFleet() {
+		return fleet;
+	}
+
+	/**
+	 * File an aircraft's handle in the cube and its flight level's grid at the given cell.
+	 */
+	private void file(int handle, int x, int y, int z) {
+		fleet.setCell(handle, x, y, z, airSpaceMap.addWithHandle(x, y, z, fleet.ref(handle)));
+		levels.put(handle, x, y, z);
+		density.add(x, y);
+		occupancy.increment(cellKey(x, y, z));
+	}
+
+	/**
+	 * Remove an aircraft's handle from the cell it is filed under. O(1)
+	 */
+	private void unfile(int handle) {
+		airSpaceMap.removeByHandle(fleet.getCellHandle(handle));
+		if (levels.remove(handle)) {
+			density.remove(fleet.getCellX(handle), fleet.getCellY(handle));
+			occupancy.decrement(cellKey(fleet.getCellX(handle), fleet.getCellY(handle), fleet.getCellZ(handle)));
+		}
+	}
+
+	/**
+	 * Move an aircraft's handle to the given cell, logging the move if the cell has changed.
+	 */
+	private void refile(int handle, int x, int y, int z) {
+		int fromX = fleet.getCellX(handle);
+		int fromY = fleet.getCellY(handle);
+		int fromZ = fleet.getCellZ(handle);
+		unfile(handle);
+		file(handle, x, y, z);
+		if (x != fromX || y != fromY || z != fromZ) {
+			changes.append(ChangeLog.MOVE, fleet.getId(handle), fromX, fromY, fromZ, x, y, z);
+		}
+	}
+
+	/**
+	 * Remove an aircraft from the cube, the expiry wheel and the fleet store.
+	 */
+	private void discard(int handle) {
+		int x = fleet.getCellX(handle);
+		int y = fleet.getCellY(handle);
+		int z = fleet.getCellZ(handle);
+		changes.append(ChangeLog.REMOVE, fleet.getId(handle), x, y, z, x, y, z);
+		unfile(handle);
+		if (expiries != null) {
+			expiries.cancel(handle);
+		}
+		fleet.release(handle);
+	}
+
+	/**
+	 * @return A cell's coordinates packed into a long, x in the high half and y and z in 16 bits each below it.
+	 */
+	private static long cellKey(int x, int y, int z) {
+		return ((long) x << 32) | ((long) y << 16) | z;
+	}
+
+	/**
+	 * @return true if the cell is within the airspace's cube.
+	 */
+	private boolean contains(int x, int y, int z) {
+		return x >= 0 && y >= 0 && z >= 0 && x <= length && y <= breadth && z <= height;
+	}
+
 }
@@ -1,9 +1,15 @@
 package comp3506.assn1.application;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.ToIntFunction;
 
+import comp3506.assn1.adts.BoundedQueue;
+import comp3506.assn1.adts.BucketedPriorityQueue;
 import comp3506.assn1.adts.IterableQueue;
-import comp3506.assn1.adts.TraversableQueue;
+import comp3506.assn1.adts.LongIntHashMap;
 
 
 /**
@@ -15,42 +21,280 @@ import comp3506.assn1.adts.TraversableQueue;
  */
 public class AirTrafficTracker {
 	
+	/** Priority of a contact from an aircraft declaring an emergency. */
+	public static final int EMERGENCY = 0;
+	/** Priority of a contact from an aircraft in a predicted conflict. */
+	public static final int CONFLICT = 1;
+	/** Priority of every other contact. */
+	public static final int ROUTINE = 2;
+	// Contacts processed from more urgent priorities before a waiting less urgent contact is processed.
+	private static final int PRIORITY_BURST = 8;
+	
 	private IterableQueue<Aircraft> radarQueue;
+	private BucketedPriorityQueue<Aircraft> priorityQueue = null;
+	private BoundedQueue<Aircraft> boundedQueue = null;
+	// Newest contact of each queued aircraft, when the queue does not coalesce contacts itself.
+	private PendingContacts pending = null;
 	private AirSpace airSpace;
+	private RadarTrace.Recorder recorder = null;
+	private ConflictProbe conflictProbe = null;
+	private ToIntFunction<Aircraft> classifier = null;
+	private ShardCoordinator shards = null;
 	
 	public AirTrafficTracker(AirSpace airSpace) {
 		this.airSpace = airSpace;
-		radarQueue = new TraversableQueue<Aircraft>();
+		priorityQueue = new BucketedPriorityQueue<Aircraft>(ROUTINE + 1, PRIORITY_BURST, this::priorityOf);
+		radarQueue = priorityQueue;
+		pending = new PendingContacts();
+	}
+	
+	/**
+	 * Tracker whose radar queue holds at most a fixed number of contacts, so a radar burst cannot exhaust the heap.
+	 * Contacts for an aircraft already queued replace its queued contact, as only its newest position matters.
+	 * Contacts are processed in arrival order, without priorities.
+	 * @param airSpace Airspace the contacts are added to.
+	 * @param queueCapacity Most contacts queued.
+	 * @param overflow What to do with a contact for a new aircraft when the queue is full.
+	 * @throws IllegalArgumentException If the capacity is not positive.
+	 */
+	public AirTrafficTracker(AirSpace airSpace, int queueCapacity, BoundedQueue.Overflow overflow)
+			throws IllegalArgumentException {
+		this.airSpace = airSpace;
+		boundedQueue = new BoundedQueue<Aircraft>(queueCapacity, overflow, Aircraft::getIdCode);
+		radarQueue = boundedQueue;
+	}
+	
+	/**
+	 * Classify a contact as it is queued. Contacts are processed most urgent first, but a burst of urgent contacts
+	 * never holds the other levels back for long: after every PRIORITY_BURST urgent contacts, one waiting level is
+	 * served in turn, so routine traffic is served at least once in every 2 * (PRIORITY_BURST + 1) contacts.
+	 * @param aircraft Contact to classify.
+	 * @return EMERGENCY, CONFLICT or ROUTINE.
+	 */
+	private int priorityOf(Aircraft aircraft) {
+		int priority = classifier == null ? ROUTINE : classifier.applyAsInt(aircraft);
+		ConflictProbe probe = conflictProbe;
+		if (priority > CONFLICT && probe != null && probe.isInConflict(aircraft.getIdCode())) {
+			return CONFLICT;
+		}
+		return priority;
+	}
+	
+	/**
+	 * Set the hook classifying contacts, such as one giving EMERGENCY to those squawking an emergency code.
+	 * Contacts in a conflict predicted by the conflict probe are raised to CONFLICT whatever the hook returns.
+	 * @param classifier Returns EMERGENCY, CONFLICT or ROUTINE for each contact, or null for all to be ROUTINE.
+	 */
+	public void setPriorityClassifier(ToIntFunction<Aircraft> classifier) {
+		this.classifier = classifier;
 	}
 	
 	/**
 	 * Add a new aircraft to the queue of aircraft identified by a radar site.
+	 * A contact for an aircraft already queued replaces the queued position rather than being queued again, unless it
+	 * is more urgent, so only the aircraft's newest position is applied to the airspace.
 	 * @param aircraft to add to the queue
 	 */
 	public void newAircraft(Aircraft aircraft) {
-		radarQueue.enqueue(aircraft);
+		if (recorder != null) {
+			try {
+				recorder.record(aircraft);
+			} catch (IOException ioe) {
+				throw new UncheckedIOException(ioe);
+			}
+		}
+		if (pending == null) {
+			radarQueue.enqueue(aircraft);
+			return;
+		}
+		// Classified once, as the classifier and the conflict probe need not give the same answer twice, and the
+		// contact must be queued at the level pending contacts recorded for it.
+		int priority = priorityOf(aircraft);
+		if (pending.offer(aircraft, priority, queuedNanos())) {
+			priorityQueue.enqueue(aircraft, priority);
+		}
+	}
+	
+	/**
+	 * @return System.nanoTime() if contact latency is being recorded, otherwise zero so no time is read.
+	 */
+	private static long queuedNanos() {
+		return new ContactLatencyEvent().isEnabled() ? System.nanoTime() : 0;
+	}
+	
+	/**
+	 * @return Number of contacts lost because the bounded radar queue was full, or zero if it is unbounded.
+	 */
+	public long getShedContacts() {
+		return boundedQueue == null ? 0 : boundedQueue.getShed();
 	}
 	
 	/**
-	 * Take the next aircraft in the queue and add it to the airspace.
+	 * @return Number of contacts that replaced an older queued contact for the same aircraft.
+	 */
+	public long getCoalescedContacts() {
+		return boundedQueue == null ? pending.getCoalesced() : boundedQueue.getCoalesced();
+	}
+	
+	/**
+	 * Capture every aircraft identified by a radar site into a trace that can later be replayed.
+	 * @param recorder Trace to record into, or null to stop recording.
+	 */
+	public void setRecorder(RadarTrace.Recorder recorder) {
+		this.recorder = recorder;
+	}
+	
+	/**
+	 * Hand processed aircraft to shard processes instead of the local airspace model.
+	 * @param shards Coordinator of the shards, or null to go back to the local airspace.
+	 */
+	public void setShards(ShardCoordinator shards) {
+		this.shards = shards;
+	}
+	
+	/**
+	 * Take the next aircraft in the queue and add it to the airspace, or route it to its shard if sharded.
 	 * Outputs a warning message if the aircraft encroaches on the space of another aircraft.
 	 * Should really return an error value to be dealt with at the UI layer.
+	 * Records a ContactLatencyEvent for the contact if the event is enabled.
 	 */
 	public void processRadarQueue() {
-		if (radarQueue.size() != 0) {
+		while (radarQueue.size() != 0) {
+			ContactLatencyEvent event = new ContactLatencyEvent();
+			boolean timed = event.isEnabled();
+			if (timed) {
+				event.begin();
+			}
 			Aircraft aircraft = radarQueue.dequeue();
-			if (airSpace.addAircraft(aircraft)) {
+			long queueWait = 0;
+			if (pending != null) {
+				long queuedNanos = pending.queuedNanos(aircraft.getIdCode());
+				if (queuedNanos != 0) {
+					queueWait = System.nanoTime() - queuedNanos;
+				}
+				aircraft = pending.claim(aircraft);
+				if (aircraft == null) {
+					continue;	// Already applied through a more urgent contact.
+				}
+			}
+			boolean sharedCell = false;
+			if (shards != null) {
+				shards.newAircraft(aircraft);
+			} else if (airSpace.addAircraft(aircraft)) {
+				sharedCell = true;
 				System.out.println(aircraft + " has entered an occupied cell in the air space!");
 			}
+			if (!timed) {
+				return;
+			}
+			event.end();
+			if (event.shouldCommit()) {
+				event.aircraft = aircraft.getId();
+				event.queueWait = queueWait;
+				event.queued = radarQueue.size();
+				event.sharedCell = sharedCell;
+				event.commit();
+			}
+			return;
+		}
+	}
+	
+	/**
+	 * Move every aircraft in the air space along its course.
+	 * Outputs a warning message if any aircraft moves into the space of another aircraft.
+	 * @param seconds Time elapsed.
+	 */
+	public void advanceAirSpace(double seconds) {
+		if (shards != null) {
+			shards.advance(seconds);
+			return;
+		}
+		int conflicts = airSpace.advance(seconds);
+		if (conflicts > 0) {
+			System.out.println(conflicts + " aircraft have entered occupied cells in the air space!");
+		}
+	}
+	
+	/**
+	 * Start predicting conflicts on a background thread, using the standard separation minima.
+	 * Outputs a message as each conflict is first predicted and when it clears.
+	 * @param lookaheadSeconds How far ahead each aircraft's course is projected.
+	 * @param periodMillis Delay between probes, in milliseconds.
+	 */
+	public void startConflictProbe(double lookaheadSeconds, long periodMillis) {
+		stopConflictProbe();
+		conflictProbe = new ConflictProbe(airSpace, lookaheadSeconds, ConflictProbe.DEFAULT_SEPARATION,
+				ConflictProbe.DEFAULT_VERTICAL_SEPARATION, new ConflictProbe.Listener() {
+					public void conflictPredicted(ConflictProbe.Conflict conflict) {
+						System.out.println("Predicted conflict: " + conflict);
+					}
+
+					public void conflictCleared(ConflictProbe.Conflict conflict) {
+						System.out.println("Conflict cleared: " + AircraftId.decode(conflict.getFirstId()) + " and "
+								+ AircraftId.decode(conflict.getSecondId()));
+					}
+				});
+		conflictProbe.start(periodMillis);
+	}
+	
+	/**
+	 * Stop predicting conflicts, if started.
+	 */
+	public void stopConflictProbe() {
+		if (conflictProbe != null) {
+			conflictProbe.close();
+			conflictProbe = null;
 		}
 	}
 	
 	/**
 	 * 
-	 * @return An iterator that provides access to all aircraft in the queue.
+	 * @return An iterator that provides access to all aircraft in the queue, each once at its newest position.
 	 */
 	public Iterator<Aircraft> radarQueueIterator() {
-		return radarQueue.iterator();
+		if (pending == null) {
+			return radarQueue.iterator();
+		}
+		Iterator<Aircraft> queued = radarQueue.iterator();
+		LongIntHashMap returned = new LongIntHashMap();
+		return new Iterator<Aircraft>() {
+			private Aircraft next = advance();
+
+			private Aircraft advance() {
+				while (queued.hasNext()) {
+					long id = queued.next().getIdCode();
+					if (returned.put(id, 0) == LongIntHashMap.NO_VALUE) {
+						Aircraft newest = pending.newest(id);
+						if (newest != null) {
+							return newest;
+						}
+						// A stale contact left behind by a more urgent one already processed.
+					}
+				}
+				return null;
+			}
+
+			public boolean hasNext() {
+				return next != null;
+			}
+
+			public Aircraft next() {
+				if (next == null) {
+					throw new NoSuchElementException();
+				}
+				Aircraft aircraft = next;
+				next = advance();
+				return aircraft;
+			}
+		};
+	}
+	
+	/**
+	 * 
+	 * @return An iterator that provides access to all aircraft in the air space.
+	 */
+	public Iterator<Aircraft> airSpaceIterator() {
+		return airSpace.aircraftIterator();
 	}
 	
 	/**
@@ -3,32 +3,45 @@ package comp3506.assn1.application;
 
 /**
  * Simple representation of an aircraft in the OneSky simulation.
- * 
+ * The registration is held in its packed AircraftId form, so equality and hashing are a single
+ * long comparison and an aircraft is one 40 byte object with no separate String.
+ *
  * @author Richard Thomas <richard.thomas@uq.edu.au>
  *
  */
 public class Aircraft {
-	
-	private String id;		// Aircraft's unique registration identifier.
+
+	private long id;		// Aircraft's unique registration identifier, packed by AircraftId.
 	private int airSpaceXCoord;
 	private int airSpaceYCoord;
 	private int altitude;	// In metres.
 	private int speed;		// In metres per second.
-	private double course;	// In degrees, north is 0 degrees.
-	
+	private float course;	// In degrees, north is 0 degrees.
+
 	public Aircraft(String id, int xCoord, int yCoord, int altitude, int speed, double course) {
+		this(AircraftId.encode(id), xCoord, yCoord, altitude, speed, course);
+	}
+
+	public Aircraft(long id, int xCoord, int yCoord, int altitude, int speed, double course) {
 		this.id = id;
 		this.airSpaceXCoord = xCoord;
 		this.airSpaceYCoord = yCoord;
 		this.altitude = altitude;
 		this.speed = speed;
-		this.course = course;
+		this.course = (float) course;
 	}
-	
+
 	/**
 	 * @return the aircraft's id
 	 */
 	public String getId() {
+		return AircraftId.decode(id);
+	}
+
+	/**
+	 * @return the aircraft's id, packed by AircraftId
+	 */
+	public long getIdCode() {
 		return id;
 	}
 
@@ -53,22 +66,34 @@ public class Aircraft {
 		return altitude;
 	}
 
+	/**
+	 * @return the aircraft's speed
+	 */
+	public int getSpeed() {
+		return speed;
+	}
+
+	/**
+	 * @return the aircraft's course
+	 */
+	public double getCourse() {
+		return course;
+	}
+
 	@Override
 	public boolean equals(Object obj) {
-		if (obj == null) {
-			return false;
-		}
-		try {
-			return id.equalsIgnoreCase(((Aircraft)obj).id);
-		} catch (ClassCastException cce) {
-			return false;
-		}
+		return obj instanceof Aircraft && id == ((Aircraft)obj).id;
 	}
-	
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(id);
+	}
+
 	@Override
 	public String toString() {
-		return "Aircraft: " + id + " at " + altitude + " metres, on course: " + course
+		return "Aircraft: " + getId() + " at " + altitude + " metres, on course: " + course
                + " degrees, at " + speed + " metres per second";
 	}
-	
+
 }
@@ -0,0 +1,104 @@
+package comp3506.assn1.application;
+
+
+/**
+ * Packs an aircraft registration into a single long, so aircraft can be compared and hashed
+ * with one word comparison instead of a case-insensitive string compare.
+ *
+ * A registration is up to 12 characters of A-Z and 0-9, case-insensitive. Each character is a
+ * base 37 digit in the range 1-36; zero is never used as a digit, so every registration maps to
+ * a distinct, non-zero value and no padding or length field is needed.
+ *
+ * @author Angus Trusler
+ *
+ */
+public final class AircraftId {
+
+	public static final int MAX_LENGTH = 12;
+
+	private static final int RADIX = 37;
+	private static final int FIRST_DIGIT = 27;	// Code of the character '0'.
+	// Any value below this limit has at most MAX_LENGTH - 1 characters, so one more can be appended.
+	private static final long APPEND_LIMIT = 177917621779460413L;	// 37^11
+
+	private AircraftId() {
+	}
+
+	/**
+	 * Encode a registration. O(length)
+	 *
+	 * @param registration Registration made of letters and digits.
+	 * @return The encoded registration.
+	 * @throws IllegalArgumentException If the registration is empty, too long or has other characters.
+	 */
+	public static long encode(String registration) throws IllegalArgumentException {
+		if (registration.isEmpty()) {
+			throw new IllegalArgumentException("Empty aircraft registration.");
+		}
+		long id = 0;
+		for (int i = 0; i < registration.length(); i++) {
+			id = appendCode(id, code(registration.charAt(i)), registration);
+		}
+		return id;
+	}
+
+	/**
+	 * Append the decimal digits of a number to an encoded registration, e.g. "BNE" and 10 give "BNE10".
+	 * O(digits)
+	 *
+	 * @param id Encoded registration prefix.
+	 * @param number Non-negative number to append.
+	 * @return The encoded registration with the number appended.
+	 * @throws IllegalArgumentException If the number is negative or the result would be too long.
+	 */
+	public static long append(long id, int number) throws IllegalArgumentException {
+		if (number < 0) {
+			throw new IllegalArgumentException("Cannot append a negative number to a registration.");
+		}
+		int divisor = 1;
+		while (number / divisor >= 10) {
+			divisor *= 10;
+		}
+		for (; divisor > 0; divisor /= 10) {
+			id = appendCode(id, FIRST_DIGIT + (number / divisor) % 10, null);
+		}
+		return id;
+	}
+
+	/**
+	 * Decode a registration back into its (upper case) text. O(length)
+	 *
+	 * @param id Encoded registration.
+	 * @return The registration's text.
+	 */
+	public static String decode(long id) {
+		char[] text = new char[MAX_LENGTH];
+		int start = MAX_LENGTH;
+		while (id != 0) {
+			int digit = (int) (id % RADIX);
+			text[--start] = (char) (digit < FIRST_DIGIT ? 'A' + digit - 1 : '0' + digit - FIRST_DIGIT);
+			id /= RADIX;
+		}
+		return new String(text, start, MAX_LENGTH - start);
+	}
+
+	private static long appendCode(long id, int code, String registration) {
+		if (id >= APPEND_LIMIT) {
+			throw new IllegalArgumentException("Aircraft registration longer than " + MAX_LENGTH + " characters: "
+					                           + (registration == null ? decode(id) + "..." : registration));
+		}
+		return id * RADIX + code;
+	}
+
+	private static int code(char c) {
+		if (c >= 'A' && c <= 'Z') {
+			return c - 'A' + 1;
+		} else if (c >= 'a' && c <= 'z') {
+			return c - 'a' + 1;
+		} else if (c >= '0' && c <= '9') {
+			return c - '0' + FIRST_DIGIT;
+		}
+		throw new IllegalArgumentException("Invalid character in aircraft registration: " + c);
+	}
+
+}
@@ -0,0 +1,402 @@
+package comp3506.assn1.application;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import comp3506.assn1.adts.LongIntHashMap;
+
+
+/**
+ * Predicts losses of separation by projecting every aircraft in the airspace along its course over a lookahead window.
+ * Each probe copies the fleet's positions and velocities, so the airspace is only locked for the copy.
+ *
+ * The broad phase files each aircraft's swept path, widened by half the separation, in a coarse grid whose cells are
+ * at least as wide as the furthest any aircraft can travel in the window, and in a band of flight levels one vertical
+ * separation deep. A path then covers at most four grid cells, and only aircraft sharing a grid cell in the same or
+ * adjacent bands are compared, so a probe costs O(n log n) rather than O(n^2). The narrow phase finds each candidate
+ * pair's closest point of approach, assuming both hold their course, speed and altitude.
+ *
+ * Only changes are published: a conflict is reported when first predicted and again when it is no longer predicted.
+ *
+ * @author Angus Trusler
+ *
+ */
+public class ConflictProbe implements Closeable {
+
+	// Minimum horizontal separation of five nautical miles, in kilometres.
+	public static final float DEFAULT_SEPARATION = 9.26f;
+	// Minimum vertical separation of 1000 feet, in metres.
+	public static final int DEFAULT_VERTICAL_SEPARATION = 300;
+
+	// Grid keys pack an 11 bit x cell, a 12 bit y cell and an 8 bit band into the top half of a positive long,
+	// above the index of the aircraft, so sorting the entries groups each bucket with the band above following it.
+	private static final int MAX_CELL_X = (1 << 11) - 1;
+	private static final int MAX_CELL_Y = (1 << 12) - 1;
+	private static final int MAX_BAND = (1 << 8) - 1;
+
+	/**
+	 * Receives predicted conflicts as they appear and disappear. Called on the thread running the probe.
+	 */
+	public interface Listener {
+
+		/**
+		 * @param conflict A pair of aircraft newly predicted to lose separation.
+		 */
+		void conflictPredicted(Conflict conflict);
+
+		/**
+		 * @param conflict A pair of aircraft no longer predicted to lose separation.
+		 */
+		void conflictCleared(Conflict conflict);
+	}
+
+	/**
+	 * A pair of aircraft predicted to lose separation. Two conflicts are equal if they are between the same aircraft.
+	 */
+	public static final class Conflict {
+		private final long firstId;			// The lower of the two packed ids.
+		private final long secondId;
+		private final double timeToLoss;		// Seconds until separation is lost, zero if already lost.
+		private final double timeToClosest;		// Seconds until the closest point of approach.
+		private final double closestDistance;	// Horizontal distance at the closest point of approach, in kilometres.
+
+		Conflict(long idA, long idB, double timeToLoss, double timeToClosest, double closestDistance) {
+			this.firstId = Math.min(idA, idB);
+			this.secondId = Math.max(idA, idB);
+			this.timeToLoss = timeToLoss;
+			this.timeToClosest = timeToClosest;
+			this.closestDistance = closestDistance;
+		}
+
+		public long getFirstId() {
+			return firstId;
+		}
+
+		public long getSecondId() {
+			return secondId;
+		}
+
+		public double getTimeToLoss() {
+			return timeToLoss;
+		}
+
+		public double getTimeToClosest() {
+			return timeToClosest;
+		}
+
+		public double getClosestDistance() {
+			return closestDistance;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof Conflict)) {
+				return false;
+			}
+			Conflict conflict = (Conflict) other;
+			return firstId == conflict.firstId && secondId == conflict.secondId;
+		}
+
+		@Override
+		public int hashCode() {
+			return Long.hashCode(firstId) * 31 + Long.hashCode(secondId);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s and %s lose separation in %.0f seconds, closest %.1f km in %.0f seconds",
+					AircraftId.decode(firstId), AircraftId.decode(secondId), timeToLoss, closestDistance, timeToClosest);
+		}
+	}
+
+	private final AirSpace airSpace;
+	private final double lookahead;
+	private final float separation;
+	private final int verticalSeparation;
+	private final Listener listener;
+
+	private Map<Conflict, Conflict> predicted = new HashMap<>();
+	private volatile List<Conflict> conflicts = Collections.emptyList();
+	// Ids of the aircraft in the latest conflicts; replaced, never changed, once published.
+	private volatile LongIntHashMap involved = new LongIntHashMap();
+	private ScheduledExecutorService runner = null;
+
+	// Snapshot of the fleet, reused between probes.
+	private int count = 0;
+	private long[] ids = new long[0];
+	private float[] x = new float[0];
+	private float[] y = new float[0];
+	private float[] dx = new float[0];
+	private float[] dy = new float[0];
+	private int[] altitude = new int[0];
+	// First grid cell covered by each aircraft's path.
+	private int[] firstCellX = new int[0];
+	private int[] firstCellY = new int[0];
+	private long[] entries = new long[0];
+
+	/**
+	 * @param airSpace Airspace to probe.
+	 * @param lookaheadSeconds How far ahead trajectories are projected.
+	 * @param separation Minimum horizontal separation, in kilometres.
+	 * @param verticalSeparation Minimum vertical separation, in metres.
+	 * @param listener Receives conflicts as they are predicted and cleared.
+	 * @throws IllegalArgumentException If the lookahead or either separation is not positive.
+	 */
+	public ConflictProbe(AirSpace airSpace, double lookaheadSeconds, float separation, int verticalSeparation,
+			Listener listener) throws IllegalArgumentException {
+		if (!(lookaheadSeconds > 0) || !(separation > 0) || verticalSeparation <= 0) {
+			throw new IllegalArgumentException();
+		}
+		this.airSpace = airSpace;
+		this.lookahead = lookaheadSeconds;
+		this.separation = separation;
+		this.verticalSeparation = verticalSeparation;
+		this.listener = listener;
+	}
+
+	/**
+	 * Probe the airspace repeatedly on a background thread until closed.
+	 *
+	 * @param periodMillis Delay between the end of one probe and the start of the next, in milliseconds.
+	 * @throws IllegalStateException If the probe is already running.
+	 */
+	public synchronized void start(long periodMillis) throws IllegalStateException {
+		if (runner != null) {
+			throw new IllegalStateException();
+		}
+		runner = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "conflict-probe");
+			thread.setDaemon(true);
+			return thread;
+		});
+		runner.scheduleWithFixedDelay(this::probe, 0, periodMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stop probing in the background. The conflicts from the last probe remain available.
+	 */
+	@Override
+	public synchronized void close() {
+		if (runner != null) {
+			runner.shutdownNow();
+			runner = null;
+		}
+	}
+
+	/**
+	 * @return Every conflict found by the latest probe.
+	 */
+	public List<Conflict> getConflicts() {
+		return conflicts;
+	}
+
+	/**
+	 * @param id Packed id of an aircraft.
+	 * @return true if the latest probe predicted a conflict involving the aircraft. Safe to call from any thread.
+	 */
+	public boolean isInConflict(long id) {
+		return involved.get(id) != LongIntHashMap.NO_VALUE;
+	}
+
+	/**
+	 * Probe the airspace once, publishing any conflicts that have appeared or cleared since the last probe.
+	 *
+	 * @return Every conflict currently predicted.
+	 */
+	public synchronized List<Conflict> probe() {
+		Map<Conflict, Conflict> found = new HashMap<>();
+		snapshot();
+		int filed = fileAircraft();
+		Arrays.sort(entries, 0, filed);
+		int start = 0;
+		while (start < filed) {
+			long key = entries[start] >>> 32;
+			int end = endOfBucket(start, filed);
+			compare(start, end, start, end, key, found);
+			if ((key & MAX_BAND) != MAX_BAND && end < filed && entries[end] >>> 32 == key + 1) {
+				compare(start, end, end, endOfBucket(end, filed), key, found);
+			}
+			start = end;
+		}
+		publish(found);
+		return conflicts;
+	}
+
+	/**
+	 * Copy the position and velocity of every aircraft, holding the airspace's lock only for the copy. O(n)
+	 */
+	private void snapshot() {
+		synchronized (airSpace) {
+			FleetStore fleet = airSpace.getFleet();
+			ensureCapacity(fleet.size());
+			count = 0;
+			for (int handle = 0; handle < fleet.handleLimit(); handle++) {
+				if (!fleet.isLive(handle)) {
+					continue;
+				}
+				ids[count] = fleet.getId(handle);
+				x[count] = fleet.getX(handle);
+				y[count] = fleet.getY(handle);
+				dx[count] = fleet.getVelocityX(handle);
+				dy[count] = fleet.getVelocityY(handle);
+				altitude[count] = fleet.getAltitude(handle);
+				count++;
+			}
+		}
+	}
+
+	/**
+	 * File every aircraft's widened path in each grid cell it covers. O(n)
+	 *
+	 * @return The number of entries filed.
+	 */
+	private int fileAircraft() {
+		float fastest = 0;
+		for (int i = 0; i < count; i++) {
+			fastest = Math.max(fastest, (float) Math.hypot(dx[i], dy[i]));
+		}
+		float reach = separation / 2;
+		// Cells at least as wide as any widened path, so each path covers at most two cells in each dimension.
+		float cellSize = Math.max((float) (fastest * lookahead) + separation,
+				Math.max((float) airSpace.getLength() / MAX_CELL_X, (float) airSpace.getBreadth() / MAX_CELL_Y));
+		int filed = 0;
+		for (int i = 0; i < count; i++) {
+			float endX = (float) (x[i] + dx[i] * lookahead);
+			float endY = (float) (y[i] + dy[i] * lookahead);
+			int x0 = cellOf(Math.min(x[i], endX) - reach, cellSize, MAX_CELL_X);
+			int x1 = cellOf(Math.max(x[i], endX) + reach, cellSize, MAX_CELL_X);
+			int y0 = cellOf(Math.min(y[i], endY) - reach, cellSize, MAX_CELL_Y);
+			int y1 = cellOf(Math.max(y[i], endY) + reach, cellSize, MAX_CELL_Y);
+			long band = Math.min(Math.max(altitude[i] / verticalSeparation, 0), MAX_BAND);
+			firstCellX[i] = x0;
+			firstCellY[i] = y0;
+			for (long cellX = x0; cellX <= x1; cellX++) {
+				for (long cellY = y0; cellY <= y1; cellY++) {
+					if (filed == entries.length) {
+						entries = Arrays.copyOf(entries, Math.max(filed * 2, 16));
+					}
+					long key = (cellX << 20) | (cellY << 8) | band;
+					entries[filed++] = (key << 32) | i;
+				}
+			}
+		}
+		return filed;
+	}
+
+	/**
+	 * Compare the aircraft in two runs of sorted entries, which are either the same bucket or a bucket and the one
+	 * above it. Each pair is compared only in the grid cell at the lowest corner both paths cover, so a pair sharing
+	 * several cells is only compared once.
+	 */
+	private void compare(int start, int end, int otherStart, int otherEnd, long key, Map<Conflict, Conflict> found) {
+		int cellX = (int) (key >>> 20);
+		int cellY = (int) (key >>> 8) & MAX_CELL_Y;
+		boolean sameBucket = start == otherStart;
+		for (int first = start; first < end; first++) {
+			int a = (int) entries[first];
+			for (int second = sameBucket ? first + 1 : otherStart; second < otherEnd; second++) {
+				int b = (int) entries[second];
+				if (Math.max(firstCellX[a], firstCellX[b]) == cellX && Math.max(firstCellY[a], firstCellY[b]) == cellY
+						&& Math.abs(altitude[a] - altitude[b]) < verticalSeparation) {
+					Conflict conflict = closestApproach(a, b);
+					if (conflict != null) {
+						found.put(conflict, conflict);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Narrow phase: find where two aircraft come closest within the lookahead window. O(1)
+	 *
+	 * @return The conflict between the two aircraft, or null if they stay separated.
+	 */
+	private Conflict closestApproach(int a, int b) {
+		double px = x[b] - x[a];
+		double py = y[b] - y[a];
+		double vx = dx[b] - dx[a];
+		double vy = dy[b] - dy[a];
+		double pv = px * vx + py * vy;
+		double vv = vx * vx + vy * vy;
+		double closest = vv == 0 ? 0 : Math.min(Math.max(-pv / vv, 0), lookahead);
+		double cx = px + vx * closest;
+		double cy = py + vy * closest;
+		double limit = (double) separation * separation;
+		if (cx * cx + cy * cy >= limit) {
+			return null;
+		}
+		double pp = px * px + py * py;
+		// Earliest time the distance falls to the separation, from |p + vt| = separation.
+		double loss = pp < limit ? 0 : (-pv - Math.sqrt(pv * pv - vv * (pp - limit))) / vv;
+		return new Conflict(ids[a], ids[b], loss, closest, Math.sqrt(cx * cx + cy * cy));
+	}
+
+	/**
+	 * Report conflicts that have appeared or cleared, then make the found conflicts the current ones.
+	 */
+	private void publish(Map<Conflict, Conflict> found) {
+		Map<Conflict, Conflict> previous = predicted;
+		predicted = found;
+		conflicts = Collections.unmodifiableList(new ArrayList<>(found.values()));
+		LongIntHashMap ids = new LongIntHashMap(found.size() * 2);
+		for (Conflict conflict : found.values()) {
+			ids.put(conflict.getFirstId(), 0);
+			ids.put(conflict.getSecondId(), 0);
+		}
+		involved = ids;
+		if (listener == null) {
+			return;
+		}
+		for (Conflict conflict : found.values()) {
+			if (!previous.containsKey(conflict)) {
+				listener.conflictPredicted(conflict);
+			}
+		}
+		for (Conflict conflict : previous.values()) {
+			if (!found.containsKey(conflict)) {
+				listener.conflictCleared(conflict);
+			}
+		}
+	}
+
+	/**
+	 * @return One past the last sorted entry with the same grid key as the entry at start.
+	 */
+	private int endOfBucket(int start, int filed) {
+		long key = entries[start] >>> 32;
+		int end = start + 1;
+		while (end < filed && entries[end] >>> 32 == key) {
+			end++;
+		}
+		return end;
+	}
+
+	private static int cellOf(float position, float cellSize, int maxCell) {
+		return Math.min(Math.max((int) Math.floor(position / cellSize), 0), maxCell);
+	}
+
+	private void ensureCapacity(int size) {
+		if (size <= ids.length) {
+			return;
+		}
+		int capacity = Math.max(size, ids.length * 2);
+		ids = Arrays.copyOf(ids, capacity);
+		x = Arrays.copyOf(x, capacity);
+		y = Arrays.copyOf(y, capacity);
+		dx = Arrays.copyOf(dx, capacity);
+		dy = Arrays.copyOf(dy, capacity);
+		altitude = Arrays.copyOf(altitude, capacity);
+		firstCellX = Arrays.copyOf(firstCellX, capacity);
+		firstCellY = Arrays.copyOf(firstCellY, capacity);
+	}
+
+}
@@ -0,0 +1,46 @@
+package comp3506.assn1.application;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+
+/**
+ * Flight recorder event for one radar contact processed by the AirTrafficTracker. The event's duration is the time to
+ * apply the contact to the airspace or its shard; the time it waited in the radar queue is recorded alongside when the
+ * tracker queues by priority. Disabled by default; enable it in the recording's .jfc settings or with
+ * Recording.enable("comp3506.ContactLatency").
+ *
+ * @author Angus Trusler
+ *
+ */
+@Name("comp3506.ContactLatency")
+@Label("Contact Latency")
+@Category({ "OneSky", "Tracker" })
+@Description("Time a radar contact waited in the tracker's queue and took to apply")
+@Enabled(false)
+@StackTrace(false)
+final class ContactLatencyEvent extends Event {
+
+	@Label("Aircraft")
+	String aircraft;
+
+	@Label("Queue Wait")
+	@Description("Time from the aircraft first being queued to being dequeued, or zero if not recorded")
+	@Timespan(Timespan.NANOSECONDS)
+	long queueWait;
+
+	@Label("Queued")
+	@Description("Contacts still in the radar queue")
+	int queued;
+
+	@Label("Shared Cell")
+	@Description("Whether the aircraft entered an occupied cell")
+	boolean sharedCell;
+
+}
@@ -0,0 +1,420 @@
+package comp3506.assn1.application;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import comp3506.assn1.adts.ChangeLog;
+import comp3506.assn1.adts.LongIntHashMap;
+
+
+/**
+ * Contact processing split into stages connected by java.util.concurrent.Flow: decode, dedupe, spatial insert,
+ * conflict check and alert. Each stage runs on its own thread with its own bounded buffer, so the stages can run on
+ * separate cores. A stage only requests another contact once it has handed on the last, so a slow stage fills the
+ * buffer in front of it and holds back the stages upstream, back to the caller submitting records.
+ *
+ * Records are in the RadarTrace record layout. Each stage counts the items it processed and passed on, and the time
+ * it spent busy, so the stage limiting throughput can be found.
+ *
+ * @author Angus Trusler
+ *
+ */
+public class ContactPipeline implements Closeable {
+
+	private static final int METRES_PER_KILOMETRE = 1000;
+
+	/**
+	 * Contact passed on by the dedupe stage, and whether it repeats the last position passed on for its aircraft.
+	 */
+	private static final class Report {
+		private final Aircraft aircraft;
+		private final boolean repeated;
+
+		Report(Aircraft aircraft, boolean repeated) {
+			this.aircraft = aircraft;
+			this.repeated = repeated;
+		}
+	}
+
+	/**
+	 * Aircraft inserted into the airspace, and whether it now shares its cell.
+	 */
+	private static final class Insertion {
+		private final Aircraft aircraft;
+		private final boolean sharedCell;
+
+		Insertion(Aircraft aircraft, boolean sharedCell) {
+			this.aircraft = aircraft;
+			this.sharedCell = sharedCell;
+		}
+	}
+
+	/**
+	 * One stage of the pipeline: takes items from the stage before, applies its step to each and publishes the
+	 * results to the stage after. A step returning null passes nothing on for that item. Items are delivered to a
+	 * stage by the publisher before it, so each stage runs on the thread of the executor its publisher was given.
+	 *
+	 * @param <I> Type of the items taken.
+	 * @param <O> Type of the items passed on.
+	 */
+	public static final class Stage<I, O> extends SubmissionPublisher<O> implements Flow.Processor<I, O> {
+
+		private final String name;
+		private final Function<I, O> step;
+		// Thread delivering this stage's results to the stage after.
+		private final ExecutorService delivery;
+		private final LongAdder processed = new LongAdder();
+		private final LongAdder emitted = new LongAdder();
+		private final LongAdder busyNanos = new LongAdder();
+		private final LongAdder blockedNanos = new LongAdder();
+		private Flow.Subscription subscription;
+
+		private Stage(String name, Function<I, O> step, ExecutorService delivery, int bufferCapacity) {
+			super(delivery, bufferCapacity);
+			this.name = name;
+			this.step = step;
+			this.delivery = delivery;
+		}
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			this.subscription = subscription;
+			subscription.request(1);
+		}
+
+		@Override
+		public void onNext(I item) {
+			long start = System.nanoTime();
+			O result;
+			try {
+				result = step.apply(item);
+			} catch (RuntimeException e) {
+				// Fail the rest of the pipeline rather than leave it waiting for items that will never come.
+				subscription.cancel();
+				closeExceptionally(e);
+				return;
+			}
+			processed.increment();
+			long stepped = System.nanoTime();
+			busyNanos.add(stepped - start);
+			if (result != null) {
+				// Blocks while the next stage's buffer is full, which is the back-pressure upstream.
+				submit(result);
+				emitted.increment();
+				blockedNanos.add(System.nanoTime() - stepped);
+			}
+			subscription.request(1);
+		}
+
+		@Override
+		public void onError(Throwable error) {
+			closeExceptionally(error);
+		}
+
+		@Override
+		public void onComplete() {
+			close();
+		}
+
+		/**
+		 * @return Name of the stage.
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return Number of items the stage has taken.
+		 */
+		public long getProcessed() {
+			return processed.sum();
+		}
+
+		/**
+		 * @return Number of items the stage has passed on.
+		 */
+		public long getEmitted() {
+			return emitted.sum();
+		}
+
+		/**
+		 * @return Time the stage has spent processing items, in nanoseconds.
+		 */
+		public long getBusyNanos() {
+			return busyNanos.sum();
+		}
+
+		/**
+		 * @return Time the stage has spent waiting for room in the next stage's buffer, in nanoseconds.
+		 */
+		public long getBlockedNanos() {
+			return blockedNanos.sum();
+		}
+
+		/**
+		 * @return Items processed per second of the stage's busy time, the most it could sustain on its own.
+		 */
+		public double getThroughput() {
+			long busy = getBusyNanos();
+			return busy == 0 ? 0 : getProcessed() / (busy / 1e9);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s: %d in, %d out, %.0f/s, blocked %.3f s", name, getProcessed(), getEmitted(),
+					getThroughput(), getBlockedNanos() / 1e9);
+		}
+	}
+
+	private final AirSpace airSpace;
+	private final ConflictProbe probe;
+	private final SubmissionPublisher<ByteBuffer> source;
+	private final List<Stage<?, ?>> stages = new ArrayList<>();
+	private final CountDownLatch completed = new CountDownLatch(1);
+	private final ExecutorService sourceThread;
+	private final LongAdder alerts = new LongAdder();
+	private final LongAdder duplicates = new LongAdder();
+
+	// Dedupe stage's record of the last contact passed on for each aircraft in the airspace, in slots that are reused
+	// once the airspace's change log shows the aircraft removed.
+	private final LongIntHashMap lastSlots = new LongIntHashMap();
+	private Aircraft[] lastContacts = new Aircraft[64];
+	private int[] freeSlots = new int[64];
+	private int freeSlotCount = 0;
+	private int slotLimit = 0;
+	private final ChangeLog.Reader removals;
+
+	/**
+	 * Build and start the pipeline.
+	 *
+	 * @param airSpace Airspace the contacts are inserted into.
+	 * @param probe Conflict probe whose predictions are checked for each contact, or null to only check for shared
+	 *        cells.
+	 * @param bufferCapacity Items buffered in front of each stage; rounded up to a power of two.
+	 * @param alert Receives the alert for each contact in conflict, on the alert stage's thread.
+	 */
+	public ContactPipeline(AirSpace airSpace, ConflictProbe probe, int bufferCapacity, Consumer<String> alert) {
+		this.airSpace = airSpace;
+		this.probe = probe;
+		ChangeLog changes = airSpace.getChangeLog();
+		removals = changes.reader(changes.nextSequence());
+		sourceThread = stageThread("decode");
+		source = new SubmissionPublisher<>(sourceThread, bufferCapacity);
+		Stage<ByteBuffer, Aircraft> decode = stage("decode", "dedupe", ContactPipeline::decode, bufferCapacity);
+		Stage<Aircraft, Report> dedupe = stage("dedupe", "insert", this::dedupe, bufferCapacity);
+		Stage<Report, Insertion> insert = stage("insert", "check", this::insert, bufferCapacity);
+		Stage<Insertion, String> check = stage("conflict check", "alert", this::check, bufferCapacity);
+		source.subscribe(decode);
+		decode.subscribe(dedupe);
+		dedupe.subscribe(insert);
+		insert.subscribe(check);
+		check.subscribe(new Flow.Subscriber<String>() {
+			public void onSubscribe(Flow.Subscription subscription) {
+				subscription.request(Long.MAX_VALUE);
+			}
+
+			public void onNext(String message) {
+				alerts.increment();
+				alert.accept(message);
+			}
+
+			public void onError(Throwable error) {
+				completed.countDown();
+			}
+
+			public void onComplete() {
+				completed.countDown();
+			}
+		});
+	}
+
+	/**
+	 * @param next Name of the stage after, which runs on the thread delivering this stage's results.
+	 */
+	private <I, O> Stage<I, O> stage(String name, String next, Function<I, O> step, int bufferCapacity) {
+		Stage<I, O> stage = new Stage<>(name, step, stageThread(next), bufferCapacity);
+		stages.add(stage);
+		return stage;
+	}
+
+	private static ExecutorService stageThread(String name) {
+		return Executors.newSingleThreadExecutor(task -> {
+			Thread thread = new Thread(task, "pipeline-" + name);
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Submit one radar record, blocking while the decode stage's buffer is full.
+	 *
+	 * @param record Record in the RadarTrace record layout, from its position. Must not be changed afterwards.
+	 */
+	public void submit(ByteBuffer record) {
+		source.submit(record);
+	}
+
+	/**
+	 * @return The stages in order, for their metrics.
+	 */
+	public List<Stage<?, ?>> getStages() {
+		return Collections.unmodifiableList(stages);
+	}
+
+	/**
+	 * @return Number of alerts raised.
+	 */
+	public long getAlerts() {
+		return alerts.sum();
+	}
+
+	/**
+	 * @return Number of contacts repeating their aircraft's last position, which only refreshed when it was last seen.
+	 */
+	public long getDuplicates() {
+		return duplicates.sum();
+	}
+
+	/**
+	 * @return Number of aircraft the dedupe stage holds a last contact for. Only exact once the pipeline is closed.
+	 */
+	int getDedupeSize() {
+		return lastSlots.size();
+	}
+
+	/**
+	 * Decode a RadarTrace record, skipping its timestamp.
+	 */
+	private static Aircraft decode(ByteBuffer record) {
+		int at = record.position() + Long.BYTES;
+		return new Aircraft(record.getLong(at), record.getInt(at + 8), record.getInt(at + 12),
+				record.getInt(at + 16), record.getInt(at + 20), record.getDouble(at + 24));
+	}
+
+	/**
+	 * Mark a contact reporting an aircraft at exactly its last reported position, such as the same aircraft reported
+	 * by two radar sites, so that it only refreshes when the aircraft was last seen rather than refiling it.
+	 */
+	private Report dedupe(Aircraft aircraft) {
+		forgetRemoved();
+		int slot = lastSlots.get(aircraft.getIdCode());
+		if (slot == LongIntHashMap.NO_VALUE) {
+			slot = newSlot();
+			lastSlots.put(aircraft.getIdCode(), slot);
+		} else if (samePosition(lastContacts[slot], aircraft)) {
+			duplicates.increment();
+			return new Report(aircraft, true);
+		}
+		lastContacts[slot] = aircraft;
+		return new Report(aircraft, false);
+	}
+
+	/**
+	 * Drop the last contact of every aircraft the airspace has removed since the last contact, so the dedupe table
+	 * only holds aircraft still in the airspace. If the change log has overwritten removals not yet read, every last
+	 * contact is dropped instead.
+	 */
+	private void forgetRemoved() {
+		while (removals.next()) {
+			if (removals.getKind() == ChangeLog.REMOVE) {
+				int slot = lastSlots.remove(removals.getKey());
+				if (slot != LongIntHashMap.NO_VALUE) {
+					lastContacts[slot] = null;
+					freeSlots[freeSlotCount++] = slot;
+				}
+			}
+		}
+		if (removals.isLapped()) {
+			lastSlots.clear();
+			Arrays.fill(lastContacts, 0, slotLimit, null);
+			slotLimit = 0;
+			freeSlotCount = 0;
+			removals.seek(airSpace.getChangeLog().nextSequence());
+		}
+	}
+
+	/**
+	 * @return A free slot of the dedupe table, growing it if every slot is in use.
+	 */
+	private int newSlot() {
+		if (freeSlotCount > 0) {
+			return freeSlots[--freeSlotCount];
+		}
+		if (slotLimit == lastContacts.length) {
+			lastContacts = Arrays.copyOf(lastContacts, slotLimit * 2);
+			freeSlots = Arrays.copyOf(freeSlots, slotLimit * 2);
+		}
+		return slotLimit++;
+	}
+
+	private static boolean samePosition(Aircraft last, Aircraft aircraft) {
+		return last.getAirSpaceXCoord() == aircraft.getAirSpaceXCoord()
+				&& last.getAirSpaceYCoord() == aircraft.getAirSpaceYCoord()
+				&& last.getAltitude() == aircraft.getAltitude() && last.getSpeed() == aircraft.getSpeed()
+				&& last.getCourse() == aircraft.getCourse();
+	}
+
+	/**
+	 * Insert a contact into the airspace. A repeated position only refreshes when the aircraft was last seen, unless
+	 * the aircraft has since been evicted or removed, when it is added again.
+	 */
+	private Insertion insert(Report report) {
+		Aircraft aircraft = report.aircraft;
+		if (report.repeated && airSpace.refresh(aircraft.getIdCode(), System.currentTimeMillis())) {
+			return null;
+		}
+		try {
+			return new Insertion(aircraft, airSpace.addAircraft(aircraft));
+		} catch (IndexOutOfBoundsException ioobe) {
+			return null;
+		}
+	}
+
+	private String check(Insertion insertion) {
+		Aircraft aircraft = insertion.aircraft;
+		if (insertion.sharedCell) {
+			return aircraft + " has entered an occupied cell in the air space!";
+		}
+		if (probe != null && probe.isInConflict(aircraft.getIdCode())) {
+			return aircraft + " is in a predicted conflict at flight level "
+					+ aircraft.getAltitude() / METRES_PER_KILOMETRE + ".";
+		}
+		return null;
+	}
+
+	/**
+	 * Finish processing every record submitted, then stop the stages' threads.
+	 */
+	@Override
+	public void close() {
+		source.close();
+		try {
+			completed.await();
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+		}
+		sourceThread.shutdown();
+		for (Stage<?, ?> stage : stages) {
+			stage.delivery.shutdown();
+		}
+		try {
+			sourceThread.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
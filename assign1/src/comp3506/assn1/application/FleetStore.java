@@ -0,0 +1,297 @@
+package comp3506.assn1.application;
+
+import java.util.Arrays;
+
+import comp3506.assn1.adts.LongIntHashMap;
+
+
+/**
+ * State of every tracked aircraft, held as parallel primitive arrays indexed by an int handle.
+ * Advancing the whole fleet is then a straight pass over a few contiguous arrays, rather than
+ * chasing Aircraft objects scattered across the heap. Released handles are recycled.
+ *
+ * Positions are held in kilometres as floats so movement between whole kilometre cells accumulates.
+ * The airspace cube is filed by handle; cellX, cellY and cellZ remember the cell each aircraft was
+ * last filed under, and cellHandles the cube's own handle for removing it from that cell.
+ *
+ * @author Angus Trusler
+ *
+ */
+public class FleetStore {
+
+	private static final int INITIAL_CAPACITY = 1024;
+	private static final float METRES_PER_KILOMETRE = 1000f;
+
+	private long[] ids;			// Packed AircraftId, zero for an unused handle.
+	private float[] x;			// In kilometres.
+	private float[] y;			// In kilometres.
+	private int[] altitude;		// In metres.
+	private int[] speed;		// In metres per second.
+	private float[] course;		// In degrees, north is 0 degrees.
+	private float[] dx;			// Kilometres per second east, derived from speed and course.
+	private float[] dy;			// Kilometres per second north, derived from speed and course.
+	private long[] lastSeen;	// Time of the latest contact, in milliseconds.
+	private int[] cellX;
+	private int[] cellY;
+	private int[] cellZ;
+	private Object[] cellHandles;
+	private Integer[] refs;		// One boxed handle per slot, so filing it in the cube never allocates.
+
+	private int[] freeHandles;
+	private int freeCount = 0;
+	private int highWater = 0;	// Handles at or above this have never been used.
+	private int size = 0;
+	private LongIntHashMap handles = new LongIntHashMap(INITIAL_CAPACITY);
+
+	public FleetStore() {
+		grow(INITIAL_CAPACITY);
+	}
+
+	/**
+	 * @return Number of aircraft in the store.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return One more than the largest handle ever allocated. Every live handle is below this.
+	 */
+	public int handleLimit() {
+		return highWater;
+	}
+
+	/**
+	 * @param id Packed aircraft id.
+	 * @return The aircraft's handle, or -1 if the aircraft is not in the store.
+	 */
+	public int handleOf(long id) {
+		return handles.get(id);
+	}
+
+	/**
+	 * @param handle An aircraft handle.
+	 * @return true if the handle currently refers to an aircraft.
+	 */
+	public boolean isLive(int handle) {
+		return ids[handle] != 0;
+	}
+
+	/**
+	 * Allocate a handle for a new aircraft. Its state must then be set with update. O(1) amortised.
+	 *
+	 * @param id Packed aircraft id, which must not already be in the store.
+	 * @return The new aircraft's handle.
+	 */
+	public int allocate(long id) {
+		int handle;
+		if (freeCount > 0) {
+			handle = freeHandles[--freeCount];
+		} else {
+			if (highWater == ids.length) {
+				grow(ids.length * 2);
+			}
+			handle = highWater++;
+			refs[handle] = Integer.valueOf(handle);
+		}
+		ids[handle] = id;
+		handles.put(id, handle);
+		++size;
+		return handle;
+	}
+
+	/**
+	 * Release an aircraft's handle for reuse. O(1)
+	 *
+	 * @param handle Handle of the aircraft leaving the store.
+	 */
+	public void release(int handle) {
+		handles.remove(ids[handle]);
+		ids[handle] = 0;
+		cellHandles[handle] = null;
+		// Stationary, so a released slot can be swept by advance without effect.
+		dx[handle] = 0;
+		dy[handle] = 0;
+		freeHandles[freeCount++] = handle;
+		--size;
+	}
+
+	/**
+	 * Set an aircraft's position and velocity from a radar contact. O(1)
+	 *
+	 * @param handle The aircraft's handle.
+	 * @param aircraft Latest contact for the aircraft.
+	 */
+	public void update(int handle, Aircraft aircraft) {
+		x[handle] = aircraft.getAirSpaceXCoord();
+		y[handle] = aircraft.getAirSpaceYCoord();
+		altitude[handle] = aircraft.getAltitude();
+		speed[handle] = aircraft.getSpeed();
+		course[handle] = (float) aircraft.getCourse();
+		double heading = Math.toRadians(aircraft.getCourse());
+		dx[handle] = (float) (Math.sin(heading) * aircraft.getSpeed() / METRES_PER_KILOMETRE);
+		dy[handle] = (float) (Math.cos(heading) * aircraft.getSpeed() / METRES_PER_KILOMETRE);
+	}
+
+	/**
+	 * Record when the aircraft was last reported by a radar site. O(1)
+	 *
+	 * @param handle The aircraft's handle.
+	 * @param time Time of the contact, in milliseconds.
+	 */
+	public void setLastSeen(int handle, long time) {
+		lastSeen[handle] = time;
+	}
+
+	/**
+	 * Move every aircraft along its course. A single branch-free pass over the position arrays. O(n)
+	 *
+	 * @param seconds Time elapsed.
+	 */
+	public void advance(float seconds) {
+		final float[] x = this.x;
+		final float[] y = this.y;
+		final float[] dx = this.dx;
+		final float[] dy = this.dy;
+		for (int i = 0; i < highWater; i++) {
+			x[i] += dx[i] * seconds;
+			y[i] += dy[i] * seconds;
+		}
+	}
+
+	/**
+	 * Record the cube cell an aircraft is filed under, and the cube's handle for it.
+	 */
+	void setCell(int handle, int cellX, int cellY, int cellZ, Object cellHandle) {
+		this.cellX[handle] = cellX;
+		this.cellY[handle] = cellY;
+		this.cellZ[handle] = cellZ;
+		this.cellHandles[handle] = cellHandle;
+	}
+
+	/**
+	 * @return The cube's handle for the aircraft in the cell it is filed under.
+	 */
+	Object getCellHandle(int handle) {
+		return cellHandles[handle];
+	}
+
+	public long getId(int handle) {
+		return ids[handle];
+	}
+
+	public float getX(int handle) {
+		return x[handle];
+	}
+
+	public float getY(int handle) {
+		return y[handle];
+	}
+
+	public int getAltitude(int handle) {
+		return altitude[handle];
+	}
+
+	public int getSpeed(int handle) {
+		return speed[handle];
+	}
+
+	public float getCourse(int handle) {
+		return course[handle];
+	}
+
+	public float getVelocityX(int handle) {
+		return dx[handle];
+	}
+
+	public float getVelocityY(int handle) {
+		return dy[handle];
+	}
+
+	public long getLastSeen(int handle) {
+		return lastSeen[handle];
+	}
+
+	public int getCellX(int handle) {
+		return cellX[handle];
+	}
+
+	public int getCellY(int handle) {
+		return cellY[handle];
+	}
+
+	public int getCellZ(int handle) {
+		return cellZ[handle];
+	}
+
+	/**
+	 * @return The boxed handle filed in the cube for this aircraft. Always the same object for a handle.
+	 */
+	Integer ref(int handle) {
+		return refs[handle];
+	}
+
+	/**
+	 * Rebuild an Aircraft contact from the stored state.
+	 *
+	 * @param handle The aircraft's handle.
+	 * @return A snapshot of the aircraft.
+	 */
+	public Aircraft toAircraft(int handle) {
+		return new Aircraft(ids[handle], (int) x[handle], (int) y[handle], altitude[handle], speed[handle],
+				            course[handle]);
+	}
+
+	/**
+	 * Removes every aircraft from the store. O(n)
+	 */
+	public void clear() {
+		Arrays.fill(ids, 0, highWater, 0);
+		Arrays.fill(cellHandles, 0, highWater, null);
+		Arrays.fill(dx, 0, highWater, 0);
+		Arrays.fill(dy, 0, highWater, 0);
+		for (int i = 0; i < highWater; i++) {
+			freeHandles[i] = highWater - 1 - i;
+		}
+		freeCount = highWater;
+		size = 0;
+		handles.clear();
+	}
+
+	private void grow(int capacity) {
+		if (ids == null) {
+			ids = new long[capacity];
+			x = new float[capacity];
+			y = new float[capacity];
+			altitude = new int[capacity];
+			speed = new int[capacity];
+			course = new float[capacity];
+			dx = new float[capacity];
+			dy = new float[capacity];
+			lastSeen = new long[capacity];
+			cellX = new int[capacity];
+			cellY = new int[capacity];
+			cellZ = new int[capacity];
+			cellHandles = new Object[capacity];
+			refs = new Integer[capacity];
+			freeHandles = new int[capacity];
+			return;
+		}
+		ids = Arrays.copyOf(ids, capacity);
+		x = Arrays.copyOf(x, capacity);
+		y = Arrays.copyOf(y, capacity);
+		altitude = Arrays.copyOf(altitude, capacity);
+		speed = Arrays.copyOf(speed, capacity);
+		course = Arrays.copyOf(course, capacity);
+		dx = Arrays.copyOf(dx, capacity);
+		dy = Arrays.copyOf(dy, capacity);
+		lastSeen = Arrays.copyOf(lastSeen, capacity);
+		cellX = Arrays.copyOf(cellX, capacity);
+		cellY = Arrays.copyOf(cellY, capacity);
+		cellZ = Arrays.copyOf(cellZ, capacity);
+		cellHandles = Arrays.copyOf(cellHandles, capacity);
+		refs = Arrays.copyOf(refs, capacity);
+		freeHandles = Arrays.copyOf(freeHandles, capacity);
+	}
+
+}
@@ -2,6 +2,9 @@ package comp3506.assn1.application;
 
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.Scanner;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -23,6 +26,10 @@ public class OneSky {
 	private AirTrafficTracker tracker = new AirTrafficTracker(australia);
 	private List<Radar> radarSites = new ArrayList<>();
 	public final int NUM_ITERATIONS;
+	private static final int RADAR_WORKERS = 2;
+	private static final int RADAR_QUEUE_CAPACITY = 10000;
+	private static final double DEFAULT_CONTACTS_PER_SECOND = 10;
+	private static final int PIPELINE_BUFFER = 1024;
 	
 	/**
 	 * 
@@ -71,6 +78,98 @@ public class OneSky {
 		}		
 	}
 	
+	/**
+	 * Run the automated simulation while capturing every identified aircraft into a trace file.
+	 * 
+	 * @param trace File the radar contacts are recorded into.
+	 * @throws IOException If the trace could not be written.
+	 */
+	public void record(Path trace) throws IOException {
+		try (RadarTrace.Recorder recorder = new RadarTrace.Recorder(trace)) {
+			tracker.setRecorder(recorder);
+			automated();
+		} finally {
+			tracker.setRecorder(null);
+		}
+	}
+	
+	/**
+	 * Start the replay simulation process, feeding a recorded trace through the tracker.
+	 * 
+	 * @param trace File holding the recorded radar contacts.
+	 * @param paced If true, contacts are replayed at their recorded pace, otherwise as fast as possible.
+	 * @throws IOException If the trace could not be read.
+	 */
+	public void replay(Path trace, boolean paced) throws IOException {
+		long start = System.nanoTime();
+		long contacts = RadarTrace.replay(trace, tracker, paced);
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.println("Replayed " + contacts + " contacts in " + seconds + " seconds.");
+	}
+	
+	/**
+	 * Run the automated simulation with the airspace split across shard processes.
+	 * 
+	 * @param shardCount Number of shard processes.
+	 * @throws IOException If the shard processes could not be started.
+	 */
+	public void sharded(int shardCount) throws IOException {
+		try (ShardCoordinator shards = new ShardCoordinator(AUSTRALIA_WIDTH, AUSTRALIA_LENGTH, FLIGHT_CEILING,
+				shardCount)) {
+			tracker.setShards(shards);
+			automated();
+			System.out.println(shards.getAircraftCount() + " aircraft tracked across " + shardCount + " shards.");
+		} finally {
+			tracker.setShards(null);
+		}
+	}
+	
+	/**
+	 * Feed a recorded trace through the staged contact pipeline, then report each stage's throughput.
+	 * 
+	 * @param trace File holding the recorded radar contacts.
+	 * @throws IOException If the trace could not be read.
+	 */
+	public void pipeline(Path trace) throws IOException {
+		long start = System.nanoTime();
+		long contacts;
+		ContactPipeline pipeline = new ContactPipeline(australia, null, PIPELINE_BUFFER, System.out::println);
+		try {
+			contacts = RadarTrace.replay(trace, pipeline);
+		} finally {
+			pipeline.close();
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.println("Piped " + contacts + " contacts in " + seconds + " seconds.");
+		for (ContactPipeline.Stage<?, ?> stage : pipeline.getStages()) {
+			System.out.println(stage);
+		}
+	}
+	
+	/**
+	 * Run every radar site concurrently, each on its own thread, with tracker workers draining their contacts.
+	 * 
+	 * @param sites Number of radar sites.
+	 * @param seconds How long to run for.
+	 * @param contactsPerSecond Rate at which each radar site identifies aircraft.
+	 * @throws InterruptedException If interrupted while running.
+	 */
+	public void concurrent(int sites, double seconds, double contactsPerSecond) throws InterruptedException {
+		RadarRuntime runtime = new RadarRuntime(australia, sites, contactsPerSecond, RADAR_WORKERS,
+				RADAR_QUEUE_CAPACITY);
+		try {
+			Thread.sleep((long) (seconds * 1000));
+		} finally {
+			runtime.close();
+		}
+		System.out.println(sites + (runtime.isVirtual() ? " virtual" : " platform") + " radar threads applied "
+				+ runtime.getApplied() + " of " + runtime.getIdentified() + " contacts, "
+				+ Math.round(runtime.getThroughput()) + " contacts/second.");
+		System.out.println("Latency p50 " + runtime.getLatencyPercentile(50) / 1000 + " us, p99 "
+				+ runtime.getLatencyPercentile(99) / 1000 + " us, p99.9 " + runtime.getLatencyPercentile(99.9) / 1000
+				+ " us.");
+	}
+	
 	/**
 	 * Prompt a user at the console with a yes/no question and return the result.
 	 * 
@@ -102,30 +201,63 @@ public class OneSky {
 			
 			if (prompt(input, "Do you want to search for an aircraft in the tracking queue (Y/N)?")) {
 				System.out.println("Enter the aircraft id:");
-				String id = input.nextLine();
+				long id;
+				try {
+					id = AircraftId.encode(input.nextLine());
+				} catch (IllegalArgumentException iae) {
+					System.out.println(iae.getMessage());
+					id = 0;
+				}
 				
 				Iterator<Aircraft> it = tracker.radarQueueIterator();
 				while (it.hasNext()) {
 					Aircraft aircraft = it.next();
 					System.out.println(aircraft);
-					if (aircraft.getId().equalsIgnoreCase(id)) {
+					if (aircraft.getIdCode() == id) {
 						System.out.println(aircraft + " was found in the tracking queue waiting to be processed.");
 					}
 				}
 			}
 			
+			if (prompt(input, "Do you want to list the aircraft in the air space (Y/N)?")) {
+				Iterator<Aircraft> it = tracker.airSpaceIterator();
+				while (it.hasNext()) {
+					System.out.println(it.next());
+				}
+			}
+			
 			anotherIteration = prompt(input, "Do you want to perform another iteration of the simulation (Y/N)?");
 		}
 		input.close();
 	}
 
 	
-	public static void main(String[] args) {
-		if (args.length > 0 && args[0].equalsIgnoreCase("auto")) {		// Start automated simulation mode.
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if (args.length > 2 && args[0].equalsIgnoreCase("auto")) {		// Start automated simulation mode, recording a trace.
+			OneSky simulation = new OneSky(Integer.parseInt(args[1]));
+			simulation.record(Paths.get(args[2]));
+		} else if (args.length > 0 && args[0].equalsIgnoreCase("auto")) {	// Start automated simulation mode.
 			OneSky simulation = new OneSky(Integer.parseInt(args[1]));
 			simulation.automated();
+		} else if (args.length > 1 && args[0].equalsIgnoreCase("replay")) {	// Start trace replay mode.
+			OneSky simulation = new OneSky(0);
+			simulation.replay(Paths.get(args[1]), args.length > 2 && args[2].equalsIgnoreCase("paced"));
+		} else if (args.length > 2 && args[0].equalsIgnoreCase("shards")) {	// Start sharded simulation mode.
+			OneSky simulation = new OneSky(Integer.parseInt(args[2]));
+			simulation.sharded(Integer.parseInt(args[1]));
+		} else if (args.length > 1 && args[0].equalsIgnoreCase("pipeline")) {	// Start staged pipeline mode.
+			OneSky simulation = new OneSky(0);
+			simulation.pipeline(Paths.get(args[1]));
+		} else if (args.length > 2 && args[0].equalsIgnoreCase("radars")) {	// Start concurrent radar mode.
+			OneSky simulation = new OneSky(0);
+			simulation.concurrent(Integer.parseInt(args[1]), Double.parseDouble(args[2]),
+					args.length > 3 ? Double.parseDouble(args[3]) : DEFAULT_CONTACTS_PER_SECOND);
 		} else if (args.length > 0) {									// Output program usage pattern.
-			System.out.println("Usage: java OneSky auto numberOfIterations or java OneSky");
+			System.out.println("Usage: java OneSky auto numberOfIterations [traceFile] or "
+			                   + "java OneSky replay traceFile [paced] or "
+			                   + "java OneSky shards numberOfShards numberOfIterations or "
+			                   + "java OneSky radars numberOfSites seconds [contactsPerSecond] or "
+			                   + "java OneSky pipeline traceFile or java OneSky");
 		} else {														// Start interactive simulation mode.
 			OneSky simulation = new OneSky(0);
 			simulation.interactive();
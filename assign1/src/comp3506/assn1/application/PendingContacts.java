@@ -0,0 +1,125 @@
+package comp3506.assn1.application;
+
+import java.util.Arrays;
+
+import comp3506.assn1.adts.LongIntHashMap;
+
+
+/**
+ * Newest queued contact of each aircraft waiting in the tracker's radar queue, kept alongside the queue so repeated
+ * contacts for one aircraft are coalesced rather than each being applied to the airspace.
+ * The first contact for an aircraft holds its place in the queue; later contacts only replace the contact held here,
+ * so when the queued contact is reached only the newest position is applied.
+ *
+ * Contacts are held in a slot array indexed through an id-keyed map, and freed slots are reused, so coalescing a
+ * contact does not allocate.
+ *
+ * @author Angus Trusler
+ *
+ */
+class PendingContacts {
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	private final LongIntHashMap slots = new LongIntHashMap();
+	private Aircraft[] contacts = new Aircraft[INITIAL_CAPACITY];
+	// Priority the aircraft is queued at, the most urgent if it is queued more than once.
+	private int[] priorities = new int[INITIAL_CAPACITY];
+	// System.nanoTime() when the aircraft was first queued, or zero if not timed.
+	private long[] queuedNanos = new long[INITIAL_CAPACITY];
+	private int[] freeSlots = new int[INITIAL_CAPACITY];
+	private int freeCount = 0;
+	private int highWater = 0;
+	private long coalesced = 0;
+
+	/**
+	 * Hold a new contact.
+	 *
+	 * @param aircraft Contact from a radar site.
+	 * @param priority Priority it would be queued at.
+	 * @param nanos System.nanoTime() now, or zero if contacts are not timed.
+	 * @return true if the contact must be queued: no contact for the aircraft is waiting, or the waiting one is
+	 *         queued at a less urgent priority.
+	 */
+	boolean offer(Aircraft aircraft, int priority, long nanos) {
+		int slot = slots.get(aircraft.getIdCode());
+		if (slot == LongIntHashMap.NO_VALUE) {
+			slot = allocate();
+			slots.put(aircraft.getIdCode(), slot);
+			contacts[slot] = aircraft;
+			priorities[slot] = priority;
+			queuedNanos[slot] = nanos;
+			return true;
+		}
+		contacts[slot] = aircraft;
+		coalesced++;
+		if (priority < priorities[slot]) {
+			priorities[slot] = priority;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Take the newest contact for an aircraft whose queued contact has been dequeued.
+	 *
+	 * @param queued Contact dequeued from the radar queue.
+	 * @return The aircraft's newest contact, or null if it was already taken through an earlier queued contact.
+	 */
+	Aircraft claim(Aircraft queued) {
+		int slot = slots.remove(queued.getIdCode());
+		if (slot == LongIntHashMap.NO_VALUE) {
+			return null;
+		}
+		Aircraft newest = contacts[slot];
+		contacts[slot] = null;
+		freeSlots[freeCount++] = slot;
+		return newest;
+	}
+
+	/**
+	 * @param id Packed id of an aircraft.
+	 * @return The aircraft's newest waiting contact, or null if none is waiting.
+	 */
+	Aircraft newest(long id) {
+		int slot = slots.get(id);
+		return slot == LongIntHashMap.NO_VALUE ? null : contacts[slot];
+	}
+
+	/**
+	 * @param id Packed id of an aircraft.
+	 * @return System.nanoTime() when the aircraft was first queued, or zero if it was not timed or is not waiting.
+	 */
+	long queuedNanos(long id) {
+		int slot = slots.get(id);
+		return slot == LongIntHashMap.NO_VALUE ? 0 : queuedNanos[slot];
+	}
+
+	/**
+	 * @return Number of aircraft with a contact waiting.
+	 */
+	int size() {
+		return slots.size();
+	}
+
+	/**
+	 * @return Number of contacts that replaced an older waiting contact for the same aircraft.
+	 */
+	long getCoalesced() {
+		return coalesced;
+	}
+
+	private int allocate() {
+		if (freeCount > 0) {
+			return freeSlots[--freeCount];
+		}
+		if (highWater == contacts.length) {
+			contacts = Arrays.copyOf(contacts, highWater * 2);
+			priorities = Arrays.copyOf(priorities, highWater * 2);
+			queuedNanos = Arrays.copyOf(queuedNanos, highWater * 2);
+			freeSlots = Arrays.copyOf(freeSlots, highWater * 2);
+		}
+		return highWater++;
+	}
+
+}
@@ -1,6 +1,7 @@
 package comp3506.assn1.application;
 
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
 
 
 /**
@@ -11,15 +12,33 @@ import java.util.concurrent.ThreadLocalRandom;
  */
 public class Radar {
 	
-	private AirTrafficTracker tracker;
+	private Consumer<Aircraft> contacts;
+	private int length;
+	private int breadth;
+	private int height;
 	
 	// aircraftIdTag and id are used to generate unique identifiers for each aircraft.
-	private String aircraftIdTag;
+	private long aircraftIdTag;
 	private int id;
 
 	public Radar(AirTrafficTracker tracker, String aircraftIdTag) {
-		this.tracker = tracker;
-		this.aircraftIdTag = aircraftIdTag;
+		this(tracker::newAircraft, tracker.getLength(), tracker.getBreadth(), tracker.getHeight(), aircraftIdTag);
+	}
+
+	/**
+	 * Radar site that hands its contacts to something other than a tracker, such as a RadarRuntime.
+	 * @param contacts Receives each aircraft identified.
+	 * @param length Length of the airspace covered.
+	 * @param breadth Breadth of the airspace covered.
+	 * @param height Height of the airspace covered.
+	 * @param aircraftIdTag Prefix of the ids given to the aircraft identified.
+	 */
+	public Radar(Consumer<Aircraft> contacts, int length, int breadth, int height, String aircraftIdTag) {
+		this.contacts = contacts;
+		this.length = length;
+		this.breadth = breadth;
+		this.height = height;
+		this.aircraftIdTag = AircraftId.encode(aircraftIdTag);
 		id = 10;
 	}
 	
@@ -33,10 +52,10 @@ public class Radar {
 		final double HEADING_RANGE = 360;	// degrees
 		final int METRES_PER_KILOMETRE = 1000;
 		
-		tracker.newAircraft(new Aircraft(aircraftIdTag+id++, 
-										 ThreadLocalRandom.current().nextInt(0, tracker.getLength()), 
-										 ThreadLocalRandom.current().nextInt(0, tracker.getBreadth()), 
-										 ThreadLocalRandom.current().nextInt(0, tracker.getHeight()*METRES_PER_KILOMETRE), 
+		contacts.accept(new Aircraft(AircraftId.append(aircraftIdTag, id++), 
+										 ThreadLocalRandom.current().nextInt(0, length), 
+										 ThreadLocalRandom.current().nextInt(0, breadth), 
+										 ThreadLocalRandom.current().nextInt(0, height*METRES_PER_KILOMETRE), 
 										 ThreadLocalRandom.current().nextInt(MIN_AIRSPEED, MAX_AIRSPEED), 
 										 ThreadLocalRandom.current().nextDouble(NORTH, HEADING_RANGE)));
 	}
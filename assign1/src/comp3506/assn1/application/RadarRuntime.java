@@ -0,0 +1,258 @@
+package comp3506.assn1.application;
+
+import java.io.Closeable;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import comp3506.assn1.adts.BoundedQueue;
+
+
+/**
+ * Concurrent ingest runtime in which every radar site runs on its own thread, identifying aircraft at a fixed rate,
+ * while a pool of tracker workers drains their contacts into the airspace. Radar threads are virtual threads where
+ * the JVM provides them, so hundreds or thousands of sites cost little more than their contacts; otherwise each site
+ * gets a platform thread.
+ *
+ * Contacts pass through one bounded queue that coalesces contacts for the same aircraft and blocks the radars when
+ * full, so a burst applies back-pressure to the radars instead of growing the heap. Each contact's latency, from
+ * being identified to being applied to the airspace, is sampled for percentiles.
+ *
+ * @author Angus Trusler
+ *
+ */
+public class RadarRuntime implements Closeable {
+
+	// Latency samples kept per worker; older samples are overwritten.
+	private static final int SAMPLES_PER_WORKER = 1 << 16;
+
+	/**
+	 * Radar contact with the time it was identified.
+	 */
+	private static final class Contact {
+		private final Aircraft aircraft;
+		private final long identifiedNanos;
+
+		Contact(Aircraft aircraft, long identifiedNanos) {
+			this.aircraft = aircraft;
+			this.identifiedNanos = identifiedNanos;
+		}
+	}
+
+	private final AirSpace airSpace;
+	private final BoundedQueue<Contact> contacts;
+	private final ExecutorService radars;
+	private final Thread[] workers;
+	private final long[][] samples;
+	private final long[] sampleCounts;
+	private final LongAdder identified = new LongAdder();
+	private final LongAdder applied = new LongAdder();
+	private final boolean virtual;
+	private final long startNanos;
+	private volatile boolean running = true;
+	private long stopNanos = 0;
+
+	/**
+	 * Start the radar sites and tracker workers.
+	 *
+	 * @param airSpace Airspace the contacts are applied to.
+	 * @param radarSites Number of radar sites.
+	 * @param contactsPerSecond Rate at which each radar site identifies aircraft.
+	 * @param workerCount Number of tracker workers draining the contacts.
+	 * @param queueCapacity Most contacts waiting to be applied before the radars are held back.
+	 * @throws IllegalArgumentException If any count, the rate or the capacity is not positive, or there are more
+	 *         radar sites than can be given distinct registration prefixes.
+	 */
+	public RadarRuntime(AirSpace airSpace, int radarSites, double contactsPerSecond, int workerCount,
+			int queueCapacity) throws IllegalArgumentException {
+		if (radarSites < 1 || radarSites > 26 * 26 * 26 || !(contactsPerSecond > 0) || workerCount < 1) {
+			throw new IllegalArgumentException();
+		}
+		this.airSpace = airSpace;
+		contacts = new BoundedQueue<>(queueCapacity, BoundedQueue.Overflow.BLOCK,
+				contact -> contact.aircraft.getIdCode());
+		samples = new long[workerCount][SAMPLES_PER_WORKER];
+		sampleCounts = new long[workerCount];
+		startNanos = System.nanoTime();
+
+		workers = new Thread[workerCount];
+		for (int worker = 0; worker < workerCount; worker++) {
+			final int index = worker;
+			workers[worker] = new Thread(() -> drain(index), "tracker-worker-" + worker);
+			workers[worker].setDaemon(true);
+			workers[worker].start();
+		}
+
+		ExecutorService perTask = virtualThreadPerTaskExecutor();
+		virtual = perTask != null;
+		radars = virtual ? perTask : Executors.newCachedThreadPool(task -> {
+			Thread thread = new Thread(task, "radar");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long periodNanos = Math.max((long) (1e9 / contactsPerSecond), 1);
+		for (int site = 0; site < radarSites; site++) {
+			Radar radar = new Radar(this::identified, airSpace.getLength(), airSpace.getBreadth(),
+					airSpace.getHeight(), siteTag(site));
+			radars.execute(() -> sweep(radar, periodNanos));
+		}
+	}
+
+	/**
+	 * @return An executor starting a virtual thread per task, or null if the JVM has no virtual threads.
+	 */
+	private static ExecutorService virtualThreadPerTaskExecutor() {
+		try {
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) factory.invoke(null);
+		} catch (ReflectiveOperationException | UnsupportedOperationException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return Registration prefix of a radar site: R followed by three letters, leaving room for the site's numbering.
+	 */
+	private static String siteTag(int site) {
+		char[] tag = { 'R', (char) ('A' + site / (26 * 26)), (char) ('A' + site / 26 % 26), (char) ('A' + site % 26) };
+		return new String(tag);
+	}
+
+	/**
+	 * Identify an aircraft once every period until the runtime is closed. Sweeps are scheduled from a fixed start, so
+	 * a late sweep is followed by an early one rather than the rate drifting.
+	 */
+	private void sweep(Radar radar, long periodNanos) {
+		long next = System.nanoTime();
+		while (running) {
+			radar.aircraftIdentified();
+			next += periodNanos;
+			long wait = next - System.nanoTime();
+			if (wait > 0) {
+				LockSupport.parkNanos(wait);
+			}
+		}
+	}
+
+	private void identified(Aircraft aircraft) {
+		identified.increment();
+		try {
+			contacts.enqueue(new Contact(aircraft, System.nanoTime()));
+		} catch (IllegalStateException ise) {
+			// interrupted while held back by a full queue, as the runtime closed.
+		}
+	}
+
+	/**
+	 * Apply contacts to the airspace until the runtime is closed, sampling each contact's latency.
+	 */
+	private void drain(int worker) {
+		long[] latencies = samples[worker];
+		while (true) {
+			Contact contact;
+			try {
+				contact = contacts.take();
+			} catch (InterruptedException ie) {
+				return;
+			}
+			airSpace.addAircraft(contact.aircraft);
+			latencies[(int) (sampleCounts[worker]++ % SAMPLES_PER_WORKER)] = System.nanoTime()
+					- contact.identifiedNanos;
+			applied.increment();
+		}
+	}
+
+	/**
+	 * @return true if the radar sites run on virtual threads.
+	 */
+	public boolean isVirtual() {
+		return virtual;
+	}
+
+	/**
+	 * @return Number of contacts identified by the radar sites.
+	 */
+	public long getIdentified() {
+		return identified.sum();
+	}
+
+	/**
+	 * @return Number of contacts applied to the airspace.
+	 */
+	public long getApplied() {
+		return applied.sum();
+	}
+
+	/**
+	 * @return Number of contacts that replaced a waiting contact for the same aircraft.
+	 */
+	public long getCoalesced() {
+		return contacts.getCoalesced();
+	}
+
+	/**
+	 * @return Contacts applied per second, from the start until now or until closed.
+	 */
+	public synchronized double getThroughput() {
+		long end = running ? System.nanoTime() : stopNanos;
+		return getApplied() / ((end - startNanos) / 1e9);
+	}
+
+	/**
+	 * Latency of the most recent contacts, from being identified to being applied. Only available once closed.
+	 *
+	 * @param percentile Percentile wanted, from 0 to 100.
+	 * @return The latency in nanoseconds, or zero if no contact was applied.
+	 * @throws IllegalStateException If the runtime is still running.
+	 */
+	public synchronized long getLatencyPercentile(double percentile) throws IllegalStateException {
+		if (running) {
+			throw new IllegalStateException();
+		}
+		int total = 0;
+		for (long count : sampleCounts) {
+			total += (int) Math.min(count, SAMPLES_PER_WORKER);
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long[] all = new long[total];
+		int filled = 0;
+		for (int worker = 0; worker < samples.length; worker++) {
+			int count = (int) Math.min(sampleCounts[worker], SAMPLES_PER_WORKER);
+			System.arraycopy(samples[worker], 0, all, filled, count);
+			filled += count;
+		}
+		Arrays.sort(all);
+		return all[(int) Math.min(total - 1, Math.max(0, Math.ceil(percentile / 100 * total) - 1))];
+	}
+
+	/**
+	 * Stop the radar sites and tracker workers, abandoning any contacts still waiting, and wait for them to finish.
+	 */
+	@Override
+	public synchronized void close() {
+		if (!running) {
+			return;
+		}
+		running = false;
+		stopNanos = System.nanoTime();
+		radars.shutdownNow();
+		for (Thread worker : workers) {
+			worker.interrupt();
+		}
+		try {
+			radars.awaitTermination(1, TimeUnit.MINUTES);
+			for (Thread worker : workers) {
+				worker.join();
+			}
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,205 @@
+package comp3506.assn1.application;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.LockSupport;
+
+
+/**
+ * Binary recording of radar contacts, used to replay a captured traffic pattern through the
+ * AirTrafficTracker. A trace is a small header followed by fixed size records, one per contact,
+ * so that a replay can memory-map the file and walk it without any parsing or allocation beyond
+ * the aircraft objects themselves.
+ *
+ * Record layout (big-endian):
+ * timestamp (long, nanoseconds since the recording started), id (long, packed by AircraftId),
+ * x (int), y (int), altitude (int), speed (int), course (double).
+ *
+ * A trace that ends part way through a record was truncated or corrupted, and is rejected rather
+ * than replayed without its last contact.
+ *
+ * @author Angus Trusler
+ *
+ */
+public class RadarTrace {
+
+	static final int MAGIC = 0x4F4E4553;		// "ONES"
+	static final int VERSION = 2;
+	static final int HEADER_SIZE = 8;
+	static final int RECORD_SIZE = 8 + 8 + 4 * 4 + 8;
+
+	// Largest region mapped at once. A MappedByteBuffer is indexed by int, so longer traces are walked in windows.
+	private static final long MAX_WINDOW = (Integer.MAX_VALUE / RECORD_SIZE) * (long) RECORD_SIZE;
+
+	private RadarTrace() {
+	}
+
+	/**
+	 * Replay a recorded trace through the tracker. Each contact is queued and then immediately processed.
+	 *
+	 * @param trace File holding the recorded trace.
+	 * @param tracker Tracker that receives the replayed contacts.
+	 * @param paced If true, contacts are released at the pace they were recorded, otherwise as fast as possible.
+	 * @return Number of contacts replayed.
+	 * @throws IOException If the trace cannot be read, is not a radar trace or ends part way through a record.
+	 */
+	public static long replay(Path trace, AirTrafficTracker tracker, boolean paced) throws IOException {
+		try (FileChannel channel = FileChannel.open(trace, StandardOpenOption.READ)) {
+			long records = countRecords(trace, channel);
+			long windowRecords = MAX_WINDOW / RECORD_SIZE;
+			long origin = -1;
+			long start = System.nanoTime();
+
+			for (long first = 0; first < records; first += windowRecords) {
+				long count = Math.min(windowRecords, records - first);
+				MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY,
+						                              HEADER_SIZE + first * RECORD_SIZE, count * RECORD_SIZE);
+				for (long i = 0; i < count; i++) {
+					long timestamp = window.getLong();
+					Aircraft aircraft = new Aircraft(window.getLong(), window.getInt(), window.getInt(),
+							                         window.getInt(), window.getInt(), window.getDouble());
+					if (paced) {
+						if (origin < 0) {
+							origin = timestamp;
+						}
+						waitUntil(start + (timestamp - origin));
+					}
+					tracker.newAircraft(aircraft);
+					tracker.processRadarQueue();
+				}
+			}
+			return records;
+		}
+	}
+
+	/**
+	 * Feed a recorded trace through a contact pipeline as fast as the pipeline accepts it.
+	 * Each record is submitted as a view of the mapped trace, so no record is copied.
+	 *
+	 * @param trace File holding the recorded trace.
+	 * @param pipeline Pipeline that receives the records.
+	 * @return Number of records submitted.
+	 * @throws IOException If the trace cannot be read, is not a radar trace or ends part way through a record.
+	 */
+	public static long replay(Path trace, ContactPipeline pipeline) throws IOException {
+		try (FileChannel channel = FileChannel.open(trace, StandardOpenOption.READ)) {
+			long records = countRecords(trace, channel);
+			long windowRecords = MAX_WINDOW / RECORD_SIZE;
+			for (long first = 0; first < records; first += windowRecords) {
+				long count = Math.min(windowRecords, records - first);
+				MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY,
+						                              HEADER_SIZE + first * RECORD_SIZE, count * RECORD_SIZE);
+				for (int i = 0; i < count; i++) {
+					pipeline.submit(window.slice(i * RECORD_SIZE, RECORD_SIZE));
+				}
+			}
+			return records;
+		}
+	}
+
+	/**
+	 * Check a trace's header and length.
+	 *
+	 * @return The number of records in the trace.
+	 * @throws IOException If the file is not a radar trace of this version, or ends part way through a record.
+	 */
+	private static long countRecords(Path trace, FileChannel channel) throws IOException {
+		long fileSize = channel.size();
+		if (fileSize < HEADER_SIZE) {
+			throw new IOException(trace + " is not a radar trace.");
+		}
+		MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+		if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+			throw new IOException(trace + " is not a version " + VERSION + " radar trace.");
+		}
+		long partial = (fileSize - HEADER_SIZE) % RECORD_SIZE;
+		if (partial != 0) {
+			throw new IOException(trace + " ends with " + partial + " bytes of a partial record.");
+		}
+		return (fileSize - HEADER_SIZE) / RECORD_SIZE;
+	}
+
+	/**
+	 * Park the calling thread until System.nanoTime() reaches the deadline.
+	 */
+	private static void waitUntil(long deadline) {
+		long remaining;
+		while ((remaining = deadline - System.nanoTime()) > 0) {
+			LockSupport.parkNanos(remaining);
+		}
+	}
+
+	/**
+	 * Captures radar contacts into a trace file as they are identified.
+	 * Records are buffered and written in blocks; close() must be called to flush the final block.
+	 */
+	public static class Recorder implements Closeable {
+
+		private static final int RECORDS_PER_BLOCK = 1024;
+
+		private final FileChannel channel;
+		private final ByteBuffer buffer;
+		private final long start;
+
+		/**
+		 * Create (or truncate) a trace file and write its header.
+		 *
+		 * @param trace File to record contacts into.
+		 * @throws IOException If the file cannot be created.
+		 */
+		public Recorder(Path trace) throws IOException {
+			channel = FileChannel.open(trace, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					                   StandardOpenOption.TRUNCATE_EXISTING);
+			buffer = ByteBuffer.allocateDirect(RECORD_SIZE * RECORDS_PER_BLOCK);
+			buffer.putInt(MAGIC).putInt(VERSION);
+			start = System.nanoTime();
+		}
+
+		/**
+		 * Append a contact to the trace.
+		 *
+		 * @param aircraft Contact to record.
+		 * @throws IOException If a full block could not be written.
+		 */
+		public void record(Aircraft aircraft) throws IOException {
+			if (buffer.remaining() < RECORD_SIZE) {
+				flush();
+			}
+			buffer.putLong(System.nanoTime() - start);
+			buffer.putLong(aircraft.getIdCode())
+			      .putInt(aircraft.getAirSpaceXCoord())
+			      .putInt(aircraft.getAirSpaceYCoord())
+			      .putInt(aircraft.getAltitude())
+			      .putInt(aircraft.getSpeed())
+			      .putDouble(aircraft.getCourse());
+		}
+
+		/**
+		 * Write any buffered records to the trace file.
+		 *
+		 * @throws IOException If the records could not be written.
+		 */
+		public void flush() throws IOException {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			buffer.clear();
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				flush();
+			} finally {
+				channel.close();
+			}
+		}
+	}
+
+}
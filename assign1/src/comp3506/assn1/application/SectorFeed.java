@@ -0,0 +1,246 @@
+package comp3506.assn1.application;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+import comp3506.assn1.adts.BoxIndex;
+import comp3506.assn1.adts.ChangeLog;
+
+
+/**
+ * Delivers the airspace's changes to subscribers that each watch a box of airspace, such as a sector display.
+ * The feed tails the airspace's change log and matches every change against a BoxIndex of the subscribed regions,
+ * so each change only tests the regions over its own tile rather than every subscription.
+ *
+ * A subscriber is told when an aircraft enters its region, leaves it or moves between cells within it. If the feed
+ * falls so far behind that the change log has overwritten changes it had not read, each subscriber is instead given
+ * the aircraft now in its region, from a snapshot of the airspace, and the feed carries on from there.
+ *
+ * @author Angus Trusler
+ *
+ */
+public class SectorFeed implements Closeable {
+
+	private static final int METRES_PER_KILOMETRE = 1000;
+	// Width of a tile in the index of regions, in kilometres.
+	private static final int REGION_TILE_SIZE = 64;
+
+	/**
+	 * Receives the changes within one region. Called on the thread polling the feed.
+	 */
+	public interface Listener {
+
+		/**
+		 * @param id Packed id of an aircraft that has entered the region, or been added inside it.
+		 * @param x X cell the aircraft entered.
+		 * @param y Y cell the aircraft entered.
+		 * @param z Z cell the aircraft entered.
+		 */
+		void entered(long id, int x, int y, int z);
+
+		/**
+		 * @param id Packed id of an aircraft that has left the region, or been removed inside it.
+		 * @param x X cell the aircraft left.
+		 * @param y Y cell the aircraft left.
+		 * @param z Z cell the aircraft left.
+		 */
+		void left(long id, int x, int y, int z);
+
+		/**
+		 * @param id Packed id of an aircraft that has moved from one cell to another within the region.
+		 * @param x X cell the aircraft moved to.
+		 * @param y Y cell the aircraft moved to.
+		 * @param z Z cell the aircraft moved to.
+		 */
+		void moved(long id, int x, int y, int z);
+
+		/**
+		 * Changes were missed; start again from the aircraft in the region now.
+		 *
+		 * @param aircraft Every aircraft in the region.
+		 */
+		void resynchronised(List<Aircraft> aircraft);
+	}
+
+	private final AirSpace airSpace;
+	private final BoxIndex regions;
+	private final List<Listener> listeners = new ArrayList<>();
+	private final ChangeLog.Reader reader;
+	private ScheduledExecutorService runner = null;
+	private final IntConsumer deliver = this::deliver;
+	private final IntConsumer deliverMove = this::deliverMove;
+
+	// Change being delivered, read by the region visitors.
+	private int kind;
+	private long key;
+	private int fromX;
+	private int fromY;
+	private int fromZ;
+	private int toX;
+	private int toY;
+	private int toZ;
+
+	/**
+	 * Start a feed of the changes made to the airspace from now on.
+	 *
+	 * @param airSpace Airspace to follow.
+	 */
+	public SectorFeed(AirSpace airSpace) {
+		this.airSpace = airSpace;
+		regions = new BoxIndex(airSpace.getLength(), airSpace.getBreadth(), REGION_TILE_SIZE);
+		ChangeLog changes = airSpace.getChangeLog();
+		reader = changes.reader(changes.nextSequence());
+	}
+
+	/**
+	 * Register a region of airspace. The subscriber is only told of changes from the next poll onwards.
+	 *
+	 * @param x0 Lowest x cell of the region.
+	 * @param y0 Lowest y cell of the region.
+	 * @param z0 Lowest z cell of the region.
+	 * @param x1 Highest x cell of the region, inclusive.
+	 * @param y1 Highest y cell of the region, inclusive.
+	 * @param z1 Highest z cell of the region, inclusive.
+	 * @param listener Receives the changes within the region.
+	 * @return The subscription's id, for unsubscribing.
+	 * @throws IllegalArgumentException If the region is empty or lies wholly outside the airspace.
+	 */
+	public synchronized int subscribe(int x0, int y0, int z0, int x1, int y1, int z1, Listener listener)
+			throws IllegalArgumentException {
+		int subscription = regions.add(x0, y0, z0, x1, y1, z1);
+		while (listeners.size() <= subscription) {
+			listeners.add(null);
+		}
+		listeners.set(subscription, listener);
+		return subscription;
+	}
+
+	/**
+	 * @param subscription Id of the subscription to remove.
+	 * @return true if the subscription existed.
+	 */
+	public synchronized boolean unsubscribe(int subscription) {
+		if (!regions.remove(subscription)) {
+			return false;
+		}
+		listeners.set(subscription, null);
+		return true;
+	}
+
+	/**
+	 * @return Number of subscriptions.
+	 */
+	public synchronized int subscriptions() {
+		return regions.size();
+	}
+
+	/**
+	 * Deliver every change made since the last poll to the subscribers whose regions it touches.
+	 *
+	 * @return Number of changes read, or -1 if the feed had fallen behind and resynchronised instead.
+	 */
+	public synchronized long poll() {
+		long read = 0;
+		while (reader.next()) {
+			kind = reader.getKind();
+			key = reader.getKey();
+			fromX = reader.getFromX();
+			fromY = reader.getFromY();
+			fromZ = reader.getFromZ();
+			toX = reader.getX();
+			toY = reader.getY();
+			toZ = reader.getZ();
+			if (kind == ChangeLog.MOVE) {
+				regions.forEachContainingEither(fromX, fromY, fromZ, toX, toY, toZ, deliverMove);
+			} else {
+				regions.forEachContaining(toX, toY, toZ, deliver);
+			}
+			read++;
+		}
+		if (reader.isLapped()) {
+			resynchronise();
+			return -1;
+		}
+		return read;
+	}
+
+	/**
+	 * Poll the feed repeatedly on a background thread until closed.
+	 *
+	 * @param periodMillis Delay between the end of one poll and the start of the next, in milliseconds.
+	 * @throws IllegalStateException If the feed is already running.
+	 */
+	public synchronized void start(long periodMillis) throws IllegalStateException {
+		if (runner != null) {
+			throw new IllegalStateException();
+		}
+		runner = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "sector-feed");
+			thread.setDaemon(true);
+			return thread;
+		});
+		runner.scheduleWithFixedDelay(this::poll, 0, periodMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stop polling in the background.
+	 */
+	@Override
+	public synchronized void close() {
+		if (runner != null) {
+			runner.shutdownNow();
+			runner = null;
+		}
+	}
+
+	/**
+	 * Deliver an ADD or REMOVE to a region containing its cell.
+	 */
+	private void deliver(int subscription) {
+		if (kind == ChangeLog.ADD) {
+			listeners.get(subscription).entered(key, toX, toY, toZ);
+		} else {
+			listeners.get(subscription).left(key, toX, toY, toZ);
+		}
+	}
+
+	/**
+	 * Deliver a MOVE to a region containing either of its cells.
+	 */
+	private void deliverMove(int subscription) {
+		boolean wasInside = regions.contains(subscription, fromX, fromY, fromZ);
+		boolean isInside = regions.contains(subscription, toX, toY, toZ);
+		if (wasInside && isInside) {
+			listeners.get(subscription).moved(key, toX, toY, toZ);
+		} else if (isInside) {
+			listeners.get(subscription).entered(key, toX, toY, toZ);
+		} else {
+			listeners.get(subscription).left(key, fromX, fromY, fromZ);
+		}
+	}
+
+	/**
+	 * Give every subscriber the aircraft now in its region, and carry on from the changes after the snapshot.
+	 */
+	private void resynchronise() {
+		List<List<Aircraft>> inside = new ArrayList<>(listeners.size());
+		for (int subscription = 0; subscription < listeners.size(); subscription++) {
+			inside.add(new ArrayList<>());
+		}
+		long sequence = airSpace.snapshot(aircraft -> regions.forEachContaining(aircraft.getAirSpaceXCoord(),
+				aircraft.getAirSpaceYCoord(), aircraft.getAltitude() / METRES_PER_KILOMETRE,
+				subscription -> inside.get(subscription).add(aircraft)));
+		reader.seek(sequence);
+		for (int subscription = 0; subscription < listeners.size(); subscription++) {
+			if (listeners.get(subscription) != null) {
+				listeners.get(subscription).resynchronised(inside.get(subscription));
+			}
+		}
+	}
+
+}
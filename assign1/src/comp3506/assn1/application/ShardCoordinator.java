@@ -0,0 +1,305 @@
+package comp3506.assn1.application;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import comp3506.assn1.adts.LongIntHashMap;
+
+
+/**
+ * Airspace split into x/y shards, each held by its own ShardServer process, so that the model is not limited to
+ * what one JVM can track. The coordinator starts the shard processes, talks to each over a loopback TCP connection,
+ * routes every radar contact to the shard that owns its position and moves aircraft between shards as they cross
+ * shard boundaries.
+ *
+ * Shards form a grid of columns and rows as near to square as the number of shards allows. Contacts and removals
+ * are pipelined without waiting for the shards; only advancing and counting wait for every shard to reply, and the
+ * shards do that work in parallel.
+ *
+ * @author Angus Trusler
+ *
+ */
+public class ShardCoordinator implements Closeable {
+
+	private final int length;
+	private final int breadth;
+	private final int height;
+	private final int columns;
+	private final int rows;
+	// First x cell of each column and first y cell of each row, with one past the last cell at the end.
+	private final int[] columnStarts;
+	private final int[] rowStarts;
+	private final Process[] processes;
+	private final Socket[] sockets;
+	private final DataInputStream[] inputs;
+	private final DataOutputStream[] outputs;
+	// Shard last sent each aircraft, until it flies out of the airspace.
+	private final LongIntHashMap owners = new LongIntHashMap();
+	private long migrations = 0;
+
+	/**
+	 * Start one shard process per shard and connect to each.
+	 *
+	 * @param length Length of the airspace.
+	 * @param breadth Breadth of the airspace.
+	 * @param height Height of the airspace.
+	 * @param shards Number of shards.
+	 * @throws IllegalArgumentException If there are fewer than one shard, or more shards than columns of cells.
+	 * @throws IOException If a shard process could not be started or connected to.
+	 */
+	public ShardCoordinator(int length, int breadth, int height, int shards)
+			throws IllegalArgumentException, IOException {
+		if (shards < 1 || shards > length + 1) {
+			throw new IllegalArgumentException();
+		}
+		this.length = length;
+		this.breadth = breadth;
+		this.height = height;
+		rows = rowsFor(shards);
+		columns = shards / rows;
+		columnStarts = starts(length + 1, columns);
+		rowStarts = starts(breadth + 1, rows);
+		processes = new Process[shards];
+		sockets = new Socket[shards];
+		inputs = new DataInputStream[shards];
+		outputs = new DataOutputStream[shards];
+		try {
+			for (int shard = 0; shard < shards; shard++) {
+				connect(shard);
+			}
+		} catch (IOException ioe) {
+			close();
+			throw ioe;
+		}
+	}
+
+	/**
+	 * @return Number of rows in the grid of shards: the largest divisor of the number of shards that is no more than
+	 *         its square root, so the grid is as near to square as it can be.
+	 */
+	static int rowsFor(int shards) {
+		int grid = (int) Math.sqrt(shards);
+		while (shards % grid != 0) {
+			grid--;
+		}
+		return grid;
+	}
+
+	/**
+	 * Split cells 0 to size - 1 into even runs, giving the first cell of each run followed by size.
+	 */
+	static int[] starts(int size, int runs) {
+		int[] starts = new int[runs + 1];
+		for (int run = 0; run <= runs; run++) {
+			starts[run] = (int) (((long) run * size + runs - 1) / runs);
+		}
+		return starts;
+	}
+
+	/**
+	 * @return Index of the run, of those given by starts(size, runs), that holds the cell.
+	 */
+	static int runOf(int cell, int size, int runs) {
+		return (int) ((long) cell * runs / size);
+	}
+
+	private void connect(int shard) throws IOException {
+		int column = shard % columns;
+		int row = shard / columns;
+		List<String> command = new ArrayList<>();
+		command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(ShardServer.class.getName());
+		for (int value : new int[] { length, breadth, height, columnStarts[column], rowStarts[row],
+				columnStarts[column + 1] - 1, rowStarts[row + 1] - 1 }) {
+			command.add(Integer.toString(value));
+		}
+		processes[shard] = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+		BufferedReader announcement = new BufferedReader(new InputStreamReader(processes[shard].getInputStream()));
+		String line = announcement.readLine();
+		if (line == null || !line.startsWith(ShardServer.PORT_ANNOUNCEMENT)) {
+			throw new IOException("Shard " + shard + " did not announce its port");
+		}
+		int port = Integer.parseInt(line.substring(ShardServer.PORT_ANNOUNCEMENT.length()).trim());
+		sockets[shard] = new Socket(InetAddress.getLoopbackAddress(), port);
+		sockets[shard].setTcpNoDelay(true);
+		inputs[shard] = new DataInputStream(new BufferedInputStream(sockets[shard].getInputStream()));
+		outputs[shard] = new DataOutputStream(new BufferedOutputStream(sockets[shard].getOutputStream()));
+	}
+
+	/**
+	 * @return Number of shard processes.
+	 */
+	public int getShardCount() {
+		return processes.length;
+	}
+
+	/**
+	 * @param x X cell.
+	 * @param y Y cell.
+	 * @return Index of the shard that owns the cell.
+	 * @throws IndexOutOfBoundsException If the cell is outside the airspace.
+	 */
+	public int shardOf(int x, int y) throws IndexOutOfBoundsException {
+		if (x < 0 || x > length || y < 0 || y > breadth) {
+			throw new IndexOutOfBoundsException();
+		}
+		return runOf(y, breadth + 1, rows) * columns + runOf(x, length + 1, columns);
+	}
+
+	/**
+	 * Route a radar contact to the shard that owns its position, seen at the current system time.
+	 *
+	 * @param aircraft Aircraft identified by a radar site.
+	 * @throws IndexOutOfBoundsException If the aircraft is outside the airspace.
+	 */
+	public void newAircraft(Aircraft aircraft) throws IndexOutOfBoundsException {
+		newAircraft(aircraft, System.currentTimeMillis());
+	}
+
+	/**
+	 * Route a radar contact to the shard that owns its position. If the aircraft was last held by another shard it is
+	 * removed from that shard first.
+	 *
+	 * @param aircraft Aircraft identified by a radar site.
+	 * @param time Time the aircraft was seen, in milliseconds.
+	 * @throws IndexOutOfBoundsException If the aircraft is outside the airspace.
+	 */
+	public synchronized void newAircraft(Aircraft aircraft, long time) throws IndexOutOfBoundsException {
+		int shard = shardOf(aircraft.getAirSpaceXCoord(), aircraft.getAirSpaceYCoord());
+		int previous = owners.put(aircraft.getIdCode(), shard);
+		try {
+			if (previous != LongIntHashMap.NO_VALUE && previous != shard) {
+				outputs[previous].writeByte(ShardServer.REMOVE);
+				outputs[previous].writeLong(aircraft.getIdCode());
+				migrations++;
+			}
+			send(shard, aircraft, time);
+		} catch (IOException ioe) {
+			throw new UncheckedIOException(ioe);
+		}
+	}
+
+	/**
+	 * Advance every shard's aircraft along their courses, then hand each aircraft that crossed into another shard to
+	 * its new owner. Aircraft that fly out of the airspace are dropped by their shard and forgotten, so one that
+	 * returns later is routed as a new aircraft rather than removed from its old shard.
+	 *
+	 * @param seconds Time elapsed.
+	 * @return The number of aircraft that changed shard.
+	 */
+	public synchronized int advance(double seconds) {
+		long time = System.currentTimeMillis();
+		int moved = 0;
+		try {
+			for (DataOutputStream output : outputs) {
+				output.writeByte(ShardServer.ADVANCE);
+				output.writeDouble(seconds);
+				output.flush();
+			}
+			List<Aircraft> emigrants = new ArrayList<>();
+			for (int shard = 0; shard < inputs.length; shard++) {
+				DataInputStream input = inputs[shard];
+				for (int remaining = input.readInt(); remaining > 0; remaining--) {
+					emigrants.add(ShardServer.readAircraft(input));
+				}
+				for (int remaining = input.readInt(); remaining > 0; remaining--) {
+					long id = input.readLong();
+					if (owners.get(id) == shard) {
+						owners.remove(id);
+					}
+				}
+			}
+			for (Aircraft aircraft : emigrants) {
+				int shard = shardOf(aircraft.getAirSpaceXCoord(), aircraft.getAirSpaceYCoord());
+				owners.put(aircraft.getIdCode(), shard);
+				send(shard, aircraft, time);
+				moved++;
+			}
+		} catch (IOException ioe) {
+			throw new UncheckedIOException(ioe);
+		}
+		migrations += moved;
+		return moved;
+	}
+
+	/**
+	 * Wait for every shard to process the contacts sent so far.
+	 *
+	 * @return The number of aircraft held across all shards.
+	 */
+	public synchronized int getAircraftCount() {
+		int count = 0;
+		try {
+			for (DataOutputStream output : outputs) {
+				output.writeByte(ShardServer.COUNT);
+				output.flush();
+			}
+			for (DataInputStream input : inputs) {
+				count += input.readInt();
+			}
+		} catch (IOException ioe) {
+			throw new UncheckedIOException(ioe);
+		}
+		return count;
+	}
+
+	/**
+	 * @return The number of times an aircraft has been moved from one shard to another.
+	 */
+	public synchronized long getMigrations() {
+		return migrations;
+	}
+
+	private void send(int shard, Aircraft aircraft, long time) throws IOException {
+		outputs[shard].writeByte(ShardServer.CONTACT);
+		ShardServer.writeAircraft(outputs[shard], aircraft);
+		outputs[shard].writeLong(time);
+	}
+
+	/**
+	 * Shut down every shard process and wait for it to exit.
+	 */
+	@Override
+	public synchronized void close() {
+		for (int shard = 0; shard < processes.length; shard++) {
+			try {
+				if (outputs[shard] != null) {
+					outputs[shard].writeByte(ShardServer.SHUTDOWN);
+					outputs[shard].flush();
+				}
+				if (sockets[shard] != null) {
+					sockets[shard].close();
+				}
+			} catch (IOException ioe) {
+				// the shard has already gone; make sure its process has too.
+			}
+			if (processes[shard] != null) {
+				if (sockets[shard] == null) {
+					// never connected, so still waiting for the coordinator.
+					processes[shard].destroy();
+				}
+				try {
+					processes[shard].waitFor();
+				} catch (InterruptedException ie) {
+					processes[shard].destroy();
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+	}
+
+}
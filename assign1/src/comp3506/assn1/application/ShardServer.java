@@ -0,0 +1,182 @@
+package comp3506.assn1.application;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+
+/**
+ * Tracker process that owns one rectangular shard of the airspace, on behalf of a ShardCoordinator.
+ * The server listens on an ephemeral loopback port, announces it on standard output as "PORT n" and then serves
+ * a single coordinator connection until told to shut down.
+ *
+ * The shard keeps a model of the whole airspace's dimensions but only holds the aircraft over its own x/y range.
+ * Contacts and removals are pipelined without replies; each advance replies with the aircraft that flew out of the
+ * shard but are still in the airspace, which the coordinator hands to their new owner, then with the ids of the
+ * aircraft that flew out of the airspace altogether, which the coordinator forgets.
+ *
+ * @author Angus Trusler
+ *
+ */
+public class ShardServer {
+
+	// Commands sent by the coordinator, each followed by its arguments.
+	static final int CONTACT = 1;		// id, x, y, altitude, speed, course, time
+	static final int REMOVE = 2;		// id
+	static final int ADVANCE = 3;		// seconds; replies with the emigrants, then the departures
+	static final int COUNT = 4;			// replies with the number of aircraft held
+	static final int SHUTDOWN = 5;
+
+	static final String PORT_ANNOUNCEMENT = "PORT ";
+
+	private final AirSpace airSpace;
+	private final int lowX;
+	private final int lowY;
+	private final int highX;
+	private final int highY;
+	private final List<Aircraft> emigrants = new ArrayList<>();
+	// Ids of the aircraft dropped by the last advance for leaving the airspace.
+	private long[] departures = new long[16];
+	private int departureCount = 0;
+	private final LongConsumer departed = id -> {
+		if (departureCount == departures.length) {
+			departures = Arrays.copyOf(departures, departureCount * 2);
+		}
+		departures[departureCount++] = id;
+	};
+
+	/**
+	 * @param length Length of the whole airspace.
+	 * @param breadth Breadth of the whole airspace.
+	 * @param height Height of the whole airspace.
+	 * @param lowX Lowest x cell owned by this shard.
+	 * @param lowY Lowest y cell owned by this shard.
+	 * @param highX Highest x cell owned by this shard, inclusive.
+	 * @param highY Highest y cell owned by this shard, inclusive.
+	 */
+	public ShardServer(int length, int breadth, int height, int lowX, int lowY, int highX, int highY) {
+		airSpace = new AirSpace(length, breadth, height);
+		this.lowX = lowX;
+		this.lowY = lowY;
+		this.highX = highX;
+		this.highY = highY;
+	}
+
+	/**
+	 * Serve one coordinator connection until it sends SHUTDOWN or disconnects.
+	 *
+	 * @param socket Connection to the coordinator.
+	 * @throws IOException If the connection fails.
+	 */
+	public void serve(Socket socket) throws IOException {
+		socket.setTcpNoDelay(true);
+		DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+		while (true) {
+			int command;
+			try {
+				command = in.readByte();
+			} catch (EOFException eof) {
+				return;
+			}
+			switch (command) {
+			case CONTACT:
+				Aircraft aircraft = readAircraft(in);
+				airSpace.addAircraft(aircraft, in.readLong());
+				break;
+			case REMOVE:
+				airSpace.removeAircraft(in.readLong());
+				break;
+			case ADVANCE:
+				departureCount = 0;
+				airSpace.advance(in.readDouble(), departed);
+				writeEmigrants(out);
+				out.writeInt(departureCount);
+				for (int i = 0; i < departureCount; i++) {
+					out.writeLong(departures[i]);
+				}
+				out.flush();
+				break;
+			case COUNT:
+				out.writeInt(airSpace.getAircraftCount());
+				out.flush();
+				break;
+			case SHUTDOWN:
+				return;
+			default:
+				throw new IOException("Unknown shard command " + command);
+			}
+		}
+	}
+
+	/**
+	 * Remove every aircraft that has flown out of this shard and send it back to the coordinator.
+	 */
+	private void writeEmigrants(DataOutputStream out) throws IOException {
+		emigrants.clear();
+		airSpace.snapshot(aircraft -> {
+			if (!owns(aircraft.getAirSpaceXCoord(), aircraft.getAirSpaceYCoord())) {
+				emigrants.add(aircraft);
+			}
+		});
+		out.writeInt(emigrants.size());
+		for (Aircraft aircraft : emigrants) {
+			airSpace.removeAircraft(aircraft.getIdCode());
+			writeAircraft(out, aircraft);
+		}
+	}
+
+	private boolean owns(int x, int y) {
+		return x >= lowX && x <= highX && y >= lowY && y <= highY;
+	}
+
+	static void writeAircraft(DataOutputStream out, Aircraft aircraft) throws IOException {
+		out.writeLong(aircraft.getIdCode());
+		out.writeInt(aircraft.getAirSpaceXCoord());
+		out.writeInt(aircraft.getAirSpaceYCoord());
+		out.writeInt(aircraft.getAltitude());
+		out.writeInt(aircraft.getSpeed());
+		out.writeFloat((float) aircraft.getCourse());
+	}
+
+	static Aircraft readAircraft(DataInputStream in) throws IOException {
+		return new Aircraft(in.readLong(), in.readInt(), in.readInt(), in.readInt(), in.readInt(), in.readFloat());
+	}
+
+	/**
+	 * Run a shard process.
+	 *
+	 * @param args length breadth height lowX lowY highX highY
+	 * @throws IOException If the coordinator connection fails.
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 7) {
+			System.out.println("Usage: java ShardServer length breadth height lowX lowY highX highY");
+			return;
+		}
+		int[] values = new int[args.length];
+		for (int i = 0; i < args.length; i++) {
+			values[i] = Integer.parseInt(args[i]);
+		}
+		ShardServer shard = new ShardServer(values[0], values[1], values[2], values[3], values[4], values[5],
+				values[6]);
+		try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+			System.out.println(PORT_ANNOUNCEMENT + server.getLocalPort());
+			System.out.flush();
+			try (Socket socket = server.accept()) {
+				shard.serve(socket);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,110 @@
+package comp3506.assn1.adts;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+public class BoundedQueueTest {
+
+	@Test(timeout = 500, expected = IndexOutOfBoundsException.class)
+	public void testDequeueEmptyQueue() {
+		new BoundedQueue<Object>(4, BoundedQueue.Overflow.REJECT).dequeue();
+	}
+
+	@Test(timeout = 500)
+	public void testFifoAcrossWrap() {
+		BoundedQueue<Integer> queue = new BoundedQueue<>(3,
+				BoundedQueue.Overflow.REJECT);
+		queue.enqueue(1);
+		queue.enqueue(2);
+		queue.dequeue();
+		queue.enqueue(3);
+		queue.enqueue(4);
+		Iterator<Integer> it = queue.iterator();
+		assertThat("Iterator out of order.", it.next(), is(equalTo(2)));
+		assertThat("Iterator out of order.", it.next(), is(equalTo(3)));
+		assertThat("Iterator out of order.", it.next(), is(equalTo(4)));
+		assertThat("Iterator past the end.", it.hasNext(), is(equalTo(false)));
+		assertThat("Dequeue out of order.", queue.dequeue(), is(equalTo(2)));
+	}
+
+	@Test(timeout = 500)
+	public void testRejectWhenFull() {
+		BoundedQueue<Integer> queue = new BoundedQueue<>(2,
+				BoundedQueue.Overflow.REJECT);
+		queue.enqueue(1);
+		queue.enqueue(2);
+		try {
+			queue.enqueue(3);
+		} catch (IllegalStateException ise) {
+			assertThat("Rejection not counted.", queue.getRejected(),
+					is(equalTo(1L)));
+			assertThat("Rejected element queued.", queue.size(), is(equalTo(2)));
+			return;
+		}
+		throw new AssertionError("Full queue accepted an element.");
+	}
+
+	@Test(timeout = 500)
+	public void testDropOldestWhenFull() {
+		BoundedQueue<Integer> queue = new BoundedQueue<>(2,
+				BoundedQueue.Overflow.DROP_OLDEST);
+		queue.enqueue(1);
+		queue.enqueue(2);
+		queue.enqueue(3);
+		assertThat("Drop not counted.", queue.getShed(), is(equalTo(1L)));
+		assertThat("Oldest element not dropped.", queue.dequeue(),
+				is(equalTo(2)));
+		assertThat("Newest element lost.", queue.dequeue(), is(equalTo(3)));
+	}
+
+	@Test(timeout = 500)
+	public void testCoalesceKeepsPlaceAndNewest() {
+		// key is the tens digit, so 11 replaces 10.
+		BoundedQueue<Integer> queue = new BoundedQueue<>(2,
+				BoundedQueue.Overflow.REJECT, element -> element / 10);
+		queue.enqueue(10);
+		queue.enqueue(20);
+		queue.enqueue(11);
+		assertThat("Update for a queued key not coalesced.", queue.size(),
+				is(equalTo(2)));
+		assertThat("Coalesce not counted.", queue.getCoalesced(),
+				is(equalTo(1L)));
+		assertThat("Coalesced element lost its place.", queue.dequeue(),
+				is(equalTo(11)));
+		queue.enqueue(12);
+		assertThat("Dequeued key still coalesced.", queue.size(),
+				is(equalTo(2)));
+		assertThat("Wrong element dequeued.", queue.dequeue(), is(equalTo(20)));
+	}
+
+	@Test(timeout = 2000)
+	public void testBlockedProducerResumes() throws InterruptedException {
+		BoundedQueue<Integer> queue = new BoundedQueue<>(4,
+				BoundedQueue.Overflow.BLOCK);
+		Thread producer = new Thread(() -> {
+			for (int i = 0; i < 1000; i++) {
+				queue.enqueue(i);
+			}
+		});
+		producer.start();
+		List<Integer> taken = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			taken.add(queue.take());
+		}
+		producer.join();
+		for (int i = 0; i < 1000; i++) {
+			assertThat("Element lost or out of order.", taken.get(i),
+					is(equalTo(i)));
+		}
+		assertThat("Blocking queue shed elements.", queue.getShed(),
+				is(equalTo(0L)));
+	}
+
+}
@@ -0,0 +1,101 @@
+package comp3506.assn1.adts;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class BoxIndexTest {
+
+	@Test(timeout = 500, expected = IllegalArgumentException.class)
+	public void testEmptyBox() {
+		BoxIndex index = new BoxIndex(100, 100, 10);
+		index.add(5, 5, 5, 4, 5, 5);
+	}
+
+	@Test(timeout = 500)
+	public void testFindsOnlyContainingBoxes() {
+		BoxIndex index = new BoxIndex(100, 100, 10);
+		int low = index.add(0, 0, 0, 50, 50, 10);
+		int high = index.add(0, 0, 11, 50, 50, 20);
+		int far = index.add(60, 60, 0, 100, 100, 20);
+		List<Integer> found = new ArrayList<>();
+		index.forEachContaining(25, 25, 15, found::add);
+		assertThat("Wrong number of boxes found.", found.size(), is(equalTo(1)));
+		assertThat("Wrong box found.", found.get(0), is(equalTo(high)));
+		found.clear();
+		index.forEachContaining(100, 100, 0, found::add);
+		assertThat("Box at edge not found.", found.get(0), is(equalTo(far)));
+		assertThat("Point outside the area found a box.",
+				index.forEachContaining(101, 5, 5, found::add), is(equalTo(0)));
+		assertThat("Wrong box contains point.", index.contains(low, 25, 25, 5),
+				is(equalTo(true)));
+	}
+
+	@Test(timeout = 500)
+	public void testEitherVisitsEachBoxOnce() {
+		BoxIndex index = new BoxIndex(100, 100, 10);
+		int wide = index.add(0, 0, 0, 100, 100, 10);
+		int from = index.add(0, 0, 0, 9, 9, 10);
+		int to = index.add(90, 90, 0, 99, 99, 10);
+		List<Integer> found = new ArrayList<>();
+		index.forEachContainingEither(5, 5, 5, 95, 95, 5, found::add);
+		Collections.sort(found);
+		List<Integer> expected = new ArrayList<>();
+		Collections.addAll(expected, wide, from, to);
+		Collections.sort(expected);
+		assertThat("Wrong boxes visited.", found, is(equalTo(expected)));
+	}
+
+	@Test(timeout = 500)
+	public void testRemoveReusesId() {
+		BoxIndex index = new BoxIndex(100, 100, 10);
+		int first = index.add(0, 0, 0, 30, 30, 10);
+		index.add(0, 0, 0, 30, 30, 10);
+		assertThat("Box not removed.", index.remove(first), is(equalTo(true)));
+		assertThat("Box removed twice.", index.remove(first), is(equalTo(false)));
+		assertThat("Wrong number of boxes found.",
+				index.forEachContaining(15, 15, 5, id -> {
+				}), is(equalTo(1)));
+		assertThat("Id not reused.", index.add(50, 50, 0, 60, 60, 10),
+				is(equalTo(first)));
+	}
+
+	@Test(timeout = 2000)
+	public void testMatchesEveryBoxTested() {
+		BoxIndex index = new BoxIndex(1000, 1000, 64);
+		Random random = new Random(3506);
+		int[][] boxes = new int[300][];
+		for (int i = 0; i < boxes.length; i++) {
+			int x = random.nextInt(1000);
+			int y = random.nextInt(1000);
+			int z = random.nextInt(30);
+			boxes[i] = new int[] { x, y, z, x + random.nextInt(200),
+					y + random.nextInt(200), z + random.nextInt(5) };
+			index.add(boxes[i][0], boxes[i][1], boxes[i][2], boxes[i][3],
+					boxes[i][4], boxes[i][5]);
+		}
+		for (int point = 0; point < 1000; point++) {
+			int x = random.nextInt(1001);
+			int y = random.nextInt(1001);
+			int z = random.nextInt(35);
+			int expected = 0;
+			for (int[] box : boxes) {
+				if (x >= box[0] && x <= box[3] && y >= box[1] && y <= box[4]
+						&& z >= box[2] && z <= box[5]) {
+					expected++;
+				}
+			}
+			assertThat("Wrong number of boxes found.",
+					index.forEachContaining(x, y, z, id -> {
+					}), is(equalTo(expected)));
+		}
+	}
+
+}
@@ -0,0 +1,161 @@
+package comp3506.assn1.adts;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+public class BucketedPriorityQueueTest {
+
+	// Level of a test element is its tens digit.
+	private static BucketedPriorityQueue<Integer> newQueue(int burst) {
+		return new BucketedPriorityQueue<>(3, burst, element -> element / 10);
+	}
+
+	@Test(timeout = 500, expected = IndexOutOfBoundsException.class)
+	public void testDequeueEmptyQueue() {
+		newQueue(4).dequeue();
+	}
+
+	@Test(timeout = 500, expected = IllegalArgumentException.class)
+	public void testLevelOutOfRange() {
+		newQueue(4).enqueue(30);
+	}
+
+	@Test(timeout = 500)
+	public void testEnqueueAtGivenLevel() {
+		BucketedPriorityQueue<Integer> queue = newQueue(4);
+		queue.enqueue(20);
+		// filed at level 0 whatever the classifier would say.
+		queue.enqueue(21, 0);
+		assertThat("Given level ignored.", queue.size(0), is(equalTo(1)));
+		assertThat("Given level ignored.", queue.dequeue(), is(equalTo(21)));
+	}
+
+	@Test(timeout = 500, expected = IllegalArgumentException.class)
+	public void testGivenLevelOutOfRange() {
+		newQueue(4).enqueue(0, 3);
+	}
+
+	@Test(timeout = 500)
+	public void testUrgentFirstThenFifo() {
+		BucketedPriorityQueue<Integer> queue = newQueue(4);
+		queue.enqueue(20);
+		queue.enqueue(21);
+		queue.enqueue(0);
+		queue.enqueue(1);
+		assertThat("Wrong size.", queue.size(), is(equalTo(4)));
+		assertThat("Wrong level size.", queue.size(2), is(equalTo(2)));
+		assertThat("Urgent element not first.", queue.peek(), is(equalTo(0)));
+		assertThat("Urgent element not first.", queue.dequeue(), is(equalTo(0)));
+		assertThat("Urgent elements out of order.", queue.dequeue(),
+				is(equalTo(1)));
+		assertThat("Routine elements out of order.", queue.dequeue(),
+				is(equalTo(20)));
+		assertThat("Routine elements out of order.", queue.dequeue(),
+				is(equalTo(21)));
+		assertThat("Queue not empty.", queue.size(), is(equalTo(0)));
+	}
+
+	@Test(timeout = 500)
+	public void testWaitingLevelNotStarved() {
+		BucketedPriorityQueue<Integer> queue = newQueue(2);
+		queue.enqueue(20);
+		queue.enqueue(10);
+		for (int i = 0; i < 6; i++) {
+			queue.enqueue(0);
+		}
+		List<Integer> order = new ArrayList<>();
+		while (queue.size() > 0) {
+			order.add(queue.dequeue());
+		}
+		List<Integer> expected = new ArrayList<>();
+		for (int element : new int[] { 0, 0, 10, 0, 0, 20, 0, 0 }) {
+			expected.add(element);
+		}
+		assertThat("Waiting levels not served in turn.", order,
+				is(equalTo(expected)));
+	}
+
+	@Test(timeout = 500)
+	public void testBusyLevelsDoNotStarveLeastUrgent() {
+		// as the tracker: three levels, burst 8, the top two kept full.
+		BucketedPriorityQueue<Integer> queue = new BucketedPriorityQueue<>(3,
+				8, element -> element / 10);
+		queue.enqueue(0);
+		queue.enqueue(10);
+		for (int i = 0; i < 1000; i++) {
+			queue.enqueue(20);
+		}
+		int[] served = new int[3];
+		for (int i = 0; i < 18000; i++) {
+			int element = queue.dequeue();
+			served[element / 10]++;
+			if (element < 20) {
+				queue.enqueue(element);
+			}
+		}
+		assertThat("Least urgent level starved.", served[2],
+				is(equalTo(1000)));
+		assertThat("Turns not shared between waiting levels.", served[1],
+				is(equalTo(1000)));
+		queue.enqueue(20);
+		for (int i = 0; i < 18; i++) {
+			if (queue.dequeue() == 20) {
+				return;
+			}
+		}
+		throw new AssertionError("Waiting level not served within "
+				+ "(burst + 1) * (levels - 1) dequeues.");
+	}
+
+	@Test(timeout = 500)
+	public void testGrowKeepsOrder() {
+		BucketedPriorityQueue<Integer> queue = new BucketedPriorityQueue<>(1,
+				1, element -> 0);
+		int next = 0;
+		// wrap the ring before it grows.
+		for (int i = 0; i < 10; i++) {
+			queue.enqueue(i);
+		}
+		for (int i = 0; i < 10; i++) {
+			queue.dequeue();
+			next++;
+		}
+		for (int i = 10; i < 100; i++) {
+			queue.enqueue(i);
+		}
+		Iterator<Integer> it = queue.iterator();
+		for (int i = next; i < 100; i++) {
+			assertThat("Iterator out of order.", it.next(), is(equalTo(i)));
+		}
+		assertThat("Iterator past the end.", it.hasNext(), is(equalTo(false)));
+		for (int i = next; i < 100; i++) {
+			assertThat("Dequeue out of order.", queue.dequeue(), is(equalTo(i)));
+		}
+	}
+
+	@Test(timeout = 500)
+	public void testIteratorByLevel() {
+		BucketedPriorityQueue<Integer> queue = newQueue(4);
+		queue.enqueue(21);
+		queue.enqueue(11);
+		queue.enqueue(1);
+		queue.enqueue(12);
+		List<Integer> seen = new ArrayList<>();
+		for (Integer element : queue) {
+			seen.add(element);
+		}
+		List<Integer> expected = new ArrayList<>();
+		for (int element : new int[] { 1, 11, 12, 21 }) {
+			expected.add(element);
+		}
+		assertThat("Iterator not in level order.", seen, is(equalTo(expected)));
+	}
+
+}
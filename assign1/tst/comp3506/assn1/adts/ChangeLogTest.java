@@ -0,0 +1,110 @@
+package comp3506.assn1.adts;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class ChangeLogTest {
+
+	@Test(timeout = 500)
+	public void testReadInOrder() {
+		ChangeLog log = new ChangeLog(8);
+		log.append(ChangeLog.ADD, 7, 1, 2, 3, 1, 2, 3);
+		log.append(ChangeLog.MOVE, 7, 1, 2, 3, 4, 5, 6);
+		ChangeLog.Reader reader = log.reader(0);
+		assertThat("First change not read.", reader.next(), is(equalTo(true)));
+		assertThat("Wrong kind.", reader.getKind(), is(equalTo(ChangeLog.ADD)));
+		assertThat("Second change not read.", reader.next(), is(equalTo(true)));
+		assertThat("Wrong sequence.", reader.getSequence(), is(equalTo(1L)));
+		assertThat("Wrong key.", reader.getKey(), is(equalTo(7L)));
+		assertThat("Wrong source cell.", reader.getFromX(), is(equalTo(1)));
+		assertThat("Wrong destination cell.", reader.getZ(), is(equalTo(6)));
+		assertThat("Read past the writer.", reader.next(), is(equalTo(false)));
+		assertThat("Caught up reader lapped.", reader.isLapped(),
+				is(equalTo(false)));
+	}
+
+	@Test(timeout = 500, expected = IllegalStateException.class)
+	public void testNoChangeBeforeNext() {
+		ChangeLog log = new ChangeLog(8);
+		log.append(ChangeLog.ADD, 7, 1, 2, 3, 1, 2, 3);
+		log.reader(0).getKey();
+	}
+
+	@Test(timeout = 500)
+	public void testReadersKeepOwnPace() {
+		ChangeLog log = new ChangeLog(8);
+		for (int key = 0; key < 5; key++) {
+			log.append(ChangeLog.ADD, key, 0, 0, 0, 0, 0, 0);
+		}
+		ChangeLog.Reader slow = log.reader(0);
+		ChangeLog.Reader fast = log.reader(0);
+		while (fast.next()) {
+		}
+		slow.next();
+		assertThat("Fast reader not caught up.", fast.lag(), is(equalTo(0L)));
+		assertThat("Slow reader moved by fast reader.", slow.getKey(),
+				is(equalTo(0L)));
+		assertThat("Wrong lag.", slow.lag(), is(equalTo(4L)));
+	}
+
+	@Test(timeout = 500)
+	public void testLappedReaderResynchronises() {
+		ChangeLog log = new ChangeLog(4);
+		ChangeLog.Reader reader = log.reader(0);
+		for (int key = 0; key < 6; key++) {
+			log.append(ChangeLog.ADD, key, 0, 0, 0, 0, 0, 0);
+		}
+		assertThat("Overwritten change read.", reader.next(),
+				is(equalTo(false)));
+		assertThat("Reader not lapped.", reader.isLapped(), is(equalTo(true)));
+		reader.seek(log.nextSequence() - 1);
+		assertThat("Reader still lapped.", reader.isLapped(),
+				is(equalTo(false)));
+		assertThat("Latest change not read.", reader.next(), is(equalTo(true)));
+		assertThat("Wrong change read.", reader.getKey(), is(equalTo(5L)));
+	}
+
+	@Test(timeout = 500, expected = IllegalArgumentException.class)
+	public void testSeekPastWriter() {
+		ChangeLog log = new ChangeLog(4);
+		log.reader(1);
+	}
+
+	@Test(timeout = 10000)
+	public void testConcurrentReaderNeverSeesTornChange() throws InterruptedException {
+		ChangeLog log = new ChangeLog(64);
+		int changes = 200000;
+		AtomicReference<String> failure = new AtomicReference<>();
+		Thread tailer = new Thread(() -> {
+			ChangeLog.Reader reader = log.reader(0);
+			long expected = 0;
+			while (expected < changes) {
+				if (reader.isLapped()) {
+					reader.seek(log.nextSequence());
+					expected = reader.position();
+				} else if (reader.next()) {
+					long key = reader.getKey();
+					if (reader.getSequence() != expected || key != expected
+							|| reader.getX() != (int) key
+							|| reader.getFromZ() != (int) -key) {
+						failure.set("Torn or out of order change at " + expected);
+						return;
+					}
+					expected++;
+				}
+			}
+		});
+		tailer.start();
+		for (int key = 0; key < changes; key++) {
+			log.append(ChangeLog.MOVE, key, 0, 0, -key, key, 0, 0);
+		}
+		tailer.join();
+		assertThat(failure.get(), failure.get() == null, is(equalTo(true)));
+	}
+
+}
@@ -0,0 +1,95 @@
+package comp3506.assn1.adts;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class CountRankingTest {
+
+	@Test(timeout = 500)
+	public void testEmpty() {
+		CountRanking ranking = new CountRanking();
+		assertThat("Empty ranking has keys.",
+				ranking.top(new long[3], new int[3]), is(equalTo(0)));
+		assertThat("Empty ranking has a count.", ranking.highestCount(),
+				is(equalTo(0)));
+		assertThat("Missing key decremented.", ranking.decrement(7),
+				is(equalTo(-1)));
+	}
+
+	@Test(timeout = 500)
+	public void testTopIsHighestFirst() {
+		CountRanking ranking = new CountRanking();
+		for (int i = 0; i < 3; i++) {
+			ranking.increment(1);
+		}
+		ranking.increment(2);
+		for (int i = 0; i < 2; i++) {
+			ranking.increment(3);
+		}
+		long[] keys = new long[2];
+		int[] counts = new int[2];
+		assertThat("Wrong number of keys read.", ranking.top(keys, counts),
+				is(equalTo(2)));
+		assertThat("Wrong busiest key.", keys[0], is(equalTo(1L)));
+		assertThat("Wrong busiest count.", counts[0], is(equalTo(3)));
+		assertThat("Wrong second key.", keys[1], is(equalTo(3L)));
+	}
+
+	@Test(timeout = 500)
+	public void testKeyForgottenAtZero() {
+		CountRanking ranking = new CountRanking();
+		ranking.increment(0);
+		ranking.increment(5);
+		ranking.increment(5);
+		assertThat("Wrong count.", ranking.decrement(0), is(equalTo(0)));
+		assertThat("Key not forgotten.", ranking.size(), is(equalTo(1)));
+		ranking.decrement(5);
+		ranking.decrement(5);
+		assertThat("Highest count not lowered.", ranking.highestCount(),
+				is(equalTo(0)));
+	}
+
+	@Test(timeout = 2000)
+	public void testMatchesCountsUnderChurn() {
+		CountRanking ranking = new CountRanking();
+		Map<Long, Integer> expected = new HashMap<>();
+		Random random = new Random(3506);
+		for (int i = 0; i < 20000; i++) {
+			long key = random.nextInt(50);
+			if (random.nextInt(3) == 0 && expected.containsKey(key)) {
+				ranking.decrement(key);
+				expected.merge(key, -1, Integer::sum);
+				expected.remove(key, 0);
+			} else {
+				ranking.increment(key);
+				expected.merge(key, 1, Integer::sum);
+			}
+		}
+		List<Integer> expectedCounts = new ArrayList<>(expected.values());
+		Collections.sort(expectedCounts, Collections.reverseOrder());
+		long[] keys = new long[10];
+		int[] counts = new int[10];
+		int found = ranking.top(keys, counts);
+		assertThat("Wrong number of keys read.", found,
+				is(equalTo(Math.min(10, expected.size()))));
+		for (int i = 0; i < found; i++) {
+			assertThat("Wrong count ranked.", counts[i],
+					is(equalTo(expectedCounts.get(i))));
+			assertThat("Count does not match key.", ranking.count(keys[i]),
+					is(equalTo(expected.get(keys[i]))));
+		}
+		assertThat("Wrong number of keys.", ranking.size(),
+				is(equalTo(expected.size())));
+	}
+
+}
@@ -0,0 +1,91 @@
+package comp3506.assn1.adts;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+public class LayeredGridTest {
+
+	@Test(timeout = 500, expected = IndexOutOfBoundsException.class)
+	public void testPutOutOfBounds() {
+		LayeredGrid grid = new LayeredGrid(100, 100, 5, 10);
+		grid.put(1, 50, 50, 5);
+	}
+
+	@Test(timeout = 500)
+	public void testLevelHoldsOnlyItsHandles() {
+		LayeredGrid grid = new LayeredGrid(100, 100, 5, 10);
+		grid.put(1, 10, 10, 2);
+		grid.put(2, 90, 90, 2);
+		grid.put(3, 10, 10, 3);
+		List<Integer> found = new ArrayList<>();
+		assertThat("Wrong number of handles visited.",
+				grid.forEachInLevel(2, found::add), is(equalTo(2)));
+		Collections.sort(found);
+		assertThat("Wrong handles visited.", found.get(0), is(equalTo(1)));
+		assertThat("Wrong handles visited.", found.get(1), is(equalTo(2)));
+		assertThat("Level was wrong size.", grid.levelSize(3), is(equalTo(1)));
+	}
+
+	@Test(timeout = 500)
+	public void testBandSpansLevels() {
+		LayeredGrid grid = new LayeredGrid(100, 100, 5, 10);
+		for (int level = 0; level < 5; level++) {
+			grid.put(level, 0, 0, level);
+		}
+		List<Integer> found = new ArrayList<>();
+		grid.forEachInBand(1, 3, found::add);
+		Collections.sort(found);
+		assertThat("Wrong handles visited.", found.toString(),
+				is(equalTo("[1, 2, 3]")));
+	}
+
+	@Test(timeout = 500)
+	public void testPutMovesHandle() {
+		LayeredGrid grid = new LayeredGrid(100, 100, 5, 10);
+		grid.put(1, 10, 10, 2);
+		grid.put(1, 80, 80, 4);
+		assertThat("Grid was wrong size.", grid.size(), is(equalTo(1)));
+		assertThat("Handle left on old level.", grid.levelSize(2),
+				is(equalTo(0)));
+		List<Integer> found = new ArrayList<>();
+		grid.forEachInBox(75, 75, 85, 85, 4, 4, found::add);
+		assertThat("Moved handle not found.", found.size(), is(equalTo(1)));
+	}
+
+	@Test(timeout = 500)
+	public void testBoxFiltersWithinTiles() {
+		LayeredGrid grid = new LayeredGrid(100, 100, 5, 10);
+		grid.put(1, 11, 11, 1);
+		grid.put(2, 15, 15, 1);
+		grid.put(3, 19, 19, 2);
+		grid.put(4, 15, 15, 3);
+		List<Integer> found = new ArrayList<>();
+		grid.forEachInBox(12, 12, 100, 100, 1, 2, found::add);
+		Collections.sort(found);
+		assertThat("Wrong handles visited.", found.toString(),
+				is(equalTo("[2, 3]")));
+	}
+
+	@Test(timeout = 500)
+	public void testRemove() {
+		LayeredGrid grid = new LayeredGrid(100, 100, 5, 10);
+		grid.put(1, 10, 10, 2);
+		grid.put(2, 10, 10, 2);
+		grid.put(3, 10, 10, 2);
+		assertThat("Handle not removed.", grid.remove(2), is(equalTo(true)));
+		assertThat("Handle removed twice.", grid.remove(2), is(equalTo(false)));
+		List<Integer> found = new ArrayList<>();
+		grid.forEachInBox(0, 0, 100, 100, 0, 4, found::add);
+		Collections.sort(found);
+		assertThat("Wrong handles remained.", found.toString(),
+				is(equalTo("[1, 3]")));
+	}
+
+}
@@ -0,0 +1,144 @@
+package comp3506.assn1.adts;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+import java.util.Iterator;
+
+public class LinkedTraversableQueueTest {
+
+	@Test(timeout = 500, expected = IndexOutOfBoundsException.class)
+	public void testDequeueEmptyQueue() {
+		IterableQueue<Object> testQueue = new LinkedTraversableQueue<>();
+		testQueue.dequeue(); // Nothing to dequeue.
+	}
+
+	@Test(timeout = 500)
+	public void testFirstInFirstOut() {
+		IterableQueue<Object> testQueue = new LinkedTraversableQueue<>();
+		Object element1 = new Object();
+		Object element2 = new Object();
+		testQueue.enqueue(element1);
+		testQueue.enqueue(element2);
+		assertThat("Oldest element not dequeued first.", testQueue.dequeue(),
+				is(equalTo(element1)));
+		assertThat("Newest element not dequeued last.", testQueue.dequeue(),
+				is(equalTo(element2)));
+	}
+
+	@Test(timeout = 500)
+	public void testPeekIsOldest() {
+		LinkedTraversableQueue<Object> testQueue = new LinkedTraversableQueue<>();
+		Object element1 = new Object();
+		testQueue.enqueue(element1);
+		testQueue.enqueue(new Object());
+		assertThat("Peek did not return the oldest element.", testQueue.peek(),
+				is(equalTo(element1)));
+		assertThat("Peek changed the size.", testQueue.size(), is(equalTo(2)));
+	}
+
+	@Test(timeout = 500)
+	public void testRemoveByHandleFromMiddle() {
+		LinkedTraversableQueue<Object> testQueue = new LinkedTraversableQueue<>();
+		Object element1 = new Object();
+		Object element2 = new Object();
+		Object element3 = new Object();
+		testQueue.enqueue(element1);
+		LinkedTraversableQueue.Node<Object> handle = testQueue
+				.enqueueWithHandle(element2);
+		testQueue.enqueue(element3);
+		assertThat("Element not removed.", testQueue.remove(handle),
+				is(equalTo(true)));
+		assertThat("Queue was wrong size.", testQueue.size(), is(equalTo(2)));
+		Iterator<Object> it = testQueue.iterator();
+		assertThat("Wrong element remained.", it.next(), is(equalTo(element1)));
+		assertThat("Wrong element remained.", it.next(), is(equalTo(element3)));
+		assertThat("Removed element still iterated.", it.hasNext(),
+				is(equalTo(false)));
+	}
+
+	@Test(timeout = 500)
+	public void testRemoveByHandleHeadAndTail() {
+		LinkedTraversableQueue<Object> testQueue = new LinkedTraversableQueue<>();
+		LinkedTraversableQueue.Node<Object> head = testQueue
+				.enqueueWithHandle(new Object());
+		Object middle = new Object();
+		testQueue.enqueue(middle);
+		LinkedTraversableQueue.Node<Object> tail = testQueue
+				.enqueueWithHandle(new Object());
+		testQueue.remove(head);
+		testQueue.remove(tail);
+		assertThat("Queue was wrong size.", testQueue.size(), is(equalTo(1)));
+		assertThat("Wrong element remained.", testQueue.dequeue(),
+				is(equalTo(middle)));
+		testQueue.enqueue(middle);
+		assertThat("Queue unusable after removals.", testQueue.peek(),
+				is(equalTo(middle)));
+	}
+
+	@Test(timeout = 500)
+	public void testHandleOnlyRemovesOnce() {
+		LinkedTraversableQueue<Object> testQueue = new LinkedTraversableQueue<>();
+		LinkedTraversableQueue.Node<Object> handle = testQueue
+				.enqueueWithHandle(new Object());
+		testQueue.enqueue(new Object());
+		testQueue.remove(handle);
+		assertThat("Handle removed twice.", testQueue.remove(handle),
+				is(equalTo(false)));
+		assertThat("Queue was wrong size.", testQueue.size(), is(equalTo(1)));
+	}
+
+	@Test(timeout = 500)
+	public void testHandleFromOtherQueue() {
+		LinkedTraversableQueue<Object> testQueue = new LinkedTraversableQueue<>();
+		LinkedTraversableQueue<Object> otherQueue = new LinkedTraversableQueue<>();
+		testQueue.enqueue(new Object());
+		LinkedTraversableQueue.Node<Object> handle = otherQueue
+				.enqueueWithHandle(new Object());
+		assertThat("Removed another queue's element.",
+				testQueue.remove(handle), is(equalTo(false)));
+	}
+
+	@Test(timeout = 500)
+	public void testRemoveByElement() {
+		LinkedTraversableQueue<Object> testQueue = new LinkedTraversableQueue<>();
+		Object element = new Object();
+		testQueue.enqueue(element);
+		assertThat("Element not removed.", testQueue.remove(element),
+				is(equalTo(true)));
+		assertThat("Queue was wrong size.", testQueue.size(), is(equalTo(0)));
+		assertThat("Element removed twice.", testQueue.remove(element),
+				is(equalTo(false)));
+	}
+
+	@Test(timeout = 500)
+	public void testPooledNodeReusedByAnotherQueue() {
+		LinkedTraversableQueue.NodePool<Integer> pool =
+				new LinkedTraversableQueue.NodePool<>(1);
+		LinkedTraversableQueue<Integer> first = new LinkedTraversableQueue<>(
+				pool);
+		LinkedTraversableQueue<Integer> second = new LinkedTraversableQueue<>(
+				pool);
+		LinkedTraversableQueue.Node<Integer> handle = first
+				.enqueueWithHandle(1);
+		first.enqueue(2);
+		first.dequeue();
+		first.dequeue();
+		assertThat("Pool over capacity.", pool.size(), is(equalTo(1)));
+		LinkedTraversableQueue.Node<Integer> reused = second
+				.enqueueWithHandle(3);
+		assertThat("Pooled node not reused.", reused, is(sameInstance(handle)));
+		assertThat("Reused node kept its old element.", reused.getItem(),
+				is(equalTo(3)));
+		assertThat("Node removed through its old queue.", first.remove(handle),
+				is(equalTo(false)));
+		second.remove(reused);
+		assertThat("Pooled node kept its element.", reused.getItem(),
+				is(nullValue()));
+	}
+
+}
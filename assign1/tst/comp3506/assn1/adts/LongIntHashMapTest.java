@@ -0,0 +1,78 @@
+package comp3506.assn1.adts;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class LongIntHashMapTest {
+
+	@Test(timeout = 500)
+	public void testGetMissingKey() {
+		LongIntHashMap map = new LongIntHashMap();
+		assertThat("Missing key returned a value.", map.get(42),
+				is(equalTo(LongIntHashMap.NO_VALUE)));
+	}
+
+	@Test(timeout = 500)
+	public void testPutAndGet() {
+		LongIntHashMap map = new LongIntHashMap();
+		map.put(42, 7);
+		map.put(-3, 8);
+		assertThat("Stored value not returned.", map.get(42), is(equalTo(7)));
+		assertThat("Stored value not returned.", map.get(-3), is(equalTo(8)));
+		assertThat("Map was wrong size.", map.size(), is(equalTo(2)));
+	}
+
+	@Test(timeout = 500)
+	public void testPutReplaces() {
+		LongIntHashMap map = new LongIntHashMap();
+		map.put(42, 7);
+		assertThat("Previous value not returned.", map.put(42, 9),
+				is(equalTo(7)));
+		assertThat("Replaced value not returned.", map.get(42), is(equalTo(9)));
+		assertThat("Map was wrong size.", map.size(), is(equalTo(1)));
+	}
+
+	@Test(timeout = 500)
+	public void testZeroKey() {
+		LongIntHashMap map = new LongIntHashMap();
+		map.put(0, 5);
+		assertThat("Zero key value not returned.", map.get(0), is(equalTo(5)));
+		assertThat("Zero key not removed.", map.remove(0), is(equalTo(5)));
+		assertThat("Zero key still present.", map.get(0),
+				is(equalTo(LongIntHashMap.NO_VALUE)));
+		assertThat("Map was wrong size.", map.size(), is(equalTo(0)));
+	}
+
+	@Test(timeout = 500)
+	public void testRemoveKeepsOtherKeysReachable() {
+		LongIntHashMap map = new LongIntHashMap();
+		for (int i = 1; i <= 1000; i++) {
+			map.put(i * 31L, i);
+		}
+		for (int i = 1; i <= 1000; i += 2) {
+			assertThat("Removed key had wrong value.", map.remove(i * 31L),
+					is(equalTo(i)));
+		}
+		for (int i = 1; i <= 1000; i++) {
+			int expected = i % 2 == 0 ? i : LongIntHashMap.NO_VALUE;
+			assertThat("Wrong value after removals.", map.get(i * 31L),
+					is(equalTo(expected)));
+		}
+		assertThat("Map was wrong size.", map.size(), is(equalTo(500)));
+	}
+
+	@Test(timeout = 500)
+	public void testClear() {
+		LongIntHashMap map = new LongIntHashMap();
+		map.put(1, 1);
+		map.put(0, 0);
+		map.clear();
+		assertThat("Map not empty after clear.", map.size(), is(equalTo(0)));
+		assertThat("Key still present after clear.", map.get(1),
+				is(equalTo(LongIntHashMap.NO_VALUE)));
+	}
+
+}
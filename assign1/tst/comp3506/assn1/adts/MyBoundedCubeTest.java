@@ -1,11 +1,25 @@
-package adts;
+package comp3506.assn1.adts;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertThat;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
 import org.junit.Test;
 
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
 public class MyBoundedCubeTest {
 
 	// ################## TEST INDEX OUT OF BOUNDS #################
@@ -127,6 +141,158 @@ public class MyBoundedCubeTest {
 	
 	
 
+	@Test(timeout = 500)
+	public void testRemoveLastElementRemovesCell() {
+		Cube<Object> testCube = new BoundedCube<>(5, 5, 5);
+		Object element = new Object();
+		testCube.add(1, 1, 1, element);
+		testCube.remove(1, 1, 1, element);
+		assertThat("Empty cell still in the cube.", testCube.cursor().next(),
+				is(equalTo(false)));
+	}
+
+	@Test(timeout = 2000)
+	public void testRemoveManyCellsKeepsOthersReachable() {
+		Cube<Integer> testCube = new BoundedCube<>(10, 10, 10);
+		java.util.Random random = new java.util.Random(3506);
+		int[][] coords = new int[300][];
+		for (int i = 0; i < coords.length; i++) {
+			coords[i] = new int[] { random.nextInt(11), random.nextInt(11),
+					random.nextInt(11) };
+			testCube.add(coords[i][0], coords[i][1], coords[i][2], i);
+		}
+		// remove every other element, then check every remaining one is
+		// still found and the removed ones are gone.
+		for (int i = 0; i < coords.length; i += 2) {
+			assertThat("Element not removed.", testCube.remove(coords[i][0],
+					coords[i][1], coords[i][2], i), is(equalTo(true)));
+		}
+		int remaining = 0;
+		for (int i = 0; i < coords.length; i++) {
+			IterableQueue<Integer> cell = testCube.getAll(coords[i][0],
+					coords[i][1], coords[i][2]);
+			boolean found = false;
+			if (cell != null) {
+				for (Integer element : cell) {
+					found |= element == i;
+				}
+			}
+			assertThat("Wrong element found after removals.", found,
+					is(equalTo(i % 2 == 1)));
+			remaining += i % 2;
+		}
+		assertThat("Cube streamed wrong number of elements.",
+				testCube.stream().count(), is(equalTo((long) remaining)));
+	}
+
+	@Test(timeout = 500)
+	public void testRemoveByHandle() {
+		Cube<Object> testCube = new BoundedCube<>(5, 5, 5);
+		Object element1 = new Object();
+		Object element2 = new Object();
+		testCube.add(1, 1, 1, element1);
+		Object handle = testCube.addWithHandle(1, 1, 1, element2);
+		assertThat("Element not removed.", testCube.removeByHandle(handle),
+				is(equalTo(true)));
+		assertThat("Wrong element removed.", testCube.get(1, 1, 1),
+				is(equalTo(element1)));
+		assertThat("Handle removed twice.", testCube.removeByHandle(handle),
+				is(equalTo(false)));
+	}
+
+	@Test(timeout = 500)
+	public void testRemoveByHandleRemovesEmptyCell() {
+		Cube<Object> testCube = new BoundedCube<>(5, 5, 5);
+		Object handle = testCube.addWithHandle(2, 3, 4, new Object());
+		testCube.add(2, 3, 1, new Object());
+		testCube.removeByHandle(handle);
+		assertThat("Removed element still in cube.", testCube.get(2, 3, 4),
+				is(equalTo(null)));
+		assertThat("Wrong number of elements left.", testCube.stream().count(),
+				is(equalTo(1L)));
+	}
+
+	@Test(timeout = 500)
+	public void testRemoveByHandleFromOtherCube() {
+		Cube<Object> testCube = new BoundedCube<>(5, 5, 5);
+		Cube<Object> otherCube = new BoundedCube<>(5, 5, 5);
+		testCube.add(1, 1, 1, new Object());
+		Object handle = otherCube.addWithHandle(1, 1, 1, new Object());
+		assertThat("Removed another cube's element.",
+				testCube.removeByHandle(handle), is(equalTo(false)));
+		assertThat("Handle not usable on its own cube.",
+				otherCube.removeByHandle(handle), is(equalTo(true)));
+	}
+
+	@Test(timeout = 500)
+	public void testRemoveByHandleFirstOfSeveral() {
+		Cube<Object> testCube = new BoundedCube<>(5, 5, 5);
+		Object element1 = new Object();
+		Object element2 = new Object();
+		Object element3 = new Object();
+		Object handle = testCube.addWithHandle(1, 1, 1, element1);
+		testCube.add(1, 1, 1, element2);
+		testCube.add(1, 1, 1, element3);
+		assertThat("Element not removed.", testCube.removeByHandle(handle),
+				is(equalTo(true)));
+		assertThat("Oldest remaining element not returned.",
+				testCube.get(1, 1, 1), is(equalTo(element2)));
+		assertThat("Cell was wrong size.", testCube.getAll(1, 1, 1).size(),
+				is(equalTo(2)));
+	}
+
+	@Test(timeout = 500)
+	public void testStaleHandleRemovesNothing() {
+		Cube<Object> testCube = new BoundedCube<>(5, 5, 5);
+		Object element1 = new Object();
+		Object element2 = new Object();
+		Object handle = testCube.addWithHandle(1, 1, 1, element1);
+		testCube.add(1, 1, 1, element2);
+		testCube.remove(1, 1, 1, element1);
+		Object element3 = new Object();
+		testCube.add(1, 1, 1, element3);
+		assertThat("Stale handle removed an element.",
+				testCube.removeByHandle(handle), is(equalTo(false)));
+		assertThat("Cell was wrong size.", testCube.getAll(1, 1, 1).size(),
+				is(equalTo(2)));
+	}
+
+	@Test(timeout = 500)
+	public void testHandleAfterRemoveAllOrClear() {
+		Cube<Object> testCube = new BoundedCube<>(5, 5, 5);
+		Object removedHandle = testCube.addWithHandle(1, 1, 1, new Object());
+		Object removedOverflow = testCube.addWithHandle(1, 1, 1, new Object());
+		Object clearedHandle = testCube.addWithHandle(2, 2, 2, new Object());
+		testCube.removeAll(1, 1, 1);
+		assertThat("Handle to removed cell removed an element.",
+				testCube.removeByHandle(removedHandle), is(equalTo(false)));
+		assertThat("Handle to removed cell removed an element.",
+				testCube.removeByHandle(removedOverflow), is(equalTo(false)));
+		testCube.clear();
+		Object element = new Object();
+		testCube.add(3, 3, 3, element);
+		assertThat("Handle to cleared cell removed an element.",
+				testCube.removeByHandle(clearedHandle), is(equalTo(false)));
+		assertThat("Cube changed by stale handle.", testCube.get(3, 3, 3),
+				is(equalTo(element)));
+	}
+
+	@Test(timeout = 500)
+	public void testDequeueLastElementRemovesCell() {
+		Cube<Object> testCube = new BoundedCube<>(5, 5, 5);
+		Object element1 = new Object();
+		Object element2 = new Object();
+		testCube.add(1, 1, 1, element1);
+		testCube.add(1, 1, 1, element2);
+		IterableQueue<Object> queue = testCube.getAll(1, 1, 1);
+		assertThat("Oldest element not dequeued first.", queue.dequeue(),
+				is(equalTo(element1)));
+		assertThat("Newest element not dequeued last.", queue.dequeue(),
+				is(equalTo(element2)));
+		assertThat("Empty cell still visited.", testCube.cursor().next(),
+				is(equalTo(false)));
+	}
+
 	// ######################## TEST GET ALL #################################
 
 	@Test(timeout = 500)
@@ -203,4 +369,290 @@ public class MyBoundedCubeTest {
 					assertThat("", testCube.get(i, j, k), is(equalTo(null)));
 	}
 
+	// ########################### TEST CURSOR #############################
+
+	@Test(timeout = 500)
+	public void testCursorEmptyCube() {
+		Cube<Object> testCube = new BoundedCube<>(5, 5, 5);
+		assertThat("Empty cube has an occupied cell.", testCube.cursor().next(),
+				is(equalTo(false)));
+	}
+
+	@Test(timeout = 500)
+	public void testCursorVisitsEachCellOnce() {
+		Cube<Object> testCube = new BoundedCube<>(5, 5, 5);
+		testCube.add(4, 4, 4, new Object());
+		testCube.add(1, 1, 1, new Object());
+		testCube.add(1, 1, 1, new Object());
+		testCube.add(1, 3, 1, new Object());
+		testCube.add(1, 3, 2, new Object());
+		testCube.add(0, 2, 3, new Object());
+		CellCursor<Object> cursor = testCube.cursor();
+		int cells = 0;
+		int elements = 0;
+		while (cursor.next()) {
+			++cells;
+			elements += cursor.size();
+			assertThat("Cursor cell does not match cube.", cursor.getAll(),
+					is(equalTo(testCube.getAll(cursor.getX(), cursor.getY(),
+							cursor.getZ()))));
+		}
+		assertThat("Wrong number of cells visited.", cells, is(equalTo(5)));
+		assertThat("Wrong number of elements visited.", elements,
+				is(equalTo(6)));
+	}
+
+	@Test(timeout = 500)
+	public void testCursorSkipsEmptiedCell() {
+		Cube<Object> testCube = new BoundedCube<>(5, 5, 5);
+		Object element = new Object();
+		testCube.add(1, 1, 1, element);
+		testCube.add(2, 2, 2, new Object());
+		testCube.remove(1, 1, 1, element);
+		CellCursor<Object> cursor = testCube.cursor();
+		assertThat("Occupied cell not visited.", cursor.next(),
+				is(equalTo(true)));
+		assertThat("Empty cell visited.", cursor.getX(), is(equalTo(2)));
+		assertThat("Cell visited twice.", cursor.next(), is(equalTo(false)));
+		cursor.reset();
+		assertThat("Reset cursor did not restart.", cursor.next(),
+				is(equalTo(true)));
+	}
+
+	// ########################### TEST STREAMS ############################
+
+	@Test(timeout = 500)
+	public void testStreamEmptyCube() {
+		Cube<Object> testCube = new BoundedCube<>(5, 5, 5);
+		assertThat("Empty cube streamed elements.", testCube.stream().count(),
+				is(equalTo(0L)));
+	}
+
+	@Test(timeout = 500)
+	public void testStreamEntryCoordinates() {
+		Cube<Object> testCube = new BoundedCube<>(5, 5, 5);
+		Object element = new Object();
+		testCube.add(3, 2, 1, element);
+		CubeEntry<Object> entry = testCube.stream().findFirst().get();
+		assertThat("Entry had wrong x.", entry.getX(), is(equalTo(3)));
+		assertThat("Entry had wrong y.", entry.getY(), is(equalTo(2)));
+		assertThat("Entry had wrong z.", entry.getZ(), is(equalTo(1)));
+		assertThat("Entry had wrong element.", entry.getElement(),
+				is(equalTo(element)));
+	}
+
+	@Test(timeout = 2000)
+	public void testParallelStreamVisitsEveryElement() {
+		Cube<Integer> testCube = new BoundedCube<>(20, 20, 20);
+		int expected = 0;
+		for (int i = 0; i < 20; i++)
+			for (int j = 0; j < 20; j++)
+				for (int k = 0; k < 20; k += 3) {
+					testCube.add(i, j, k, i + j + k);
+					testCube.add(j, i, k, 1);
+					expected += i + j + k + 1;
+				}
+		assertThat("Spliterator size was wrong.",
+				testCube.spliterator().getExactSizeIfKnown(),
+				is(equalTo(20L * 20 * 7 * 2)));
+		assertThat("Parallel stream missed elements.", testCube
+				.parallelStream().mapToInt(CubeEntry::getElement).sum(),
+				is(equalTo(expected)));
+	}
+
+
+	@Test(timeout = 500)
+	public void testPooledCellReusedAtNewCoordinates() {
+		BoundedCube<Object> testCube = new BoundedCube<>(5, 5, 5, 4);
+		Object first = new Object();
+		Object second = new Object();
+		Object handle = testCube.addWithHandle(1, 1, 1, first);
+		testCube.add(2, 2, 2, new Object());
+		testCube.removeByHandle(handle);
+		testCube.add(3, 3, 3, second);
+		assertThat("Removed cell still held an element.", testCube.get(1, 1, 1),
+				is(nullValue()));
+		assertThat("Reused cell lost the new element.", testCube.get(3, 3, 3),
+				is(equalTo(second)));
+		assertThat("Reused cell counted twice.",
+				testCube.spliterator().getExactSizeIfKnown(), is(equalTo(2L)));
+		assertThat("Reused cell held stale elements.",
+				testCube.isMultipleElementsAt(3, 3, 3), is(equalTo(false)));
+	}
+
+	@Test(timeout = 500)
+	public void testPooledNodeReusedByAnotherCell() {
+		BoundedCube<Object> testCube = new BoundedCube<>(5, 5, 5, 4);
+		testCube.add(1, 1, 1, new Object());
+		Object handle = testCube.addWithHandle(1, 1, 1, new Object());
+		testCube.add(2, 2, 2, new Object());
+		testCube.removeByHandle(handle);
+		Object element = new Object();
+		Object reused = testCube.addWithHandle(2, 2, 2, element);
+		assertThat("Queue node not reused.", reused, is(sameInstance(handle)));
+		assertThat("Reused node lost its element.",
+				testCube.isMultipleElementsAt(2, 2, 2), is(equalTo(true)));
+		assertThat("Removed element still held.",
+				testCube.isMultipleElementsAt(1, 1, 1), is(equalTo(false)));
+		assertThat("Element not removed by its handle.",
+				testCube.removeByHandle(reused), is(equalTo(true)));
+		assertThat("Cell lost its first element.", testCube.get(2, 2, 2),
+				is(notNullValue()));
+	}
+
+	@Test(timeout = 500)
+	public void testPoolDiscardedByClear() {
+		BoundedCube<Object> testCube = new BoundedCube<>(5, 5, 5, 4);
+		Object handle = testCube.addWithHandle(1, 1, 1, new Object());
+		testCube.add(1, 1, 1, new Object());
+		testCube.removeAll(1, 1, 1);
+		testCube.clear();
+		Object element = new Object();
+		testCube.add(2, 2, 2, element);
+		assertThat("Handle from before clear removed an element.",
+				testCube.removeByHandle(handle), is(equalTo(false)));
+		assertThat("Element lost.", testCube.get(2, 2, 2), is(equalTo(element)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativePoolCapacity() {
+		new BoundedCube<Object>(5, 5, 5, -1);
+	}
+
+
+	@Test(timeout = 10000)
+	public void testLookupEventRecordsSteps() throws Exception {
+		Cube<Object> testCube = new BoundedCube<>(5, 5, 5);
+		testCube.add(1, 1, 1, new Object());
+		testCube.add(2, 1, 1, new Object());
+		testCube.add(2, 3, 1, new Object());
+		Path file = Files.createTempFile("lookup", ".jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable("comp3506.CubeLookup");
+			recording.start();
+			testCube.get(2, 3, 1);
+			recording.stop();
+			recording.dump(file);
+		}
+		List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+		Files.delete(file);
+		assertThat("Lookup not recorded.", events.size(), is(equalTo(1)));
+		RecordedEvent event = events.get(0);
+		assertThat("Wrong x steps.", event.getInt("xSteps"), is(equalTo(1)));
+		assertThat("Wrong y steps.", event.getInt("ySteps"), is(equalTo(1)));
+		assertThat("Wrong cells visited.", event.getInt("cellsVisited"),
+				is(equalTo(3)));
+		assertThat("Lookup not found.", event.getBoolean("found"),
+				is(equalTo(true)));
+	}
+
+	@Test(timeout = 10000)
+	public void testQueueScanEventRecordsCellRemove() throws Exception {
+		Cube<Object> testCube = new BoundedCube<>(5, 5, 5);
+		Object element1 = new Object();
+		Object element2 = new Object();
+		Object element3 = new Object();
+		testCube.add(1, 1, 1, element1);
+		testCube.add(1, 1, 1, element2);
+		testCube.add(1, 1, 1, element3);
+		Path file = Files.createTempFile("scan", ".jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable("comp3506.QueueScan");
+			recording.start();
+			// the first element is inline, the others in the cell's queue.
+			testCube.remove(1, 1, 1, element3);
+			recording.stop();
+			recording.dump(file);
+		}
+		List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+		Files.delete(file);
+		assertThat("Scan not recorded.", events.size(), is(equalTo(1)));
+		RecordedEvent event = events.get(0);
+		assertThat("Wrong nodes scanned.", event.getInt("nodesScanned"),
+				is(equalTo(2)));
+		assertThat("Wrong queue size.", event.getInt("size"), is(equalTo(2)));
+		assertThat("Element not found.", event.getBoolean("found"),
+				is(equalTo(true)));
+	}
+
+
+	@Test(timeout = 500)
+	public void testWalksNotTrackedByDefault() {
+		BoundedCube<Object> testCube = new BoundedCube<>(5, 5, 5);
+		assertThat("Walks tracked by default.", testCube.getLookupWalks(),
+				is(nullValue()));
+	}
+
+	@Test(timeout = 500)
+	public void testWalkStepsPerAxis() {
+		BoundedCube<Object> testCube = new BoundedCube<>(5, 5, 5);
+		testCube.add(1, 1, 1, new Object());
+		testCube.add(2, 1, 1, new Object());
+		testCube.add(2, 3, 1, new Object());
+		testCube.add(2, 3, 4, new Object());
+		testCube.trackWalks(true);
+		testCube.get(2, 3, 4);
+		BoundedCube.WalkStatistics walks = testCube.getLookupWalks();
+		assertThat("Lookup not recorded.", walks.getWalks(), is(equalTo(1L)));
+		assertThat("Wrong x steps.", walks.getXSteps().getMax(), is(equalTo(1)));
+		assertThat("Wrong y steps.", walks.getYSteps().getMax(), is(equalTo(1)));
+		assertThat("Wrong z steps.", walks.getZSteps().getMax(), is(equalTo(1)));
+		testCube.add(3, 3, 3, new Object());
+		assertThat("Insert not recorded.",
+				testCube.getInsertWalks().getWalks(), is(equalTo(1L)));
+	}
+
+	@Test(timeout = 500)
+	public void testChainLengths() {
+		BoundedCube<Object> testCube = new BoundedCube<>(5, 5, 5);
+		testCube.add(1, 1, 1, new Object());
+		testCube.add(1, 1, 2, new Object());
+		testCube.add(1, 1, 3, new Object());
+		testCube.add(1, 2, 1, new Object());
+		testCube.add(2, 1, 1, new Object());
+		BoundedCube.ChainStatistics chains = testCube.getChainLengths();
+		assertThat("Wrong x chain.", chains.getXChain(), is(equalTo(2)));
+		assertThat("Wrong number of y chains.", chains.getYChains().getCount(),
+				is(equalTo(2L)));
+		assertThat("Wrong longest y chain.", chains.getYChains().getMax(),
+				is(equalTo(2)));
+		assertThat("Wrong number of z chains.", chains.getZChains().getCount(),
+				is(equalTo(3L)));
+		assertThat("Wrong longest z chain.", chains.getZChains().getMax(),
+				is(equalTo(3)));
+	}
+
+
+	@Test(timeout = 5000)
+	public void testRandomOperationsMatchModel() {
+		// express lanes must survive cells joining and leaving the x branch
+		// in any order, including the root, reused cells and reused lane
+		// arrays.
+		BoundedCube<Integer> testCube = new BoundedCube<>(200, 4, 3, 16);
+		Map<Integer, Integer> model = new HashMap<>();
+		Random random = new Random(49);
+		for (int i = 0; i < 20000; i++) {
+			int x = random.nextInt(200);
+			int y = random.nextInt(4);
+			int z = random.nextInt(3);
+			int key = (x * 4 + y) * 3 + z;
+			if (random.nextInt(3) == 0) {
+				testCube.removeAll(x, y, z);
+				model.remove(key);
+			} else if (!model.containsKey(key)) {
+				testCube.add(x, y, z, i);
+				model.put(key, i);
+			}
+		}
+		for (int x = 0; x < 200; x++)
+			for (int y = 0; y < 4; y++)
+				for (int z = 0; z < 3; z++) {
+					assertThat("Cube and model differ.", testCube.get(x, y, z),
+							is(equalTo(model.get((x * 4 + y) * 3 + z))));
+				}
+		assertThat("Wrong number of cells.",
+				testCube.getChainLengths().getZChains().getTotal(),
+				is(equalTo((long) model.size())));
+	}
+
 }
@@ -1,4 +1,4 @@
-package adts;
+package comp3506.assn1.adts;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
@@ -249,6 +249,28 @@ public class MyTraversableQueueTest {
 				testQueue.remove(element3), is(equalTo(false)));
 	}
 	
+	// ########################### TEST STREAMS ###########################
+	
+	@Test(timeout = 500)
+	public void testSpliteratorIsSized() {
+		TraversableQueue<Object> testQueue = new TraversableQueue<>();
+		testQueue.enqueue(new Object());
+		testQueue.enqueue(new Object());
+		assertThat("Spliterator size was wrong.",
+				testQueue.spliterator().getExactSizeIfKnown(), is(equalTo(2L)));
+	}
+	
+	@Test(timeout = 500)
+	public void testParallelStreamSum() {
+		TraversableQueue<Integer> testQueue = new TraversableQueue<>();
+		for (int i = 1; i <= 5000; i++) {
+			testQueue.enqueue(i);
+		}
+		assertThat("Parallel stream missed elements.",
+				testQueue.parallelStream().mapToLong(Integer::longValue).sum(),
+				is(equalTo(5000L * 5001 / 2)));
+	}
+	
 	
 	
 	
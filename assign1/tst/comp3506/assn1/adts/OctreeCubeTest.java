@@ -0,0 +1,175 @@
+package comp3506.assn1.adts;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import org.junit.Test;
+
+public class OctreeCubeTest {
+
+	@Test(timeout = 500, expected = IllegalArgumentException.class)
+	public void testNegativeSize() {
+		new OctreeCube<Object>(-1, 5, 5);
+	}
+
+	@Test(timeout = 500, expected = IndexOutOfBoundsException.class)
+	public void testIndexOutOfBounds() {
+		new OctreeCube<Object>(5, 5, 5).add(1, 6, 1, new Object());
+	}
+
+	@Test(timeout = 500)
+	public void testAddGetAtUpperBounds() {
+		Cube<Integer> cube = new OctreeCube<>(5321, 3428, 35);
+		cube.add(5321, 3428, 35, 1);
+		cube.add(0, 0, 0, 2);
+		cube.add(5321, 3428, 35, 3);
+		assertThat("Oldest element not returned.", cube.get(5321, 3428, 35),
+				is(equalTo(1)));
+		assertThat("Multiple elements not found.",
+				cube.isMultipleElementsAt(5321, 3428, 35), is(equalTo(true)));
+		assertThat("Element at origin lost.", cube.get(0, 0, 0),
+				is(equalTo(2)));
+		assertThat("Empty cell not null.", cube.get(1, 1, 1), is(nullValue()));
+	}
+
+	@Test(timeout = 500)
+	public void testSplitAndMergeKeepElements() {
+		OctreeCube<Integer> cube = new OctreeCube<>(5321, 3428, 35);
+		// a cluster around one point, far more than one leaf holds.
+		for (int i = 0; i < 500; i++) {
+			cube.add(1000 + i % 10, 2000 + i / 10, i % 3, i);
+		}
+		assertThat("Cells miscounted.", cube.cellCount(), is(equalTo(500)));
+		for (int i = 0; i < 500; i++) {
+			assertThat("Element lost in split.",
+					cube.get(1000 + i % 10, 2000 + i / 10, i % 3), is(equalTo(i)));
+		}
+		for (int i = 0; i < 497; i++) {
+			cube.removeAll(1000 + i % 10, 2000 + i / 10, i % 3);
+		}
+		assertThat("Cells miscounted.", cube.cellCount(), is(equalTo(3)));
+		for (int i = 497; i < 500; i++) {
+			assertThat("Element lost in merge.",
+					cube.get(1000 + i % 10, 2000 + i / 10, i % 3), is(equalTo(i)));
+		}
+	}
+
+	@Test(timeout = 500)
+	public void testHandles() {
+		OctreeCube<Integer> cube = new OctreeCube<>(100, 100, 10);
+		Object first = cube.addWithHandle(5, 5, 5, 1);
+		Object second = cube.addWithHandle(5, 5, 5, 2);
+		assertThat("Handle not removed.", cube.removeByHandle(first),
+				is(equalTo(true)));
+		assertThat("Handle removed twice.", cube.removeByHandle(first),
+				is(equalTo(false)));
+		assertThat("Wrong element removed.", cube.get(5, 5, 5), is(equalTo(2)));
+		assertThat("Foreign handle removed.",
+				new OctreeCube<Integer>(100, 100, 10).removeByHandle(second),
+				is(equalTo(false)));
+		cube.clear();
+		cube.add(5, 5, 5, 3);
+		assertThat("Handle from before clear removed.",
+				cube.removeByHandle(second), is(equalTo(false)));
+		assertThat("Element lost.", cube.get(5, 5, 5), is(equalTo(3)));
+	}
+
+	@Test(timeout = 500)
+	public void testDequeueLastRemovesCell() {
+		OctreeCube<Integer> cube = new OctreeCube<>(100, 100, 10);
+		cube.add(7, 8, 9, 1);
+		cube.getAll(7, 8, 9).dequeue();
+		assertThat("Empty cell kept.", cube.getAll(7, 8, 9), is(nullValue()));
+		assertThat("Cells miscounted.", cube.cellCount(), is(equalTo(0)));
+	}
+
+	@Test(timeout = 2000)
+	public void testQueriesMatchBruteForce() {
+		OctreeCube<int[]> cube = new OctreeCube<>(500, 400, 35);
+		Random random = new Random(3506);
+		List<int[]> all = new ArrayList<>();
+		for (int i = 0; i < 3000; i++) {
+			// half clustered near one corner, half spread out.
+			int[] point = i % 2 == 0
+					? new int[] { 50 + random.nextInt(20),
+							60 + random.nextInt(20), random.nextInt(36) }
+					: new int[] { random.nextInt(501), random.nextInt(401),
+							random.nextInt(36) };
+			cube.add(point[0], point[1], point[2], point);
+			all.add(point);
+		}
+		for (int query = 0; query < 50; query++) {
+			int x = random.nextInt(501);
+			int y = random.nextInt(401);
+			int z = random.nextInt(36);
+			int size = random.nextInt(120);
+			List<int[]> box = new ArrayList<>();
+			cube.forEachInBox(x, y, z, x + size, y + size, z + 5, box::add);
+			long expected = all.stream()
+					.filter(p -> p[0] >= x && p[0] <= x + size && p[1] >= y
+							&& p[1] <= y + size && p[2] >= z && p[2] <= z + 5)
+					.count();
+			assertThat("Box query wrong.", (long) box.size(),
+					is(equalTo(expected)));
+			List<int[]> sphere = new ArrayList<>();
+			int found = cube.forEachInRadius(x, y, z, size, sphere::add);
+			expected = all.stream()
+					.filter(p -> (double) (p[0] - x) * (p[0] - x)
+							+ (double) (p[1] - y) * (p[1] - y)
+							+ (double) (p[2] - z) * (p[2] - z) <= (double) size
+									* size)
+					.count();
+			assertThat("Radius query wrong.", (long) sphere.size(),
+					is(equalTo(expected)));
+			assertThat("Radius query miscounted.", found,
+					is(equalTo(sphere.size())));
+		}
+	}
+
+	@Test(timeout = 5000)
+	public void testRandomOperationsMatchModel() {
+		OctreeCube<Integer> cube = new OctreeCube<>(200, 100, 5);
+		Map<List<Integer>, List<Integer>> model = new HashMap<>();
+		Random random = new Random(5);
+		for (int i = 0; i < 20000; i++) {
+			// clustered, so nodes split and merge often.
+			int x = random.nextInt(8) + (random.nextBoolean() ? 0 : 150);
+			int y = random.nextInt(8);
+			int z = random.nextInt(6);
+			List<Integer> key = List.of(x, y, z);
+			if (random.nextInt(3) == 0) {
+				cube.removeAll(x, y, z);
+				model.remove(key);
+			} else {
+				cube.add(x, y, z, i);
+				model.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+			}
+		}
+		assertThat("Cells miscounted.", cube.cellCount(),
+				is(equalTo(model.size())));
+		for (Map.Entry<List<Integer>, List<Integer>> cell : model.entrySet()) {
+			List<Integer> key = cell.getKey();
+			assertThat("Cell differs from model.",
+					cube.get(key.get(0), key.get(1), key.get(2)),
+					is(equalTo(cell.getValue().get(0))));
+		}
+		Map<List<Integer>, List<Integer>> walked = StreamSupport
+				.stream(cube.spliterator(), false)
+				.collect(Collectors.groupingBy(
+						e -> List.of(e.getX(), e.getY(), e.getZ()),
+						Collectors.mapping(CubeEntry::getElement,
+								Collectors.toList())));
+		assertThat("Walk differs from model.", walked, is(equalTo(model)));
+	}
+
+}
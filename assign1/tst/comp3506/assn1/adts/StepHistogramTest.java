@@ -0,0 +1,62 @@
+package comp3506.assn1.adts;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class StepHistogramTest {
+
+	@Test(timeout = 500)
+	public void testEmptyHistogram() {
+		StepHistogram histogram = new StepHistogram();
+		assertThat("Empty histogram had a mean.", histogram.getMean(),
+				is(equalTo(0.0)));
+		assertThat("Empty histogram had a percentile.",
+				histogram.getPercentile(99), is(equalTo(0)));
+	}
+
+	@Test(timeout = 500)
+	public void testPowerOfTwoBuckets() {
+		StepHistogram histogram = new StepHistogram();
+		histogram.record(0);
+		histogram.record(1);
+		histogram.record(2);
+		histogram.record(3);
+		histogram.record(4);
+		assertThat("Zero not in its own bucket.", histogram.getBucketCount(0),
+				is(equalTo(1L)));
+		assertThat("One not in bucket 1.", histogram.getBucketCount(1),
+				is(equalTo(1L)));
+		assertThat("Two and three not in bucket 2.",
+				histogram.getBucketCount(2), is(equalTo(2L)));
+		assertThat("Four not in bucket 3.", histogram.getBucketCount(3),
+				is(equalTo(1L)));
+		assertThat("Wrong bucket bounds.", StepHistogram.bucketLow(3),
+				is(equalTo(4)));
+		assertThat("Wrong bucket bounds.", StepHistogram.bucketHigh(3),
+				is(equalTo(7)));
+	}
+
+	@Test(timeout = 500)
+	public void testExactMeanAndBoundedPercentile() {
+		StepHistogram histogram = new StepHistogram();
+		for (int i = 1; i <= 100; i++) {
+			histogram.record(i);
+		}
+		assertThat("Mean not exact.", histogram.getMean(), is(equalTo(50.5)));
+		assertThat("Max not exact.", histogram.getMax(), is(equalTo(100)));
+		// the median, 50, is in the bucket from 32 to 63.
+		assertThat("Median not bounded by its bucket.",
+				histogram.getPercentile(50), is(equalTo(63)));
+		assertThat("Top percentile above the max.",
+				histogram.getPercentile(100), is(equalTo(100)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeValue() {
+		new StepHistogram().record(-1);
+	}
+
+}
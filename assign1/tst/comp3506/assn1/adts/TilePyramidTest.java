@@ -0,0 +1,81 @@
+package comp3506.assn1.adts;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TilePyramidTest {
+
+	@Test(timeout = 500, expected = IndexOutOfBoundsException.class)
+	public void testAddOutOfBounds() {
+		TilePyramid pyramid = new TilePyramid(100, 100, 10, 3);
+		pyramid.add(101, 0);
+	}
+
+	@Test(timeout = 500)
+	public void testTileSizesDouble() {
+		TilePyramid pyramid = new TilePyramid(100, 50, 10, 3);
+		assertThat("Wrong tile size.", pyramid.tileSize(2), is(equalTo(40)));
+		assertThat("Wrong level for tile size.", pyramid.levelOf(20),
+				is(equalTo(1)));
+		assertThat("Level found for missing tile size.", pyramid.levelOf(30),
+				is(equalTo(-1)));
+		assertThat("Wrong number of tiles.", pyramid.tilesX(2), is(equalTo(3)));
+		assertThat("Wrong number of tiles.", pyramid.tilesY(2), is(equalTo(2)));
+	}
+
+	@Test(timeout = 500)
+	public void testCountsAtEveryLevel() {
+		TilePyramid pyramid = new TilePyramid(100, 100, 10, 3);
+		pyramid.add(5, 5);
+		pyramid.add(15, 5);
+		pyramid.add(35, 35);
+		assertThat("Wrong finest count.", pyramid.count(0, 0, 0),
+				is(equalTo(1)));
+		assertThat("Wrong middle count.", pyramid.count(1, 0, 0),
+				is(equalTo(2)));
+		assertThat("Wrong coarsest count.", pyramid.count(2, 0, 0),
+				is(equalTo(3)));
+		assertThat("Wrong total.", pyramid.total(), is(equalTo(3)));
+	}
+
+	@Test(timeout = 500)
+	public void testCoarseTileIsSumOfFinerTiles() {
+		TilePyramid pyramid = new TilePyramid(100, 100, 10, 3);
+		Random random = new Random(3506);
+		for (int i = 0; i < 500; i++) {
+			pyramid.add(random.nextInt(101), random.nextInt(101));
+		}
+		int[][] fine = pyramid.copyLevel(0);
+		int[][] coarse = pyramid.copyLevel(1);
+		for (int x = 0; x < fine.length; x++) {
+			for (int y = 0; y < fine[x].length; y++) {
+				coarse[x / 2][y / 2] -= fine[x][y];
+			}
+		}
+		for (int[] column : coarse) {
+			for (int count : column) {
+				assertThat("Coarse tile not the sum of its finer tiles.", count,
+						is(equalTo(0)));
+			}
+		}
+	}
+
+	@Test(timeout = 500)
+	public void testRemove() {
+		TilePyramid pyramid = new TilePyramid(100, 100, 10, 3);
+		pyramid.add(5, 5);
+		pyramid.add(5, 5);
+		pyramid.remove(5, 5);
+		assertThat("Wrong count after removal.", pyramid.count(2, 0, 0),
+				is(equalTo(1)));
+		pyramid.clear();
+		assertThat("Count not cleared.", pyramid.count(0, 0, 0),
+				is(equalTo(0)));
+	}
+
+}
@@ -0,0 +1,94 @@
+package comp3506.assn1.adts;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TimerWheelTest {
+
+	@Test(timeout = 500, expected = IllegalArgumentException.class)
+	public void testInvalidResolution() {
+		new TimerWheel(0, 16, 0);
+	}
+
+	@Test(timeout = 500)
+	public void testNothingExpiresBeforeDeadline() {
+		TimerWheel wheel = new TimerWheel(10, 16, 0);
+		wheel.schedule(1, 100);
+		List<Integer> expired = new ArrayList<>();
+		wheel.expire(99, expired::add);
+		assertThat("Handle expired early.", expired.size(), is(equalTo(0)));
+		assertThat("Handle no longer scheduled.", wheel.isScheduled(1),
+				is(equalTo(true)));
+	}
+
+	@Test(timeout = 500)
+	public void testExpiresAtDeadline() {
+		TimerWheel wheel = new TimerWheel(10, 16, 0);
+		wheel.schedule(1, 100);
+		wheel.schedule(2, 105);
+		List<Integer> expired = new ArrayList<>();
+		wheel.expire(100, expired::add);
+		assertThat("Wrong handles expired.", expired.size(), is(equalTo(1)));
+		assertThat("Wrong handle expired.", expired.get(0), is(equalTo(1)));
+		assertThat("Wheel was wrong size.", wheel.size(), is(equalTo(1)));
+	}
+
+	@Test(timeout = 500)
+	public void testRescheduleDelaysExpiry() {
+		TimerWheel wheel = new TimerWheel(10, 16, 0);
+		wheel.schedule(1, 100);
+		wheel.schedule(1, 300);
+		List<Integer> expired = new ArrayList<>();
+		assertThat("Rescheduled handle expired.", wheel.expire(200, expired::add),
+				is(equalTo(0)));
+		assertThat("Rescheduled handle did not expire.",
+				wheel.expire(300, expired::add), is(equalTo(1)));
+	}
+
+	@Test(timeout = 500)
+	public void testDeadlineBeyondOneRotation() {
+		// 16 slots of 10 span 160, so this deadline wraps the wheel twice.
+		TimerWheel wheel = new TimerWheel(10, 16, 0);
+		wheel.schedule(1, 450);
+		List<Integer> expired = new ArrayList<>();
+		for (long time = 0; time < 450; time += 10) {
+			wheel.expire(time, expired::add);
+		}
+		assertThat("Handle expired a rotation early.", expired.size(),
+				is(equalTo(0)));
+		wheel.expire(450, expired::add);
+		assertThat("Handle did not expire.", expired.size(), is(equalTo(1)));
+	}
+
+	@Test(timeout = 500)
+	public void testLargeTimeJump() {
+		TimerWheel wheel = new TimerWheel(10, 16, 0);
+		for (int handle = 0; handle < 100; handle++) {
+			wheel.schedule(handle, handle * 7);
+		}
+		List<Integer> expired = new ArrayList<>();
+		wheel.expire(1000000, expired::add);
+		assertThat("Not every handle expired.", expired.size(),
+				is(equalTo(100)));
+		assertThat("Wheel not empty.", wheel.size(), is(equalTo(0)));
+	}
+
+	@Test(timeout = 500)
+	public void testCancel() {
+		TimerWheel wheel = new TimerWheel(10, 16, 0);
+		wheel.schedule(1, 100);
+		wheel.schedule(2, 100);
+		wheel.cancel(1);
+		List<Integer> expired = new ArrayList<>();
+		wheel.expire(100, expired::add);
+		assertThat("Cancelled handle expired.", expired.size(), is(equalTo(1)));
+		assertThat("Wrong handle expired.", expired.get(0), is(equalTo(2)));
+	}
+
+}
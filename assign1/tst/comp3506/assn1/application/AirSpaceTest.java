@@ -0,0 +1,103 @@
+package comp3506.assn1.application;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+import comp3506.assn1.adts.ChangeLog;
+
+public class AirSpaceTest {
+
+	private static final int EAST = 90;
+	private static final int TTL = 1000;
+
+	private static List<String> ids(Iterator<Aircraft> it) {
+		List<String> ids = new ArrayList<>();
+		while (it.hasNext()) {
+			ids.add(it.next().getId());
+		}
+		ids.sort(null);
+		return ids;
+	}
+
+	private static List<String> ids(List<Aircraft> aircraft) {
+		return ids(aircraft.iterator());
+	}
+
+	@Test(timeout = 500)
+	public void testUnreportedAircraftEvicted() {
+		AirSpace airSpace = new AirSpace(100, 100, 40);
+		airSpace.setTimeToLive(TTL);
+		ChangeLog.Reader changes = airSpace.getChangeLog().reader(0);
+		airSpace.addAircraft(new Aircraft("AAA1", 10, 10, 1000, 0, EAST), 0);
+		airSpace.addAircraft(new Aircraft("BBB2", 50, 50, 1000, 0, EAST), 0);
+		// only BBB2 is reported again.
+		airSpace.addAircraft(new Aircraft("BBB2", 50, 50, 1000, 0, EAST), 600);
+		assertThat("Nothing should expire yet.", airSpace.evictStale(900), is(equalTo(0)));
+		assertThat("Wrong aircraft evicted.", airSpace.evictStale(TTL + 100), is(equalTo(1)));
+
+		assertThat("Evicted aircraft still counted.", airSpace.getAircraftCount(), is(equalTo(1)));
+		assertThat("Evicted aircraft still in the cube.", ids(airSpace.aircraftIterator()),
+				is(equalTo(List.of("BBB2"))));
+		assertThat("Evicted aircraft still at its level.", ids(airSpace.getAircraftAtLevel(1)),
+				is(equalTo(List.of("BBB2"))));
+		int tile = airSpace.getDensityTileSizes()[0];
+		int[][] density = airSpace.getDensityMap(tile);
+		assertThat("Evicted aircraft still in the density map.", density[10 / tile][10 / tile], is(equalTo(0)));
+		assertThat("Remaining aircraft lost from the density map.", density[50 / tile][50 / tile],
+				is(equalTo(1)));
+
+		List<String> logged = new ArrayList<>();
+		while (changes.next()) {
+			logged.add(changes.getKind() + " " + AircraftId.decode(changes.getKey()));
+		}
+		assertThat("Eviction not logged.", logged, is(equalTo(List.of(ChangeLog.ADD + " AAA1",
+				ChangeLog.ADD + " BBB2", ChangeLog.REMOVE + " AAA1"))));
+	}
+
+	@Test(timeout = 500)
+	public void testReportPushesBackExpiry() {
+		AirSpace airSpace = new AirSpace(100, 100, 40);
+		airSpace.setTimeToLive(TTL);
+		airSpace.addAircraft(new Aircraft("AAA1", 10, 10, 1000, 0, EAST), 0);
+		// a report at a new position, then a refresh at the same one.
+		airSpace.addAircraft(new Aircraft("AAA1", 11, 10, 1000, 0, EAST), 600);
+		assertThat("Report did not push back expiry.", airSpace.evictStale(TTL + 100), is(equalTo(0)));
+		assertThat("Refresh of a missing aircraft succeeded.", airSpace.refresh(AircraftId.encode("BBB2"), 1200),
+				is(equalTo(false)));
+		assertThat("Refresh failed.", airSpace.refresh(AircraftId.encode("AAA1"), 1200), is(equalTo(true)));
+		assertThat("Refresh did not push back expiry.", airSpace.evictStale(600 + TTL + 100), is(equalTo(0)));
+		assertThat("Aircraft not evicted after its last report.", airSpace.evictStale(1200 + TTL + 100),
+				is(equalTo(1)));
+		assertThat("Aircraft still held.", airSpace.getAircraftCount(), is(equalTo(0)));
+	}
+
+	@Test(timeout = 500)
+	public void testTimeToLiveSetAfterAdding() {
+		AirSpace airSpace = new AirSpace(100, 100, 40);
+		airSpace.addAircraft(new Aircraft("AAA1", 10, 10, 1000, 0, EAST), 0);
+		airSpace.addAircraft(new Aircraft("BBB2", 50, 50, 1000, 0, EAST), 500);
+		assertThat("Aircraft expired without a time-to-live.", airSpace.evictStale(100000), is(equalTo(0)));
+		// each expires a time-to-live after it was last seen, not after now.
+		airSpace.setTimeToLive(100000 + TTL);
+		assertThat("Aircraft expired early.", airSpace.evictStale(100000), is(equalTo(0)));
+		airSpace.setTimeToLive(TTL);
+		assertThat("Expired aircraft not evicted at once.", airSpace.getAircraftCount(), is(equalTo(0)));
+
+		airSpace.setTimeToLive(0);
+		airSpace.addAircraft(new Aircraft("AAA1", 10, 10, 1000, 0, EAST), 200000);
+		airSpace.addAircraft(new Aircraft("BBB2", 50, 50, 1000, 0, EAST), 200500);
+		airSpace.setTimeToLive(TTL);
+		assertThat("Aircraft expired early.", airSpace.evictStale(200000 + TTL - 100), is(equalTo(0)));
+		assertThat("Wrong aircraft expired.", airSpace.evictStale(200000 + TTL + 100), is(equalTo(1)));
+		assertThat("Wrong aircraft expired.", ids(airSpace.aircraftIterator()), is(equalTo(List.of("BBB2"))));
+		assertThat("Last aircraft not expired.", airSpace.evictStale(200500 + TTL + 100), is(equalTo(1)));
+	}
+
+}
@@ -0,0 +1,91 @@
+package comp3506.assn1.application;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+public class AirTrafficTrackerTest {
+
+	// Contacts with this speed are classified EMERGENCY.
+	private static final int EMERGENCY_SPEED = 7700;
+
+	private static AirTrafficTracker newTracker(AirSpace airSpace) {
+		AirTrafficTracker tracker = new AirTrafficTracker(airSpace);
+		tracker.setPriorityClassifier(aircraft -> aircraft
+				.getSpeed() == EMERGENCY_SPEED ? AirTrafficTracker.EMERGENCY
+						: AirTrafficTracker.ROUTINE);
+		return tracker;
+	}
+
+	private static List<String> ids(Iterator<Aircraft> it) {
+		List<String> ids = new ArrayList<>();
+		while (it.hasNext()) {
+			ids.add(it.next().getId());
+		}
+		return ids;
+	}
+
+	@Test(timeout = 500)
+	public void testCoalescedContactAppliedOnce() {
+		AirSpace airSpace = new AirSpace(100, 100, 40);
+		AirTrafficTracker tracker = newTracker(airSpace);
+		tracker.newAircraft(new Aircraft("AAA1", 1, 1, 1000, 500, 0));
+		tracker.newAircraft(new Aircraft("AAA1", 2, 1, 1000, 500, 0));
+		assertThat("Coalesce not counted.", tracker.getCoalescedContacts(),
+				is(equalTo(1L)));
+		tracker.processRadarQueue();
+		assertThat("Contact left queued.", tracker.radarQueueIterator().hasNext(),
+				is(equalTo(false)));
+		Aircraft applied = tracker.airSpaceIterator().next();
+		assertThat("Newest position not applied.", applied.getAirSpaceXCoord(),
+				is(equalTo(2)));
+	}
+
+	@Test(timeout = 500)
+	public void testStaleContactSkipped() {
+		AirSpace airSpace = new AirSpace(100, 100, 40);
+		AirTrafficTracker tracker = newTracker(airSpace);
+		tracker.newAircraft(new Aircraft("AAA1", 1, 1, 1000, 500, 0));
+		tracker.newAircraft(
+				new Aircraft("AAA1", 2, 1, 1000, EMERGENCY_SPEED, 0));
+		tracker.newAircraft(new Aircraft("BBB2", 3, 1, 1000, 500, 0));
+		tracker.newAircraft(new Aircraft("CCC3", 4, 1, 1000, 500, 0));
+		tracker.processRadarQueue();
+		assertThat("Emergency contact not processed first.",
+				ids(tracker.airSpaceIterator()), is(equalTo(List.of("AAA1"))));
+		// the routine AAA1 contact is stale but still queued ahead of them.
+		assertThat("Waiting aircraft hidden.", ids(tracker.radarQueueIterator()),
+				is(equalTo(List.of("BBB2", "CCC3"))));
+		tracker.processRadarQueue();
+		assertThat("Stale contact not skipped.", airSpace.getAircraftCount(),
+				is(equalTo(2)));
+		assertThat("Wrong aircraft waiting.", ids(tracker.radarQueueIterator()),
+				is(equalTo(List.of("CCC3"))));
+	}
+
+	@Test(timeout = 500)
+	public void testContactClassifiedOnce() {
+		AirSpace airSpace = new AirSpace(100, 100, 40);
+		AirTrafficTracker tracker = new AirTrafficTracker(airSpace);
+		int[] calls = { 0 };
+		// AAA1 is only in conflict the first time it is classified.
+		tracker.setPriorityClassifier(aircraft -> aircraft.getId().equals("AAA1")
+				&& calls[0]++ == 0 ? AirTrafficTracker.CONFLICT
+						: AirTrafficTracker.ROUTINE);
+		tracker.newAircraft(new Aircraft("BBB2", 2, 1, 1000, 500, 0));
+		tracker.newAircraft(new Aircraft("CCC3", 3, 1, 1000, 500, 0));
+		tracker.newAircraft(new Aircraft("AAA1", 1, 1, 1000, 500, 0));
+		assertThat("Contact classified more than once.", calls[0],
+				is(equalTo(1)));
+		tracker.processRadarQueue();
+		assertThat("Conflict contact not queued at its level.",
+				ids(tracker.airSpaceIterator()), is(equalTo(List.of("AAA1"))));
+	}
+
+}
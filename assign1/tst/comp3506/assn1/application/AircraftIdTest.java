@@ -0,0 +1,82 @@
+package comp3506.assn1.application;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class AircraftIdTest {
+
+	// Longest registration, with the largest digit in every place.
+	private static final String LONGEST = "999999999999";
+
+	@Test(timeout = 500)
+	public void testRoundTrip() {
+		for (String registration : new String[] { "A", "0", "BNE10", "QF001", "ZZ9", LONGEST }) {
+			assertThat("Registration not restored.", AircraftId.decode(AircraftId.encode(registration)),
+					is(equalTo(registration)));
+		}
+	}
+
+	@Test(timeout = 500)
+	public void testCaseInsensitive() {
+		assertThat("Lower case encoded differently.", AircraftId.encode("qfa123"),
+				is(equalTo(AircraftId.encode("QFA123"))));
+		assertThat("Not decoded as upper case.", AircraftId.decode(AircraftId.encode("vh0k")),
+				is(equalTo("VH0K")));
+	}
+
+	@Test(timeout = 500)
+	public void testDistinct() {
+		// zero is never a digit, so a leading 'A' or a trailing '0' still changes the value.
+		assertThat("Leading character lost.", AircraftId.encode("AB"), is(not(equalTo(AircraftId.encode("B")))));
+		assertThat("Trailing digit lost.", AircraftId.encode("A0"), is(not(equalTo(AircraftId.encode("A")))));
+		assertThat("Zero encoded as zero.", AircraftId.encode("0"), is(not(equalTo(0L))));
+	}
+
+	@Test(timeout = 500)
+	public void testAppend() {
+		long prefix = AircraftId.encode("BNE");
+		assertThat("Number appended wrongly.", AircraftId.append(prefix, 10),
+				is(equalTo(AircraftId.encode("BNE10"))));
+		assertThat("Zero appended wrongly.", AircraftId.append(prefix, 0), is(equalTo(AircraftId.encode("BNE0"))));
+		assertThat("Largest number appended wrongly.", AircraftId.append(AircraftId.encode("BN"), 2147483647),
+				is(equalTo(AircraftId.encode("BN2147483647"))));
+	}
+
+	@Test(timeout = 500)
+	public void testAppendAtLimit() {
+		// the largest 11 character registration is just below the append limit.
+		assertThat("Twelfth character refused.", AircraftId.append(AircraftId.encode(LONGEST.substring(1)), 9),
+				is(equalTo(AircraftId.encode(LONGEST))));
+	}
+
+	@Test(timeout = 500, expected = IllegalArgumentException.class)
+	public void testAppendPastLimit() {
+		// the smallest 12 character registration is above the append limit.
+		AircraftId.append(AircraftId.encode("AAAAAAAAAAAA"), 0);
+	}
+
+	@Test(timeout = 500, expected = IllegalArgumentException.class)
+	public void testTooLong() {
+		AircraftId.encode(LONGEST + "A");
+	}
+
+	@Test(timeout = 500, expected = IllegalArgumentException.class)
+	public void testEmpty() {
+		AircraftId.encode("");
+	}
+
+	@Test(timeout = 500, expected = IllegalArgumentException.class)
+	public void testInvalidCharacter() {
+		AircraftId.encode("VH-OQA");
+	}
+
+	@Test(timeout = 500, expected = IllegalArgumentException.class)
+	public void testAppendNegative() {
+		AircraftId.append(AircraftId.encode("BNE"), -1);
+	}
+
+}
@@ -0,0 +1,181 @@
+package comp3506.assn1.application;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class ConflictProbeTest {
+
+	private static final int EAST = 90;
+	private static final int WEST = 270;
+	// 0.1 km/s.
+	private static final int SPEED = 100;
+	private static final double DELTA = 0.01;
+
+	private static ConflictProbe probe(AirSpace airSpace, double lookahead) {
+		return new ConflictProbe(airSpace, lookahead, ConflictProbe.DEFAULT_SEPARATION,
+				ConflictProbe.DEFAULT_VERTICAL_SEPARATION, null);
+	}
+
+	@Test(timeout = 500)
+	public void testHeadOnClosestApproach() {
+		AirSpace airSpace = new AirSpace(500, 500, 40);
+		airSpace.addAircraft(new Aircraft("AAA1", 100, 100, 5000, SPEED, EAST), 0);
+		airSpace.addAircraft(new Aircraft("BBB2", 120, 100, 5000, SPEED, WEST), 0);
+		List<ConflictProbe.Conflict> conflicts = probe(airSpace, 300).probe();
+		assertThat("Conflict not found.", conflicts.size(), is(equalTo(1)));
+		ConflictProbe.Conflict conflict = conflicts.get(0);
+		// 20 km apart, closing at 0.2 km/s.
+		assertEquals("Wrong time to closest approach.", 100, conflict.getTimeToClosest(), DELTA);
+		assertEquals("Wrong closest distance.", 0, conflict.getClosestDistance(), DELTA);
+		assertEquals("Wrong time to loss of separation.", (20 - ConflictProbe.DEFAULT_SEPARATION) / 0.2,
+				conflict.getTimeToLoss(), DELTA);
+		assertThat("Ids not ordered.", conflict.getFirstId() < conflict.getSecondId(), is(equalTo(true)));
+	}
+
+	@Test(timeout = 500)
+	public void testClosestApproachBeyondLookahead() {
+		AirSpace airSpace = new AirSpace(500, 500, 40);
+		airSpace.addAircraft(new Aircraft("AAA1", 100, 100, 5000, SPEED, EAST), 0);
+		airSpace.addAircraft(new Aircraft("BBB2", 120, 100, 5000, SPEED, WEST), 0);
+		// separation is only lost after 53.7 seconds.
+		assertThat("Conflict beyond lookahead.", probe(airSpace, 50).probe().size(), is(equalTo(0)));
+	}
+
+	@Test(timeout = 500)
+	public void testPassingTracks() {
+		AirSpace airSpace = new AirSpace(500, 500, 40);
+		airSpace.addAircraft(new Aircraft("AAA1", 100, 100, 5000, SPEED, EAST), 0);
+		airSpace.addAircraft(new Aircraft("BBB2", 120, 110, 5000, SPEED, WEST), 0);
+		airSpace.addAircraft(new Aircraft("CCC3", 100, 200, 5000, SPEED, EAST), 0);
+		airSpace.addAircraft(new Aircraft("DDD4", 120, 209, 5000, SPEED, WEST), 0);
+		List<ConflictProbe.Conflict> conflicts = probe(airSpace, 300).probe();
+		// 10 km apart at their closest is separated, 9 km is not.
+		assertThat("Wrong conflicts.", conflicts.size(), is(equalTo(1)));
+		assertThat("Wrong pair.", AircraftId.decode(conflicts.get(0).getFirstId()), is(equalTo("CCC3")));
+		assertEquals("Wrong closest distance.", 9, conflicts.get(0).getClosestDistance(), DELTA);
+	}
+
+	@Test(timeout = 500)
+	public void testAlreadyLost() {
+		AirSpace airSpace = new AirSpace(500, 500, 40);
+		// diverging, so closest now.
+		airSpace.addAircraft(new Aircraft("AAA1", 100, 100, 5000, SPEED, WEST), 0);
+		airSpace.addAircraft(new Aircraft("BBB2", 105, 100, 5000, SPEED, EAST), 0);
+		// same course and speed, so never closer or further apart.
+		airSpace.addAircraft(new Aircraft("CCC3", 100, 300, 5000, SPEED, EAST), 0);
+		airSpace.addAircraft(new Aircraft("DDD4", 108, 300, 5000, SPEED, EAST), 0);
+		List<ConflictProbe.Conflict> conflicts = probe(airSpace, 300).probe();
+		assertThat("Wrong conflicts.", conflicts.size(), is(equalTo(2)));
+		for (ConflictProbe.Conflict conflict : conflicts) {
+			assertEquals("Loss not immediate.", 0, conflict.getTimeToLoss(), DELTA);
+			assertEquals("Closest not immediate.", 0, conflict.getTimeToClosest(), DELTA);
+		}
+	}
+
+	@Test(timeout = 500)
+	public void testVerticalSeparation() {
+		AirSpace airSpace = new AirSpace(500, 500, 40);
+		// 299 m apart in adjacent bands.
+		airSpace.addAircraft(new Aircraft("AAA1", 100, 100, 599, SPEED, EAST), 0);
+		airSpace.addAircraft(new Aircraft("BBB2", 100, 100, 898, SPEED, EAST), 0);
+		// exactly one separation apart.
+		airSpace.addAircraft(new Aircraft("CCC3", 300, 300, 5000, SPEED, EAST), 0);
+		airSpace.addAircraft(new Aircraft("DDD4", 300, 300, 5300, SPEED, EAST), 0);
+		List<ConflictProbe.Conflict> conflicts = probe(airSpace, 300).probe();
+		assertThat("Wrong conflicts.", conflicts.size(), is(equalTo(1)));
+		assertThat("Wrong pair.", AircraftId.decode(conflicts.get(0).getFirstId()), is(equalTo("AAA1")));
+	}
+
+	@Test(timeout = 500)
+	public void testConflictsPublishedOnChange() {
+		AirSpace airSpace = new AirSpace(500, 500, 40);
+		List<String> events = new ArrayList<>();
+		ConflictProbe probe = new ConflictProbe(airSpace, 300, ConflictProbe.DEFAULT_SEPARATION,
+				ConflictProbe.DEFAULT_VERTICAL_SEPARATION, new ConflictProbe.Listener() {
+					@Override
+					public void conflictPredicted(ConflictProbe.Conflict conflict) {
+						events.add("predicted " + AircraftId.decode(conflict.getSecondId()));
+					}
+
+					@Override
+					public void conflictCleared(ConflictProbe.Conflict conflict) {
+						events.add("cleared " + AircraftId.decode(conflict.getSecondId()));
+					}
+				});
+		airSpace.addAircraft(new Aircraft("AAA1", 100, 100, 5000, SPEED, EAST), 0);
+		airSpace.addAircraft(new Aircraft("BBB2", 120, 100, 5000, SPEED, WEST), 0);
+		probe.probe();
+		probe.probe();
+		assertThat("Aircraft not in conflict.", probe.isInConflict(AircraftId.encode("AAA1")), is(equalTo(true)));
+		airSpace.removeAircraft(AircraftId.encode("BBB2"));
+		probe.probe();
+		assertThat("Aircraft still in conflict.", probe.isInConflict(AircraftId.encode("AAA1")), is(equalTo(false)));
+		assertThat("Wrong events.", events, is(equalTo(List.of("predicted BBB2", "cleared BBB2"))));
+	}
+
+	@Test(timeout = 5000)
+	public void testBroadPhaseMatchesBruteForce() {
+		AirSpace airSpace = new AirSpace(400, 300, 40);
+		Random random = new Random(3506);
+		for (int i = 0; i < 800; i++) {
+			airSpace.addAircraft(new Aircraft("R" + i, random.nextInt(401), random.nextInt(301),
+					random.nextInt(3000), 50 + random.nextInt(250), random.nextInt(360)), 0);
+		}
+		double lookahead = 120;
+		Set<String> probed = new HashSet<>();
+		for (ConflictProbe.Conflict conflict : probe(airSpace, lookahead).probe()) {
+			probed.add(conflict.getFirstId() + " " + conflict.getSecondId());
+		}
+		Set<String> expected = bruteForce(airSpace.getFleet(), lookahead);
+		assertThat("Too few conflicts to test the broad phase.", expected.size() > 20, is(equalTo(true)));
+		assertThat("Broad phase missed or invented conflicts.", probed, is(equalTo(expected)));
+	}
+
+	/**
+	 * Every pair that loses separation within the lookahead, comparing each aircraft with every other.
+	 */
+	private static Set<String> bruteForce(FleetStore fleet, double lookahead) {
+		List<Integer> handles = new ArrayList<>();
+		for (int handle = 0; handle < fleet.handleLimit(); handle++) {
+			if (fleet.isLive(handle)) {
+				handles.add(handle);
+			}
+		}
+		double limit = (double) ConflictProbe.DEFAULT_SEPARATION * ConflictProbe.DEFAULT_SEPARATION;
+		Set<String> pairs = new HashSet<>();
+		for (int i = 0; i < handles.size(); i++) {
+			for (int j = i + 1; j < handles.size(); j++) {
+				int a = handles.get(i);
+				int b = handles.get(j);
+				if (Math.abs(fleet.getAltitude(a) - fleet.getAltitude(b)) >= ConflictProbe.DEFAULT_VERTICAL_SEPARATION) {
+					continue;
+				}
+				double px = fleet.getX(b) - fleet.getX(a);
+				double py = fleet.getY(b) - fleet.getY(a);
+				double vx = fleet.getVelocityX(b) - fleet.getVelocityX(a);
+				double vy = fleet.getVelocityY(b) - fleet.getVelocityY(a);
+				double vv = vx * vx + vy * vy;
+				double t = vv == 0 ? 0 : Math.min(Math.max(-(px * vx + py * vy) / vv, 0), lookahead);
+				double cx = px + vx * t;
+				double cy = py + vy * t;
+				if (cx * cx + cy * cy < limit) {
+					long idA = fleet.getId(a);
+					long idB = fleet.getId(b);
+					pairs.add(Math.min(idA, idB) + " " + Math.max(idA, idB));
+				}
+			}
+		}
+		return pairs;
+	}
+
+}
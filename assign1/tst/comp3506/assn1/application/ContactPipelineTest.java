@@ -0,0 +1,214 @@
+package comp3506.assn1.application;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import comp3506.assn1.adts.ChangeLog;
+
+public class ContactPipelineTest {
+
+	private static final int EAST = 90;
+
+	/**
+	 * @return The contact in the RadarTrace record layout.
+	 */
+	private static ByteBuffer record(Aircraft aircraft) {
+		ByteBuffer record = ByteBuffer.allocate(RadarTrace.RECORD_SIZE);
+		record.putLong(0).putLong(aircraft.getIdCode()).putInt(aircraft.getAirSpaceXCoord())
+				.putInt(aircraft.getAirSpaceYCoord()).putInt(aircraft.getAltitude()).putInt(aircraft.getSpeed())
+				.putDouble(aircraft.getCourse());
+		record.flip();
+		return record;
+	}
+
+	private static ContactPipeline pipeline(AirSpace airSpace, int bufferCapacity) {
+		return new ContactPipeline(airSpace, null, bufferCapacity, message -> {
+		});
+	}
+
+	/**
+	 * Wait until the airspace holds the given number of aircraft.
+	 */
+	private static void awaitCount(AirSpace airSpace, int count) throws InterruptedException {
+		while (airSpace.getAircraftCount() != count) {
+			Thread.sleep(1);
+		}
+	}
+
+	@Test(timeout = 5000)
+	public void testRecordsAppliedInOrder() {
+		AirSpace airSpace = new AirSpace(300, 100, 40);
+		ChangeLog.Reader changes = airSpace.getChangeLog().reader(0);
+		try (ContactPipeline pipeline = pipeline(airSpace, 4)) {
+			for (int x = 1; x <= 200; x++) {
+				pipeline.submit(record(new Aircraft("AAA1", x, 10, 1000, 0, EAST)));
+			}
+		}
+		assertThat("First contact not added.", changes.next() && changes.getKind() == ChangeLog.ADD,
+				is(equalTo(true)));
+		assertThat("First contact out of order.", changes.getX(), is(equalTo(1)));
+		for (int x = 2; x <= 200; x++) {
+			assertThat("Contact lost.", changes.next() && changes.getKind() == ChangeLog.MOVE, is(equalTo(true)));
+			assertThat("Contact out of order.", changes.getX(), is(equalTo(x)));
+		}
+		assertThat("Extra change.", changes.next(), is(equalTo(false)));
+	}
+
+	@Test(timeout = 5000)
+	public void testReplayTrace() throws Exception {
+		Path trace = Files.createTempFile("pipeline", ".trace");
+		try {
+			try (RadarTrace.Recorder recorder = new RadarTrace.Recorder(trace)) {
+				for (int i = 0; i < 50; i++) {
+					recorder.record(new Aircraft("R" + i, i, 2 * i, 1000 * (i % 40), 0, EAST));
+				}
+			}
+			AirSpace airSpace = new AirSpace(100, 100, 40);
+			try (ContactPipeline pipeline = pipeline(airSpace, 4)) {
+				assertThat("Records miscounted.", RadarTrace.replay(trace, pipeline), is(equalTo(50L)));
+			}
+			assertThat("Records lost.", airSpace.getAircraftCount(), is(equalTo(50)));
+			assertThat("Record misplaced.", airSpace.getAircraftInBox(7, 14, 7, 14, 7, 7).get(0).getId(),
+					is(equalTo("R7")));
+		} finally {
+			Files.delete(trace);
+		}
+	}
+
+	@Test(timeout = 5000)
+	public void testDuplicatesDroppedAndCounted() {
+		AirSpace airSpace = new AirSpace(100, 100, 40);
+		ContactPipeline pipeline = pipeline(airSpace, 4);
+		Aircraft aircraft = new Aircraft("AAA1", 10, 10, 1000, 0, EAST);
+		for (int i = 0; i < 5; i++) {
+			pipeline.submit(record(aircraft));
+		}
+		pipeline.submit(record(new Aircraft("AAA1", 11, 10, 1000, 0, EAST)));
+		pipeline.close();
+		assertThat("Duplicates miscounted.", pipeline.getDuplicates(), is(equalTo(4L)));
+		List<ContactPipeline.Stage<?, ?>> stages = pipeline.getStages();
+		assertThat("Wrong stages.", stages.get(2).getName(), is(equalTo("insert")));
+		assertThat("Decode lost records.", stages.get(0).getEmitted(), is(equalTo(6L)));
+		assertThat("Insert did not take every record.", stages.get(2).getProcessed(), is(equalTo(6L)));
+		assertThat("Duplicates inserted.", stages.get(2).getEmitted(), is(equalTo(2L)));
+	}
+
+	@Test(timeout = 5000)
+	public void testBlockedStageHoldsBackSubmit() throws Exception {
+		AirSpace airSpace = new AirSpace(100, 100, 40);
+		// every contact enters an occupied cell, so raises an alert.
+		airSpace.addAircraft(new Aircraft("ZZZ9", 5, 5, 1000, 0, EAST), 0);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger alerts = new AtomicInteger();
+		ContactPipeline pipeline = new ContactPipeline(airSpace, null, 2, message -> {
+			try {
+				release.await();
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+			}
+			alerts.incrementAndGet();
+		});
+		AtomicInteger submitted = new AtomicInteger();
+		Thread radar = new Thread(() -> {
+			for (int i = 0; i < 100; i++) {
+				pipeline.submit(record(new Aircraft("R" + i, 5, 5, 1000, 0, EAST)));
+				submitted.incrementAndGet();
+			}
+		});
+		radar.start();
+		Thread.sleep(200);
+		assertThat("Submit not held back by a blocked stage.", submitted.get() < 100, is(equalTo(true)));
+		assertThat("Submitting thread not blocked.", radar.isAlive(), is(equalTo(true)));
+		release.countDown();
+		radar.join();
+		pipeline.close();
+		assertThat("Alerts lost.", alerts.get(), is(equalTo(100)));
+		assertThat("Alerts miscounted.", pipeline.getAlerts(), is(equalTo(100L)));
+	}
+
+	@Test(timeout = 5000)
+	public void testFailedStageDoesNotHangClose() {
+		AirSpace airSpace = new AirSpace(100, 100, 40);
+		ContactPipeline pipeline = pipeline(airSpace, 4);
+		pipeline.submit(record(new Aircraft("AAA1", 10, 10, 1000, 0, EAST)));
+		// too short to decode.
+		pipeline.submit(ByteBuffer.allocate(4));
+		pipeline.submit(record(new Aircraft("BBB2", 20, 10, 1000, 0, EAST)));
+		pipeline.close();
+		assertThat("Record after the failure decoded.", pipeline.getStages().get(0).getEmitted() <= 1,
+				is(equalTo(true)));
+	}
+
+	@Test(timeout = 5000)
+	public void testFailedAlertDoesNotHangClose() {
+		AirSpace airSpace = new AirSpace(100, 100, 40);
+		airSpace.addAircraft(new Aircraft("ZZZ9", 5, 5, 1000, 0, EAST), 0);
+		ContactPipeline pipeline = new ContactPipeline(airSpace, null, 4, message -> {
+			throw new IllegalStateException();
+		});
+		for (int i = 0; i < 10; i++) {
+			pipeline.submit(record(new Aircraft("R" + i, 5, 5, 1000, 0, EAST)));
+		}
+		pipeline.close();
+	}
+
+	@Test(timeout = 5000)
+	public void testRepeatedPositionRefreshesLastSeen() throws Exception {
+		AirSpace airSpace = new AirSpace(100, 100, 40);
+		airSpace.setTimeToLive(1000);
+		Aircraft hovering = new Aircraft("AAA1", 10, 10, 1000, 0, EAST);
+		try (ContactPipeline pipeline = pipeline(airSpace, 16)) {
+			pipeline.submit(record(hovering));
+			awaitCount(airSpace, 1);
+			Thread.sleep(600);
+			pipeline.submit(record(hovering));
+			Thread.sleep(600);
+			// evicts anything not seen within the last second.
+			pipeline.submit(record(new Aircraft("BBB2", 50, 50, 1000, 0, EAST)));
+			awaitCount(airSpace, 2);
+			assertThat("Repeated position not counted.", pipeline.getDuplicates(), is(equalTo(1L)));
+		}
+		assertThat("Aircraft still reporting was evicted.", airSpace.getAircraftCount(), is(equalTo(2)));
+	}
+
+	@Test(timeout = 5000)
+	public void testRemovedAircraftReturnsAtSamePosition() throws Exception {
+		AirSpace airSpace = new AirSpace(100, 100, 40);
+		Aircraft aircraft = new Aircraft("AAA1", 10, 10, 1000, 0, EAST);
+		try (ContactPipeline pipeline = pipeline(airSpace, 16)) {
+			pipeline.submit(record(aircraft));
+			awaitCount(airSpace, 1);
+			airSpace.removeAircraft(aircraft.getIdCode());
+			pipeline.submit(record(aircraft));
+		}
+		assertThat("Returning aircraft not added again.", airSpace.getAircraftCount(), is(equalTo(1)));
+	}
+
+	@Test(timeout = 5000)
+	public void testRemovedAircraftForgotten() throws Exception {
+		AirSpace airSpace = new AirSpace(100, 100, 40);
+		ContactPipeline pipeline = pipeline(airSpace, 16);
+		for (int i = 0; i < 100; i++) {
+			pipeline.submit(record(new Aircraft("R" + i, i, 10, 1000, 0, EAST)));
+		}
+		awaitCount(airSpace, 100);
+		for (int i = 0; i < 99; i++) {
+			airSpace.removeAircraft(AircraftId.encode("R" + i));
+		}
+		// the removals are read before the next contact.
+		pipeline.submit(record(new Aircraft("R99", 99, 11, 1000, 0, EAST)));
+		pipeline.close();
+		assertThat("Removed aircraft still held by dedupe.", pipeline.getDedupeSize(), is(equalTo(1)));
+	}
+
+}
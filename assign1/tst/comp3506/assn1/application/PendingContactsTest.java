@@ -0,0 +1,77 @@
+package comp3506.assn1.application;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class PendingContactsTest {
+
+	private static Aircraft contact(String id, int x) {
+		return new Aircraft(id, x, 0, 1000, 500, 0);
+	}
+
+	@Test(timeout = 500)
+	public void testRepeatedContactCoalesced() {
+		PendingContacts pending = new PendingContacts();
+		Aircraft first = contact("AAA1", 1);
+		Aircraft second = contact("AAA1", 2);
+		assertThat("First contact not queued.", pending.offer(first, 2, 5),
+				is(equalTo(true)));
+		assertThat("Repeated contact queued again.",
+				pending.offer(second, 2, 9), is(equalTo(false)));
+		assertThat("Coalesce not counted.", pending.getCoalesced(),
+				is(equalTo(1L)));
+		assertThat("Newest contact not kept.",
+				pending.newest(first.getIdCode()), is(sameInstance(second)));
+		assertThat("Queued time not that of the first contact.",
+				pending.queuedNanos(first.getIdCode()), is(equalTo(5L)));
+		assertThat("Newest contact not claimed.", pending.claim(first),
+				is(sameInstance(second)));
+		assertThat("Claimed aircraft still waiting.", pending.size(),
+				is(equalTo(0)));
+	}
+
+	@Test(timeout = 500)
+	public void testMoreUrgentContactRequeued() {
+		PendingContacts pending = new PendingContacts();
+		Aircraft routine = contact("AAA1", 1);
+		Aircraft urgent = contact("AAA1", 2);
+		pending.offer(routine, 2, 0);
+		assertThat("More urgent contact not queued.",
+				pending.offer(urgent, 0, 0), is(equalTo(true)));
+		assertThat("Less urgent contact queued.",
+				pending.offer(contact("AAA1", 3), 1, 0), is(equalTo(false)));
+		assertThat("Newest contact not claimed.",
+				pending.claim(urgent).getAirSpaceXCoord(), is(equalTo(3)));
+		// the routine contact is still queued, but its aircraft is done.
+		assertThat("Claimed twice.", pending.claim(routine), is(nullValue()));
+		assertThat("Claimed aircraft still has a newest contact.",
+				pending.newest(routine.getIdCode()), is(nullValue()));
+		assertThat("Claimed aircraft still timed.",
+				pending.queuedNanos(routine.getIdCode()), is(equalTo(0L)));
+	}
+
+	@Test(timeout = 500)
+	public void testSlotsReused() {
+		PendingContacts pending = new PendingContacts();
+		for (int round = 0; round < 3; round++) {
+			for (int i = 0; i < 200; i++) {
+				pending.offer(contact("A" + i, round), 2, 0);
+			}
+			assertThat("Wrong number waiting.", pending.size(),
+					is(equalTo(200)));
+			for (int i = 0; i < 200; i++) {
+				Aircraft claimed = pending.claim(contact("A" + i, 0));
+				assertThat("Contact lost.", claimed.getAirSpaceXCoord(),
+						is(equalTo(round)));
+			}
+		}
+		assertThat("Nothing coalesced, yet counted.", pending.getCoalesced(),
+				is(equalTo(0L)));
+	}
+
+}
@@ -0,0 +1,68 @@
+package comp3506.assn1.application;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class RadarRuntimeTest {
+
+	private static RadarRuntime newRuntime(int radarSites, double contactsPerSecond, int workerCount,
+			int queueCapacity) {
+		return new RadarRuntime(new AirSpace(1000, 1000, 40), radarSites, contactsPerSecond, workerCount,
+				queueCapacity);
+	}
+
+	@Test(timeout = 5000)
+	public void testShortRun() throws Exception {
+		RadarRuntime runtime = newRuntime(2, 2000, 2, 4);
+		Thread.sleep(200);
+		try {
+			runtime.getLatencyPercentile(50);
+			throw new AssertionError("Latency available while running.");
+		} catch (IllegalStateException expected) {
+			// latencies are only read once the workers have stopped.
+		}
+		runtime.close();
+		long applied = runtime.getApplied();
+		assertThat("No contacts applied.", applied > 0, is(equalTo(true)));
+		assertThat("More contacts applied than identified.", applied <= runtime.getIdentified(), is(equalTo(true)));
+		assertThat("Latency percentiles out of order.",
+				runtime.getLatencyPercentile(50) <= runtime.getLatencyPercentile(99), is(equalTo(true)));
+		assertThat("Throughput not positive.", runtime.getThroughput() > 0, is(equalTo(true)));
+		runtime.close();
+		assertThat("Contacts applied after close.", runtime.getApplied(), is(equalTo(applied)));
+	}
+
+	@Test(timeout = 500, expected = IllegalArgumentException.class)
+	public void testNoRadarSites() {
+		newRuntime(0, 10, 1, 4);
+	}
+
+	@Test(timeout = 500, expected = IllegalArgumentException.class)
+	public void testTooManyRadarSites() {
+		newRuntime(26 * 26 * 26 + 1, 10, 1, 4);
+	}
+
+	@Test(timeout = 500, expected = IllegalArgumentException.class)
+	public void testRateNotPositive() {
+		newRuntime(1, 0, 1, 4);
+	}
+
+	@Test(timeout = 500, expected = IllegalArgumentException.class)
+	public void testRateNotANumber() {
+		newRuntime(1, Double.NaN, 1, 4);
+	}
+
+	@Test(timeout = 500, expected = IllegalArgumentException.class)
+	public void testNoWorkers() {
+		newRuntime(1, 10, 0, 4);
+	}
+
+	@Test(timeout = 500, expected = IllegalArgumentException.class)
+	public void testQueueCapacityNotPositive() {
+		newRuntime(1, 10, 1, 0);
+	}
+
+}
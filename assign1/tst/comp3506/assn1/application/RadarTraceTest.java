@@ -0,0 +1,124 @@
+package comp3506.assn1.application;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RadarTraceTest {
+
+	private Path trace;
+
+	@Before
+	public void createTrace() throws IOException {
+		trace = Files.createTempFile("radar", ".trace");
+	}
+
+	@After
+	public void deleteTrace() throws IOException {
+		Files.deleteIfExists(trace);
+	}
+
+	private static String describe(Aircraft aircraft) {
+		return aircraft.getId() + " " + aircraft.getAirSpaceXCoord() + "," + aircraft.getAirSpaceYCoord() + ","
+				+ aircraft.getAltitude() + " " + aircraft.getSpeed() + " " + aircraft.getCourse();
+	}
+
+	/**
+	 * Record contacts for distinct aircraft, spanning more than one block of the recorder.
+	 *
+	 * @return The contacts recorded, described.
+	 */
+	private List<String> recordContacts(int count) throws IOException {
+		List<String> recorded = new ArrayList<>();
+		try (RadarTrace.Recorder recorder = new RadarTrace.Recorder(trace)) {
+			for (int i = 0; i < count; i++) {
+				Aircraft aircraft = new Aircraft("TR" + i, i % 500, i / 500, 100 * (i % 400), i % 900, i * 0.25);
+				recorder.record(aircraft);
+				recorded.add(describe(aircraft));
+			}
+		}
+		return recorded;
+	}
+
+	/**
+	 * Overwrite the int at an offset in the trace.
+	 */
+	private void patch(long offset, int value) throws IOException {
+		try (FileChannel channel = FileChannel.open(trace, StandardOpenOption.WRITE)) {
+			ByteBuffer bytes = ByteBuffer.allocate(Integer.BYTES).putInt(value);
+			bytes.flip();
+			channel.write(bytes, offset);
+		}
+	}
+
+	private long replay() throws IOException {
+		return RadarTrace.replay(trace, new AirTrafficTracker(new AirSpace(500, 500, 40)), false);
+	}
+
+	@Test(timeout = 5000)
+	public void testRoundTrip() throws IOException {
+		List<String> recorded = recordContacts(2500);
+		assertThat("Wrong trace size.", Files.size(trace),
+				is(equalTo(RadarTrace.HEADER_SIZE + 2500L * RadarTrace.RECORD_SIZE)));
+		AirSpace airSpace = new AirSpace(500, 500, 40);
+		AirTrafficTracker tracker = new AirTrafficTracker(airSpace);
+		assertThat("Records miscounted.", RadarTrace.replay(trace, tracker, false), is(equalTo(2500L)));
+		List<String> replayed = new ArrayList<>();
+		for (Iterator<Aircraft> it = tracker.airSpaceIterator(); it.hasNext();) {
+			replayed.add(describe(it.next()));
+		}
+		replayed.sort(null);
+		recorded.sort(null);
+		assertThat("Contacts changed by the trace.", replayed, is(equalTo(recorded)));
+	}
+
+	@Test(timeout = 500)
+	public void testEmptyTrace() throws IOException {
+		recordContacts(0);
+		assertThat("Records in an empty trace.", replay(), is(equalTo(0L)));
+	}
+
+	@Test(timeout = 500, expected = IOException.class)
+	public void testWrongMagic() throws IOException {
+		recordContacts(3);
+		patch(0, RadarTrace.MAGIC + 1);
+		replay();
+	}
+
+	@Test(timeout = 500, expected = IOException.class)
+	public void testWrongVersion() throws IOException {
+		recordContacts(3);
+		patch(Integer.BYTES, RadarTrace.VERSION + 1);
+		replay();
+	}
+
+	@Test(timeout = 500, expected = IOException.class)
+	public void testShorterThanHeader() throws IOException {
+		Files.write(trace, new byte[] { 0x4F, 0x4E });
+		replay();
+	}
+
+	@Test(timeout = 500, expected = IOException.class)
+	public void testTrailingPartialRecordRejected() throws IOException {
+		recordContacts(3);
+		try (FileChannel channel = FileChannel.open(trace, StandardOpenOption.WRITE)) {
+			channel.truncate(Files.size(trace) - 1);
+		}
+		replay();
+	}
+
+}
@@ -0,0 +1,98 @@
+package comp3506.assn1.application;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class SectorFeedTest {
+
+	private static final int EAST = 90;
+
+	/**
+	 * Listener that records each change as a line of text.
+	 */
+	private static class Recorder implements SectorFeed.Listener {
+		final List<String> events = new ArrayList<>();
+
+		@Override
+		public void entered(long id, int x, int y, int z) {
+			events.add("entered " + AircraftId.decode(id) + " " + x + "," + y + "," + z);
+		}
+
+		@Override
+		public void left(long id, int x, int y, int z) {
+			events.add("left " + AircraftId.decode(id) + " " + x + "," + y + "," + z);
+		}
+
+		@Override
+		public void moved(long id, int x, int y, int z) {
+			events.add("moved " + AircraftId.decode(id) + " " + x + "," + y + "," + z);
+		}
+
+		@Override
+		public void resynchronised(List<Aircraft> aircraft) {
+			List<String> ids = new ArrayList<>();
+			for (Aircraft each : aircraft) {
+				ids.add(each.getId());
+			}
+			ids.sort(null);
+			events.add("resynchronised " + ids);
+		}
+	}
+
+	@Test(timeout = 500)
+	public void testChangesDeliveredToRegion() {
+		AirSpace airSpace = new AirSpace(100, 100, 40);
+		SectorFeed feed = new SectorFeed(airSpace);
+		Recorder sector = new Recorder();
+		feed.subscribe(0, 0, 0, 9, 9, 40, sector);
+		// 1 km/s east, from 3 km inside the eastern edge of the region.
+		airSpace.addAircraft(new Aircraft("AAA1", 6, 5, 1000, 1000, EAST), 0);
+		airSpace.addAircraft(new Aircraft("BBB2", 50, 50, 1000, 0, EAST), 0);
+		airSpace.addAircraft(new Aircraft("CCC3", 3, 3, 2000, 0, EAST), 0);
+		assertThat("Wrong number of changes read.", feed.poll(), is(equalTo(3L)));
+		airSpace.advance(2);
+		feed.poll();
+		airSpace.advance(2);
+		feed.poll();
+		airSpace.removeAircraft(AircraftId.encode("CCC3"));
+		airSpace.removeAircraft(AircraftId.encode("BBB2"));
+		feed.poll();
+		assertThat("Wrong changes delivered.", sector.events,
+				is(equalTo(Arrays.asList("entered AAA1 6,5,1", "entered CCC3 3,3,2",
+						"moved AAA1 8,5,1", "left AAA1 8,5,1", "left CCC3 3,3,2"))));
+	}
+
+	@Test(timeout = 500)
+	public void testLappedFeedResynchronises() {
+		// the log keeps only the latest 8 changes.
+		AirSpace airSpace = new AirSpace(100, 100, 40, 8);
+		SectorFeed feed = new SectorFeed(airSpace);
+		Recorder sector = new Recorder();
+		Recorder elsewhere = new Recorder();
+		feed.subscribe(0, 0, 0, 9, 9, 40, sector);
+		feed.subscribe(50, 50, 0, 59, 59, 40, elsewhere);
+		airSpace.addAircraft(new Aircraft("AAA1", 1, 1, 1000, 0, EAST), 0);
+		airSpace.addAircraft(new Aircraft("BBB2", 2, 2, 1000, 0, EAST), 0);
+		for (int i = 0; i < 10; i++) {
+			airSpace.addAircraft(new Aircraft("XX" + i, 20 + i, 20, 1000, 0, EAST), 0);
+		}
+		assertThat("Lap not detected.", feed.poll(), is(equalTo(-1L)));
+		assertThat("Region not resynchronised.", sector.events,
+				is(equalTo(Arrays.asList("resynchronised [AAA1, BBB2]"))));
+		assertThat("Empty region not resynchronised.", elsewhere.events,
+				is(equalTo(Arrays.asList("resynchronised []"))));
+		// the feed carries on from the snapshot.
+		airSpace.removeAircraft(AircraftId.encode("AAA1"));
+		assertThat("Feed did not carry on.", feed.poll(), is(equalTo(1L)));
+		assertThat("Change after resynchronising lost.", sector.events.get(1),
+				is(equalTo("left AAA1 1,1,1")));
+	}
+
+}
@@ -0,0 +1,68 @@
+package comp3506.assn1.application;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class ShardCoordinatorTest {
+
+	private static final int EAST = 90;
+	private static final int WEST = 270;
+
+	@Test(timeout = 500)
+	public void testGridNearSquare() {
+		int[][] expected = { { 1, 1 }, { 2, 1 }, { 4, 2 }, { 6, 2 }, { 7, 1 },
+				{ 12, 3 }, { 16, 4 } };
+		for (int[] shardsAndRows : expected) {
+			assertThat("Wrong rows for " + shardsAndRows[0] + " shards.",
+					ShardCoordinator.rowsFor(shardsAndRows[0]),
+					is(equalTo(shardsAndRows[1])));
+		}
+	}
+
+	@Test(timeout = 2000)
+	public void testRunsPartitionCells() {
+		for (int size : new int[] { 1, 7, 100, 3429, 5322 }) {
+			for (int runs = 1; runs <= Math.min(size, 12); runs++) {
+				int[] starts = ShardCoordinator.starts(size, runs);
+				assertThat("First run not at zero.", starts[0], is(equalTo(0)));
+				assertThat("Last run not ending at size.", starts[runs],
+						is(equalTo(size)));
+				for (int run = 0; run < runs; run++) {
+					assertThat("Empty run.", starts[run] < starts[run + 1],
+							is(equalTo(true)));
+				}
+				for (int cell = 0; cell < size; cell++) {
+					int run = ShardCoordinator.runOf(cell, size, runs);
+					// a cell is routed to the shard whose range holds it.
+					assertThat("Cell " + cell + " of " + size + " routed to run "
+							+ run + " of " + runs + ".",
+							starts[run] <= cell && cell < starts[run + 1],
+							is(equalTo(true)));
+				}
+			}
+		}
+	}
+
+	@Test(timeout = 60000)
+	public void testDepartedAircraftForgotten() throws Exception {
+		try (ShardCoordinator shards = new ShardCoordinator(99, 99, 40, 2)) {
+			assertThat("Western shard.", shards.shardOf(49, 0), is(equalTo(0)));
+			assertThat("Eastern shard.", shards.shardOf(50, 0), is(equalTo(1)));
+			shards.newAircraft(new Aircraft("AAA1", 45, 10, 1000, 1000, EAST));
+			shards.newAircraft(new Aircraft("BBB2", 5, 10, 1000, 1000, WEST));
+			assertThat("Wrong migrations.", shards.advance(10), is(equalTo(1)));
+			assertThat("Departed aircraft still held.",
+					shards.getAircraftCount(), is(equalTo(1)));
+			// BBB2 returns over the eastern shard: new, not a migration.
+			shards.newAircraft(new Aircraft("BBB2", 90, 10, 1000, 0, EAST));
+			assertThat("Returning aircraft counted as a migration.",
+					shards.getMigrations(), is(equalTo(1L)));
+			assertThat("Returning aircraft lost.", shards.getAircraftCount(),
+					is(equalTo(2)));
+		}
+	}
+
+}
@@ -0,0 +1,84 @@
+package comp3506.assn1.application;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import org.junit.Test;
+
+public class ShardServerTest {
+
+	private static final int EAST = 90;
+	private static final int WEST = 270;
+
+	private static void contact(DataOutputStream out, Aircraft aircraft)
+			throws IOException {
+		out.writeByte(ShardServer.CONTACT);
+		ShardServer.writeAircraft(out, aircraft);
+		out.writeLong(0);
+	}
+
+	@Test(timeout = 5000)
+	public void testAdvanceReportsEmigrantsAndDepartures() throws Exception {
+		// owns the western half of a 100 x 100 km airspace.
+		ShardServer shard = new ShardServer(100, 100, 40, 0, 0, 49, 100);
+		try (ServerSocket server = new ServerSocket(0, 1,
+				InetAddress.getLoopbackAddress())) {
+			Thread serving = new Thread(() -> {
+				try (Socket socket = server.accept()) {
+					shard.serve(socket);
+				} catch (IOException ioe) {
+					throw new UncheckedIOException(ioe);
+				}
+			});
+			serving.start();
+			try (Socket socket = new Socket(InetAddress.getLoopbackAddress(),
+					server.getLocalPort())) {
+				DataOutputStream out = new DataOutputStream(
+						new BufferedOutputStream(socket.getOutputStream()));
+				DataInputStream in = new DataInputStream(
+						new BufferedInputStream(socket.getInputStream()));
+				Aircraft crossing = new Aircraft("AAA1", 10, 10, 1000, 1000, EAST);
+				Aircraft leaving = new Aircraft("BBB2", 10, 20, 1000, 1000, WEST);
+				contact(out, crossing);
+				contact(out, leaving);
+				contact(out, new Aircraft("CCC3", 20, 30, 1000, 0, EAST));
+				// 50 km at 1 km/s.
+				out.writeByte(ShardServer.ADVANCE);
+				out.writeDouble(50);
+				out.flush();
+
+				assertThat("Wrong number of emigrants.", in.readInt(),
+						is(equalTo(1)));
+				Aircraft emigrant = ShardServer.readAircraft(in);
+				assertThat("Wrong emigrant.", emigrant.getIdCode(),
+						is(equalTo(crossing.getIdCode())));
+				assertThat("Emigrant not moved.", emigrant.getAirSpaceXCoord(),
+						is(equalTo(60)));
+				assertThat("Wrong number of departures.", in.readInt(),
+						is(equalTo(1)));
+				assertThat("Wrong departure.", in.readLong(),
+						is(equalTo(leaving.getIdCode())));
+
+				out.writeByte(ShardServer.COUNT);
+				out.flush();
+				assertThat("Emigrant or departure still held.", in.readInt(),
+						is(equalTo(1)));
+				out.writeByte(ShardServer.SHUTDOWN);
+				out.flush();
+			}
+			serving.join();
+		}
+	}
+
+}